@@ -15,24 +15,31 @@
  */
 package com.intuit.graphql.filter.ast;
 
+import com.intuit.graphql.filter.optimizer.UnsatisfiableExpression;
+import com.intuit.graphql.filter.visitors.ExpressionWalker;
+
+import java.util.List;
+import java.util.Objects;
+
 /**
  * Base class for a node in the
  * expression tree. All concrete expression nodes
  * will extend from this class.
  *
+ * Nodes are immutable and compare structurally.
+ * The hash code is computed once when the node is
+ * created from the already computed hash codes of
+ * its operands, so hashing a tree is constant time
+ * and trees can be used as keys of caches.
+ *
  * @author sjaiswal
  */
 public abstract class AbstractExpression implements Expression {
 
-    private Expression  leftOperand;
-    private Operator    operator;
-    private Expression  rightOperand;
-
-    /**
-     * Default constructor.
-     */
-    protected AbstractExpression () {
-    }
+    private final Expression  leftOperand;
+    private final Operator    operator;
+    private final Expression  rightOperand;
+    private final int         hashCode;
 
     /**
      * Parameterized constructor.
@@ -44,22 +51,59 @@ public abstract class AbstractExpression implements Expression {
         this.leftOperand = leftOperand;
         this.operator = operator;
         this.rightOperand = rightOperand;
+        this.hashCode = (31 * (31 * Objects.hashCode(leftOperand) + Objects.hashCode(operator))
+                + Objects.hashCode(rightOperand)) * 31 + getClass().getName().hashCode();
     }
 
     /**
      * Returns the infix string representation of the
-     * filter expression ast.
+     * filter expression ast. The tree is walked by an
+     * ExpressionWalker, so its depth is not limited
+     * by the thread stack.
      * @return
      */
     public String infix() {
         StringBuilder expressionBuilder = new StringBuilder();
-        expressionBuilder.append("(")
-                .append(getLeftOperand().infix())
-                .append(" ")
-                .append(getOperator().getName())
-                .append(" ")
-                .append(getRightOperand().infix())
-                .append(")");
+        ExpressionWalker.walk(this, new ExpressionWalker.Callback<Void>() {
+            @Override
+            public boolean descend(Expression expression) {
+                return ExpressionWalker.isInnerNode(expression) || expression instanceof UnsatisfiableExpression;
+            }
+
+            @Override
+            public void enter(Expression expression) {
+                if (expression instanceof CompoundExpression) {
+                    expressionBuilder.append("(");
+                } else if (expression instanceof UnaryExpression) {
+                    expressionBuilder.append("(").append(((UnaryExpression) expression).getOperator().getName())
+                            .append(" ");
+                } else if (expression instanceof AbstractExpression) {
+                    AbstractExpression binaryExpression = (AbstractExpression) expression;
+                    expressionBuilder.append("(")
+                            .append(binaryExpression.getLeftOperand().infix())
+                            .append(" ")
+                            .append(binaryExpression.getOperator().getName())
+                            .append(" ")
+                            .append(binaryExpression.getRightOperand().infix())
+                            .append(")");
+                } else if (!(expression instanceof UnsatisfiableExpression)) {
+                    expressionBuilder.append(expression.infix());
+                }
+            }
+
+            @Override
+            public void separate(CompoundExpression compoundExpression, int index) {
+                expressionBuilder.append(" ").append(compoundExpression.getOperator().getName()).append(" ");
+            }
+
+            @Override
+            public Void leave(Expression expression, List<Void> results) {
+                if (ExpressionWalker.isInnerNode(expression)) {
+                    expressionBuilder.append(")");
+                }
+                return null;
+            }
+        });
         return expressionBuilder.toString();
     }
 
@@ -88,26 +132,18 @@ public abstract class AbstractExpression implements Expression {
     }
 
     /**
-     * Sets the left operand.
-     * @param leftOperand
-     */
-    public void setLeftOperand(Expression leftOperand) {
-        this.leftOperand = leftOperand;
-    }
-
-    /**
-     * Sets the operator.
-     * @param operator
+     * Returns true if the given object is a node of the
+     * same class with equal operator and operands.
+     * @param other
+     * @return
      */
-    public void setOperator(Operator operator) {
-        this.operator = operator;
+    @Override
+    public boolean equals(Object other) {
+        return StructuralEquality.equal(this, other);
     }
 
-    /**
-     * Sets the right operand.
-     * @param rightOperand
-     */
-    public void setRightOperand(Expression rightOperand) {
-        this.rightOperand = rightOperand;
+    @Override
+    public int hashCode() {
+        return hashCode;
     }
 }
@@ -39,13 +39,6 @@ public class BinaryExpression extends AbstractExpression {
         super(leftOperand,operator,rightOperand);
     }
 
-    /**
-     * Default constructor.
-     */
-    public BinaryExpression() {
-        super();
-    }
-
     /**
      * This method accepts a expression visitor and calls
      * the visit method on the visitor passing itself.
@@ -17,16 +17,29 @@ package com.intuit.graphql.filter.ast;
 
 import com.intuit.graphql.filter.visitors.ExpressionVisitor;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
 /**
  * This class represents a CompoundExpression node
- * in the expression tree, left and right operand
- * can be either a BinaryExpression or
- * CompoundExpression.
+ * in the expression tree. The node holds an ordered
+ * list of operands joined by the same operator, each
+ * operand can be either a BinaryExpression,
+ * CompoundExpression or UnaryExpression.
  *
  * @author sjaiswal
  */
 public class CompoundExpression extends AbstractExpression {
 
+    private final List<Expression> operands;
+    private int hashCode;
+
+    /* View of the operands after the first, created on first use. */
+    private Expression rightOperand;
+
     /**
      * Constructor to create a compound expression node
      * with left operand, operator and right operand.
@@ -35,14 +48,85 @@ public class CompoundExpression extends AbstractExpression {
      * @param rightOperand
      */
     public CompoundExpression(Expression leftOperand, Operator operator, Expression rightOperand) {
-        super(leftOperand,operator,rightOperand);
+        this(operator, Arrays.asList(leftOperand, rightOperand));
+    }
+
+    /**
+     * Constructor to create a compound expression node
+     * with operator and list of operands.
+     * @param operator
+     * @param operands
+     */
+    public CompoundExpression(Operator operator, List<Expression> operands) {
+        super(null, operator, null);
+        this.operands = Collections.unmodifiableList(new ArrayList<>(operands));
+        this.hashCode = hash(operator, this.operands);
+    }
+
+    /**
+     * Constructor for the right operand view, sharing the
+     * operands instead of copying them. Its hash code is
+     * computed when it is first needed.
+     * @param operands
+     * @param operator
+     */
+    private CompoundExpression(List<Expression> operands, Operator operator) {
+        super(null, operator, null);
+        this.operands = operands;
+    }
+
+    /**
+     * Returns the operands in order.
+     * @return
+     */
+    public List<Expression> getOperands() {
+        return operands;
+    }
+
+    /**
+     * Returns the first operand.
+     * @return
+     */
+    @Override
+    public Expression getLeftOperand() {
+        return operands.isEmpty() ? null : operands.get(0);
     }
 
     /**
-     * Default constructor.
+     * Returns the second operand, or a compound expression
+     * of the remaining operands if there are more than two.
+     * The compound expression is a view created once, prefer
+     * getOperands() to walk the operands.
+     * @return
      */
-    public CompoundExpression() {
-        super();
+    @Override
+    public Expression getRightOperand() {
+        if (operands.size() < 2) {
+            return null;
+        }
+        if (operands.size() == 2) {
+            return operands.get(1);
+        }
+        Expression right = rightOperand;
+        if (right == null) {
+            right = new CompoundExpression(operands.subList(1, operands.size()), getOperator());
+            rightOperand = right;
+        }
+        return right;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = hashCode;
+        if (hash == 0) {
+            hash = hash(getOperator(), operands);
+            hashCode = hash;
+        }
+        return hash;
+    }
+
+    private static int hash(Operator operator, List<Expression> operands) {
+        return 31 * operands.hashCode() + Objects.hashCode(operator);
     }
 
     /**
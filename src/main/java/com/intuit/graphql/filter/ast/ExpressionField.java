@@ -25,7 +25,7 @@ import com.intuit.graphql.filter.visitors.ExpressionVisitor;
  */
 public class ExpressionField implements Expression {
 
-    private String fieldName;
+    private final String fieldName;
 
     public ExpressionField(String fieldName) {
         this.fieldName = fieldName;
@@ -40,6 +40,22 @@ public class ExpressionField implements Expression {
         return fieldName;
     }
 
+    /**
+     * Returns true if the given object is
+     * a field with the same name.
+     * @param other
+     * @return
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ExpressionField && fieldName.equals(((ExpressionField) other).fieldName);
+    }
+
+    @Override
+    public int hashCode() {
+        return fieldName.hashCode();
+    }
+
     /**
      * This method accepts a expression visitor and calls
      * the visit method on the visitor passing itself.
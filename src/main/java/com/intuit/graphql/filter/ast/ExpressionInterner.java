@@ -0,0 +1,112 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.ast;
+
+import com.intuit.graphql.filter.visitors.ExpressionWalker;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Deduplicates expression trees, so that equal
+ * subtrees are represented by a single instance.
+ *
+ * Interned trees take less memory when many filters
+ * share their terms, and equal subtrees compare by
+ * identity, which makes comparing and hashing them
+ * cheap for caches and common subexpression checks.
+ * The canonical instances are weakly held and go away
+ * once no tree uses them. A single instance is meant
+ * to be shared across requests and is safe for
+ * concurrent use.
+ */
+public class ExpressionInterner {
+
+    private final Map<Expression, WeakReference<Expression>> canonical = new WeakHashMap<>();
+
+    /**
+     * Returns the canonical instance of the given
+     * expression tree, whose subtrees are canonical
+     * as well. Trees are rebuilt only where one of
+     * their operands was replaced.
+     * @param expression
+     * @return
+     */
+    public Expression intern(Expression expression) {
+        if (expression == null) {
+            return null;
+        }
+        return ExpressionWalker.walk(expression, this::internNode);
+    }
+
+    /**
+     * Returns the number of canonical instances.
+     * @return
+     */
+    public int size() {
+        synchronized (canonical) {
+            return canonical.size();
+        }
+    }
+
+    private Expression internNode(Expression expression, List<Expression> operands) {
+        if (expression instanceof CompoundExpression) {
+            CompoundExpression compoundExpression = (CompoundExpression) expression;
+            if (!sameInstances(compoundExpression.getOperands(), operands)) {
+                expression = new CompoundExpression(compoundExpression.getOperator(), operands);
+            }
+        } else if (expression instanceof UnaryExpression) {
+            UnaryExpression unaryExpression = (UnaryExpression) expression;
+            if (unaryExpression.getLeftOperand() != operands.get(0)) {
+                expression = new UnaryExpression(operands.get(0), unaryExpression.getOperator(), null);
+            }
+        } else if (expression instanceof BinaryExpression) {
+            BinaryExpression binaryExpression = (BinaryExpression) expression;
+            Expression field = canonical(binaryExpression.getLeftOperand());
+            Expression value = canonical(binaryExpression.getRightOperand());
+            if (field != binaryExpression.getLeftOperand() || value != binaryExpression.getRightOperand()) {
+                expression = new BinaryExpression(field, binaryExpression.getOperator(), value);
+            }
+        }
+        return canonical(expression);
+    }
+
+    private Expression canonical(Expression expression) {
+        if (expression == null) {
+            return null;
+        }
+        synchronized (canonical) {
+            WeakReference<Expression> reference = canonical.get(expression);
+            Expression existing = reference == null ? null : reference.get();
+            if (existing != null) {
+                return existing;
+            }
+            canonical.put(expression, new WeakReference<>(expression));
+            return expression;
+        }
+    }
+
+    private boolean sameInstances(List<Expression> operands, List<Expression> internedOperands) {
+        for (int i = 0; i < operands.size(); i++) {
+            if (operands.get(i) != internedOperands.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
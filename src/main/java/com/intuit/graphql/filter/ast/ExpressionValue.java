@@ -17,6 +17,10 @@ package com.intuit.graphql.filter.ast;
 
 import com.intuit.graphql.filter.visitors.ExpressionVisitor;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
 /**
  * Represents an expression value node
  * in the expression tree.
@@ -25,10 +29,22 @@ import com.intuit.graphql.filter.visitors.ExpressionVisitor;
  */
 public class ExpressionValue<V> implements Expression {
 
-    private V value;
+    private final V value;
+    private final int hashCode;
 
+    /**
+     * Creates a value node. List values are
+     * wrapped read-only without being copied,
+     * so the node owns the given list and it
+     * must not be modified afterwards.
+     * @param value
+     */
     public ExpressionValue(V value) {
+        if (value instanceof List) {
+            value = (V) Collections.unmodifiableList((List) value);
+        }
         this.value = value;
+        this.hashCode = Objects.hashCode(value);
     }
 
     /**
@@ -62,6 +78,23 @@ public class ExpressionValue<V> implements Expression {
         return value;
     }
 
+    /**
+     * Returns true if the given object
+     * is a value node with an equal value.
+     * @param other
+     * @return
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ExpressionValue && hashCode == other.hashCode()
+                && Objects.equals(value, ((ExpressionValue) other).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
     /**
      * This method accepts a expression visitor and calls
      * the visit method on the visitor passing itself.
@@ -15,6 +15,9 @@
  */
 package com.intuit.graphql.filter.ast;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Enum of operators for supporting relational
  * and logical expressions.
@@ -30,12 +33,14 @@ public enum Operator {
 
     /* String Operators */
     EQUALS("equals", "String", Kind.BINARY),
+    NOT_EQUALS("notEquals", "String", Kind.BINARY),
     CONTAINS("contains", "String",  Kind.BINARY),
     STARTS("starts", "String",  Kind.BINARY),
     ENDS("ends", "String",  Kind.BINARY),
 
     /* Numeric Operators */
     EQ("eq", "Numeric", Kind.BINARY),
+    NE("ne", "Numeric", Kind.BINARY),
     GT("gt", "Numeric",  Kind.BINARY),
     GTE("gte", "Numeric",  Kind.BINARY),
     LT("lt", "Numeric",  Kind.BINARY),
@@ -43,17 +48,27 @@ public enum Operator {
 
     /* Range Operators */
     IN("in", "String|Numeric",  Kind.BINARY),
+    NOT_IN("notIn", "String|Numeric",  Kind.BINARY),
     BETWEEN("between","DateTime|Numeric", Kind.BINARY);
 
     /**
      * Enum of operator kind.
      */
-    enum Kind {
+    public enum Kind {
         COMPOUND,
         BINARY,
         UNARY;
     }
 
+    /* Name lookup, built once since values() clones the array on every call. */
+    private static final Map<String, Operator> OPERATORS = new HashMap<>();
+
+    static {
+        for (Operator operator : values()) {
+            OPERATORS.put(operator.name, operator);
+        }
+    }
+
     private String name;
     private String type;
     private Kind kind;
@@ -71,12 +86,22 @@ public enum Operator {
      * @return
      */
     public static Operator getOperator(String name) {
-        for (Operator operator : Operator.values()) {
-            if (operator.getName().equals(name)) {
-                return operator;
-            }
+        Operator operator = lookup(name);
+        if (operator == null) {
+            throw new IllegalArgumentException(String.valueOf(name));
         }
-        throw new IllegalArgumentException(String.valueOf(name));
+        return operator;
+    }
+
+    /**
+     * Returns the Operator enum based on
+     * operator name, or null if the name
+     * is not an operator, e.g. a field name.
+     * @param name
+     * @return
+     */
+    public static Operator lookup(String name) {
+        return name == null ? null : OPERATORS.get(name);
     }
 
     /**
@@ -0,0 +1,93 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.ast;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Compares expression trees structurally using an
+ * explicit stack, so deeply nested trees do not
+ * overflow the thread stack. Subtrees that are the
+ * same instance, e.g. interned ones, are not
+ * descended into and subtrees with different hash
+ * codes are rejected without being descended into.
+ */
+final class StructuralEquality {
+
+    private StructuralEquality() {
+    }
+
+    static boolean equal(Expression expression, Object other) {
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(other);
+        pending.push(expression);
+        while (!pending.isEmpty()) {
+            Object left = pending.pop();
+            Object right = pending.pop();
+            if (left == right) {
+                continue;
+            }
+            if (left == null || right == null || left.getClass() != right.getClass()
+                    || left.hashCode() != right.hashCode()) {
+                return false;
+            }
+            if (left instanceof CompoundExpression) {
+                CompoundExpression leftCompound = (CompoundExpression) left;
+                CompoundExpression rightCompound = (CompoundExpression) right;
+                List<Expression> leftOperands = leftCompound.getOperands();
+                List<Expression> rightOperands = rightCompound.getOperands();
+                if (leftCompound.getOperator() != rightCompound.getOperator()
+                        || leftOperands.size() != rightOperands.size()) {
+                    return false;
+                }
+                for (int i = 0; i < leftOperands.size(); i++) {
+                    if (!push(pending, leftOperands.get(i), rightOperands.get(i))) {
+                        return false;
+                    }
+                }
+            } else if (left instanceof AbstractExpression) {
+                AbstractExpression leftExpression = (AbstractExpression) left;
+                AbstractExpression rightExpression = (AbstractExpression) right;
+                if (leftExpression.getOperator() != rightExpression.getOperator()) {
+                    return false;
+                }
+                if (!push(pending, leftExpression.getLeftOperand(), rightExpression.getLeftOperand())
+                        || !push(pending, leftExpression.getRightOperand(), rightExpression.getRightOperand())) {
+                    return false;
+                }
+            } else if (!left.equals(right)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Queues the given operands for comparison, or returns
+     * false if only one of them is missing. ArrayDeque does
+     * not take nulls, so missing operands are compared here.
+     */
+    private static boolean push(Deque<Object> pending, Expression left, Expression right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        pending.push(right);
+        pending.push(left);
+        return true;
+    }
+}
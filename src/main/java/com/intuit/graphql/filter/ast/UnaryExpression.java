@@ -27,13 +27,6 @@ import com.intuit.graphql.filter.visitors.ExpressionVisitor;
  */
 public class UnaryExpression extends AbstractExpression{
 
-    /**
-     * Default constructor.
-     */
-    public UnaryExpression() {
-        super();
-    }
-
     /**
      * Parameterized constructor.
      *
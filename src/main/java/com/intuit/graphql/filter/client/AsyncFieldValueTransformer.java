@@ -0,0 +1,60 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.client;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * FieldValueTransformer whose values are transformed
+ * asynchronously and in batches, e.g. when every value
+ * is looked up in another store.
+ *
+ * FilterExpression.getExpressionAsync() passes all the
+ * field and value pairs of a filter in a single call,
+ * so one round trip replaces a blocking lookup per value.
+ * Field names are still transformed synchronously.
+ */
+public interface AsyncFieldValueTransformer extends FieldValueTransformer {
+
+    /**
+     * Returns a future of the transformed pairs, in the
+     * order of the given pairs. Pairs are distinct, and
+     * the elements of list values, e.g. of in filters,
+     * are passed as pairs of their own. Every pair must
+     * have a transformed value: a null pair or value fails
+     * the rendering with an IllegalStateException.
+     * @param fieldValuePairs
+     * @return
+     */
+    public CompletableFuture<List<FieldValuePair<? extends Object>>> transformValues(
+            List<FieldValuePair<? extends Object>> fieldValuePairs);
+
+    /**
+     * Transforms a single value through transformValues(),
+     * blocking on join() until it completes. Used when the
+     * expression is rendered synchronously, once per value,
+     * so it must not be called from a non-blocking thread,
+     * e.g. an event loop. Use getExpressionAsync() there.
+     * @param fieldName
+     * @param value
+     * @return
+     */
+    @Override
+    public default FieldValuePair<? extends Object> transformValue(String fieldName, Object value) {
+        return FieldValueBatch.transformValue(this, fieldName, value);
+    }
+}
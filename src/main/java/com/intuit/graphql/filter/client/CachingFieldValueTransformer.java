@@ -0,0 +1,280 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * FieldValueTransformer decorator memoizing the
+ * values transformed by the underlying transformer.
+ *
+ * Values are cached per field name and value in a
+ * bounded LRU map, and optionally expire a fixed time
+ * after they were transformed. Caching can be limited
+ * to the fields whose transformation is expensive,
+ * e.g. enum to code lookups or ID decoding. Field names
+ * are passed through, they are resolved once per filter.
+ *
+ * The transformer is expected to return the same pair
+ * for the same field and value until it expires. A single
+ * instance is meant to be shared across requests, passed
+ * to FilterExpressionBuilder.transform(), and is safe for
+ * concurrent use if the underlying transformer is.
+ */
+public class CachingFieldValueTransformer implements FieldValueTransformer {
+
+    private final FieldValueTransformer fieldValueTransformer;
+    private final int maximumSize;
+    private final long expireAfterWriteNanos;
+    private final Set<String> fieldNames;
+    private final LongSupplier ticker;
+    private final Map<Key, Entry> entries;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong evictionCount;
+
+    private CachingFieldValueTransformer(CachingFieldValueTransformerBuilder transformerBuilder) {
+        this.fieldValueTransformer = transformerBuilder.fieldValueTransformer;
+        this.maximumSize = transformerBuilder.maximumSize;
+        this.expireAfterWriteNanos = transformerBuilder.expireAfterWriteNanos;
+        this.fieldNames = transformerBuilder.fieldNames;
+        this.ticker = transformerBuilder.ticker;
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.evictionCount = new AtomicLong();
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > maximumSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Builder class responsible for building the
+     * instance of CachingFieldValueTransformer class.
+     */
+    public static class CachingFieldValueTransformerBuilder {
+
+        private final FieldValueTransformer fieldValueTransformer;
+        private int maximumSize = 10000;
+        private long expireAfterWriteNanos;
+        private Set<String> fieldNames;
+        private LongSupplier ticker = System::nanoTime;
+
+        private CachingFieldValueTransformerBuilder(FieldValueTransformer fieldValueTransformer) {
+            this.fieldValueTransformer = fieldValueTransformer;
+        }
+
+        public CachingFieldValueTransformerBuilder maximumSize(int maximumSize) {
+            if (maximumSize < 1) {
+                throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Expires the cached values the given time
+         * after they were transformed. Values never
+         * expire by default.
+         * @param duration
+         * @param unit
+         * @return
+         */
+        public CachingFieldValueTransformerBuilder expireAfterWrite(long duration, TimeUnit unit) {
+            if (duration < 1) {
+                throw new IllegalArgumentException("duration must be positive: " + duration);
+            }
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Limits caching to the values of the given
+         * fields. The values of all the fields are
+         * cached by default.
+         * @param fieldNames
+         * @return
+         */
+        public CachingFieldValueTransformerBuilder fields(String... fieldNames) {
+            this.fieldNames = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(fieldNames)));
+            return this;
+        }
+
+        /* Source of the current time in nanoseconds, for tests. */
+        CachingFieldValueTransformerBuilder ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public CachingFieldValueTransformer build() {
+            return new CachingFieldValueTransformer(this);
+        }
+    }
+
+    public static CachingFieldValueTransformerBuilder newCachingFieldValueTransformerBuilder(
+            FieldValueTransformer fieldValueTransformer) {
+        if (fieldValueTransformer == null) {
+            throw new IllegalArgumentException("fieldValueTransformer must not be null");
+        }
+        return new CachingFieldValueTransformerBuilder(fieldValueTransformer);
+    }
+
+    @Override
+    public String transformField(String fieldName) {
+        return fieldValueTransformer.transformField(fieldName);
+    }
+
+    @Override
+    public FieldValuePair<? extends Object> transformValue(String fieldName, Object value) {
+        if (fieldNames != null && !fieldNames.contains(fieldName)) {
+            return fieldValueTransformer.transformValue(fieldName, value);
+        }
+        Key key = new Key(fieldName, value);
+        long now = ticker.getAsLong();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && isExpired(entry, now)) {
+                entries.remove(key);
+                evictionCount.incrementAndGet();
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            hitCount.incrementAndGet();
+            return entry.fieldValuePair;
+        }
+        missCount.incrementAndGet();
+        /* Transforms outside the lock, concurrent misses of a value may transform it more than once.*/
+        FieldValuePair<? extends Object> fieldValuePair = fieldValueTransformer.transformValue(fieldName, value);
+        if (fieldValuePair != null) {
+            synchronized (entries) {
+                entries.put(key, new Entry(fieldValuePair, now));
+            }
+        }
+        return fieldValuePair;
+    }
+
+    /**
+     * Returns the number of values served from the cache.
+     * @return
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of values passed to the underlying transformer.
+     * @return
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of values evicted to honour
+     * the maximum size or because they expired.
+     * @return
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the number of cached values,
+     * including the expired ones not yet evicted.
+     * @return
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Removes all the cached values.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return expireAfterWriteNanos > 0 && now - entry.writeTime >= expireAfterWriteNanos;
+    }
+
+    /**
+     * Field name and value a transformed
+     * value is cached for.
+     */
+    private static final class Key {
+
+        private final String fieldName;
+        private final Object value;
+        private final int hashCode;
+
+        Key(String fieldName, Object value) {
+            this.fieldName = fieldName;
+            this.value = value;
+            this.hashCode = 31 * Objects.hashCode(fieldName) + Objects.hashCode(value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return hashCode == that.hashCode && Objects.equals(fieldName, that.fieldName)
+                    && Objects.equals(value, that.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class Entry {
+
+        private final FieldValuePair<? extends Object> fieldValuePair;
+        private final long writeTime;
+
+        Entry(FieldValuePair<? extends Object> fieldValuePair, long writeTime) {
+            this.fieldValuePair = fieldValuePair;
+            this.writeTime = writeTime;
+        }
+    }
+}
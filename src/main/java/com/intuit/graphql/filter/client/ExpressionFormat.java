@@ -27,7 +27,10 @@ public enum ExpressionFormat {
     JPA("JPA"),
     MONGO("MONGO"),
     ELASTICSEARCH("ELASTICSEARCH"),
-    DYNAMODB("DYNAMODB");
+    DYNAMODB("DYNAMODB"),
+    SQL_PARAMETERIZED("SQL_PARAMETERIZED"),
+    SQL_NAMED_PARAMETERIZED("SQL_NAMED_PARAMETERIZED"),
+    PREDICATE("PREDICATE");
 
     private String type;
     ExpressionFormat(String type) {
@@ -21,8 +21,11 @@ import com.intuit.graphql.filter.visitors.ExpressionVisitor;
 import com.intuit.graphql.filter.visitors.InfixExpressionVisitor;
 import com.intuit.graphql.filter.visitors.JpaSpecificationExpressionVisitor;
 import com.intuit.graphql.filter.visitors.MongoCriteriaExpressionVisitor;
+import com.intuit.graphql.filter.visitors.ParameterizedSQLExpressionVisitor;
+import com.intuit.graphql.filter.visitors.PredicateExpressionVisitor;
 import com.intuit.graphql.filter.visitors.SQLExpressionVisitor;
 
+import java.util.EnumMap;
 import java.util.Map;
 
 /**
@@ -30,40 +33,75 @@ import java.util.Map;
  * for creating instances of supported
  * expression visitors.
  *
+ * Visitors keep the state of a traversal, including
+ * the resolution of the fields of the filter, in a
+ * context created per call, so a single instance per
+ * format is shared by all the filters.
+ *
  * @author sjaiswal
  */
 class ExpressionVisitorFactory {
 
+    private static final Map<ExpressionFormat, ExpressionVisitor> VISITORS = createExpressionVisitors();
+
+    /**
+     * Factory method returning the shared
+     * instance of ExpressionVisitor of the
+     * given format, infix by default.
+     * @param format
+     * @return
+     */
+    static ExpressionVisitor getExpressionVisitor(ExpressionFormat format) {
+        return VISITORS.get(format == null ? ExpressionFormat.INFIX : format);
+    }
+
+    private static Map<ExpressionFormat, ExpressionVisitor> createExpressionVisitors() {
+        Map<ExpressionFormat, ExpressionVisitor> visitors = new EnumMap<>(ExpressionFormat.class);
+        for (ExpressionFormat format : ExpressionFormat.values()) {
+            visitors.put(format, createExpressionVisitor(format));
+        }
+        return visitors;
+    }
+
     /**
-     * Factory method for creating and returning
-     * instances of ExpressionVisitor.
+     * Creates a new instance of ExpressionVisitor
+     * with no field map and transformer, those of
+     * a filter are given with each expression.
      * @param format
-     * @param fieldMap
      * @return
      */
-    static ExpressionVisitor getExpressionVisitor(ExpressionFormat format,
-                                                  Map<String, String> fieldMap,
-                                                  FieldValueTransformer fieldValueTransformer) {
-        ExpressionVisitor expressionVisitor = new InfixExpressionVisitor(fieldMap, fieldValueTransformer);
+    private static ExpressionVisitor createExpressionVisitor(ExpressionFormat format) {
+        ExpressionVisitor expressionVisitor = new InfixExpressionVisitor(null, null);
         if (format != null) {
             switch (format) {
                 case INFIX:
-                    expressionVisitor = new InfixExpressionVisitor(fieldMap, fieldValueTransformer);
+                    expressionVisitor = new InfixExpressionVisitor(null, null);
                     break;
                 case SQL:
-                    expressionVisitor =  new SQLExpressionVisitor(fieldMap, fieldValueTransformer);
+                    expressionVisitor =  new SQLExpressionVisitor(null, null);
                     break;
                 case JPA:
-                    expressionVisitor = new JpaSpecificationExpressionVisitor(fieldMap, fieldValueTransformer);
+                    expressionVisitor = new JpaSpecificationExpressionVisitor(null, null);
                     break;
                 case MONGO:
-                    expressionVisitor =  new MongoCriteriaExpressionVisitor(fieldMap, fieldValueTransformer);
+                    expressionVisitor =  new MongoCriteriaExpressionVisitor(null, null);
                     break;
                 case ELASTICSEARCH:
-                    expressionVisitor = new ElasticsearchCriteriaExpressionVisitor(fieldMap, fieldValueTransformer);
+                    expressionVisitor = new ElasticsearchCriteriaExpressionVisitor(null, null);
                     break;
                 case DYNAMODB:
-                    expressionVisitor = new DynamoDBExpressionVisitor(fieldMap, fieldValueTransformer);
+                    expressionVisitor = new DynamoDBExpressionVisitor(null, null);
+                    break;
+                case SQL_PARAMETERIZED:
+                    expressionVisitor = new ParameterizedSQLExpressionVisitor(null, null,
+                            SQLExpressionVisitor.ParameterStyle.POSITIONAL);
+                    break;
+                case SQL_NAMED_PARAMETERIZED:
+                    expressionVisitor = new ParameterizedSQLExpressionVisitor(null, null,
+                            SQLExpressionVisitor.ParameterStyle.NAMED);
+                    break;
+                case PREDICATE:
+                    expressionVisitor = new PredicateExpressionVisitor(null, null);
                     break;
             }
         }
@@ -0,0 +1,214 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.client;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.optimizer.UnsatisfiableExpression;
+import com.intuit.graphql.filter.visitors.ExpressionWalker;
+import com.intuit.graphql.filter.visitors.FieldResolution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Values of a filter transformed in a single
+ * batch by an AsyncFieldValueTransformer.
+ *
+ * The values of the fields renamed by the transformer
+ * are collected once, transformed in one call, and bound
+ * to a copy of the expression tree. The copy is rendered
+ * without a transformer, with the resolved field names
+ * as field map.
+ */
+final class FieldValueBatch {
+
+    private final Expression expression;
+    private final AsyncFieldValueTransformer fieldValueTransformer;
+    private final FieldResolution fieldResolution;
+    private final Map<String, String> fieldMap;
+    /* Distinct field and value pairs to transform, keyed by [fieldName, value].*/
+    private final Map<List<Object>, FieldValuePair<? extends Object>> fieldValuePairs;
+
+    FieldValueBatch(Expression expression, Map<String, String> fieldMap,
+                    AsyncFieldValueTransformer fieldValueTransformer) {
+        this.expression = expression;
+        this.fieldValueTransformer = fieldValueTransformer;
+        this.fieldResolution = FieldResolution.of(expression, fieldMap, fieldValueTransformer);
+        this.fieldMap = new HashMap<>();
+        this.fieldValuePairs = new LinkedHashMap<>();
+        collect(expression);
+    }
+
+    /**
+     * Returns the field map the bound
+     * expression is rendered with.
+     * @return
+     */
+    Map<String, String> getFieldMap() {
+        return fieldMap;
+    }
+
+    /**
+     * Returns a future of the expression
+     * with the transformed values bound.
+     * @return
+     */
+    CompletableFuture<Expression> transform() {
+        if (fieldValuePairs.isEmpty()) {
+            return CompletableFuture.completedFuture(expression);
+        }
+        return fieldValueTransformer.transformValues(new ArrayList<>(fieldValuePairs.values()))
+                .thenApply(transformedPairs -> {
+                    if (transformedPairs == null || transformedPairs.size() != fieldValuePairs.size()) {
+                        throw new IllegalStateException("Expected " + fieldValuePairs.size()
+                                + " transformed values but got " + (transformedPairs == null ? 0 : transformedPairs.size()));
+                    }
+                    Map<List<Object>, Object> values = new HashMap<>();
+                    Iterator<FieldValuePair<? extends Object>> transformed = transformedPairs.iterator();
+                    for (Map.Entry<List<Object>, FieldValuePair<? extends Object>> entry : fieldValuePairs.entrySet()) {
+                        values.put(entry.getKey(), valueOf(transformed.next(), entry.getValue()));
+                    }
+                    return bind(expression, values);
+                });
+    }
+
+    /**
+     * Transforms a single value through a batch
+     * of its own, blocking until it completes.
+     * @param fieldValueTransformer
+     * @param fieldName
+     * @param value
+     * @return
+     */
+    static FieldValuePair<? extends Object> transformValue(AsyncFieldValueTransformer fieldValueTransformer,
+                                                           String fieldName, Object value) {
+        List<FieldValuePair<? extends Object>> fieldValuePairs = new ArrayList<>();
+        for (Object element : elements(value)) {
+            fieldValuePairs.add(new FieldValuePair<>(fieldName, element));
+        }
+        List<FieldValuePair<? extends Object>> transformedPairs =
+                fieldValueTransformer.transformValues(fieldValuePairs).join();
+        if (transformedPairs == null || transformedPairs.size() != fieldValuePairs.size()) {
+            throw new IllegalStateException("Expected " + fieldValuePairs.size()
+                    + " transformed values but got " + (transformedPairs == null ? 0 : transformedPairs.size()));
+        }
+        List<Object> values = new ArrayList<>(fieldValuePairs.size());
+        for (int i = 0; i < fieldValuePairs.size(); i++) {
+            values.add(valueOf(transformedPairs.get(i), fieldValuePairs.get(i)));
+        }
+        return new FieldValuePair<>(fieldName, value instanceof Collection ? values : values.get(0));
+    }
+
+    private void collect(Expression expression) {
+        ExpressionWalker.walk(expression, new ExpressionWalker.Callback<Void>() {
+            @Override
+            public boolean descend(Expression node) {
+                return ExpressionWalker.isInnerNode(node) || node instanceof UnsatisfiableExpression;
+            }
+
+            @Override
+            public Void leave(Expression node, List<Void> results) {
+                if (node instanceof BinaryExpression) {
+                    BinaryExpression binaryExpression = (BinaryExpression) node;
+                    String fieldName = binaryExpression.getLeftOperand().infix();
+                    int field = fieldResolution.indexOf(fieldName);
+                    if (!fieldName.equals(fieldResolution.targetName(field))) {
+                        fieldMap.put(fieldName, fieldResolution.targetName(field));
+                    }
+                    if (fieldResolution.isValueTransformed(field)) {
+                        for (Object element : elements(((ExpressionValue) binaryExpression.getRightOperand()).value())) {
+                            fieldValuePairs.computeIfAbsent(Arrays.asList(fieldName, element),
+                                    key -> new FieldValuePair<>(fieldName, element));
+                        }
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Copies the tree, replacing the values of the
+     * transformed fields. Field nodes are shared.
+     */
+    private Expression bind(Expression expression, Map<List<Object>, Object> values) {
+        return ExpressionWalker.walk(expression, new ExpressionWalker.Callback<Expression>() {
+            @Override
+            public boolean descend(Expression node) {
+                return ExpressionWalker.isInnerNode(node) || node instanceof UnsatisfiableExpression;
+            }
+
+            @Override
+            public Expression leave(Expression node, List<Expression> operands) {
+                if (node instanceof CompoundExpression) {
+                    return new CompoundExpression(((CompoundExpression) node).getOperator(), new ArrayList<>(operands));
+                } else if (node instanceof UnaryExpression) {
+                    return new UnaryExpression(operands.get(0), ((UnaryExpression) node).getOperator(), null);
+                } else if (node instanceof UnsatisfiableExpression) {
+                    return new UnsatisfiableExpression(operands.get(0));
+                } else if (node instanceof BinaryExpression) {
+                    return bind((BinaryExpression) node, values);
+                }
+                return node;
+            }
+        });
+    }
+
+    private Expression bind(BinaryExpression binaryExpression, Map<List<Object>, Object> values) {
+        String fieldName = binaryExpression.getLeftOperand().infix();
+        if (!fieldResolution.isValueTransformed(fieldResolution.indexOf(fieldName))) {
+            return binaryExpression;
+        }
+        Object value = ((ExpressionValue) binaryExpression.getRightOperand()).value();
+        Object boundValue;
+        if (value instanceof Collection) {
+            List<Object> elements = new ArrayList<>(((Collection) value).size());
+            for (Object element : (Collection) value) {
+                elements.add(values.get(Arrays.asList(fieldName, element)));
+            }
+            boundValue = elements;
+        } else {
+            boundValue = values.get(Arrays.asList(fieldName, value));
+        }
+        return new BinaryExpression(binaryExpression.getLeftOperand(),
+                binaryExpression.getOperator(), new ExpressionValue<>(boundValue));
+    }
+
+    private static Collection<?> elements(Object value) {
+        return value instanceof Collection ? (Collection<?>) value : Collections.singletonList(value);
+    }
+
+    private static Object valueOf(FieldValuePair<? extends Object> transformedPair,
+                                  FieldValuePair<? extends Object> fieldValuePair) {
+        if (transformedPair == null || transformedPair.getValue() == null) {
+            throw new IllegalStateException("No transformed value for " + fieldValuePair.getFieldName()
+                    + " value " + fieldValuePair.getValue());
+        }
+        return transformedPair.getValue();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.client;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.visitors.ExpressionWalker;
+
+import java.util.Collection;
+
+/**
+ * Computes the cost score of a filter, a rough measure
+ * of the work the backend does to evaluate it. Every
+ * and, or and not costs 1, a comparison costs 1, an in
+ * costs 1 per value, and string matches which cannot
+ * use an index, i.e. contains and ends, cost 5.
+ */
+public final class FilterCost {
+
+    static final long LOGICAL_COST = 1;
+
+    private FilterCost() {
+    }
+
+    /**
+     * Returns the cost score of the given expression tree.
+     * @param expression
+     * @return
+     */
+    public static long of(Expression expression) {
+        if (expression == null) {
+            return 0;
+        }
+        return ExpressionWalker.walk(expression, (node, results) -> {
+            if (!ExpressionWalker.isInnerNode(node)) {
+                if (!(node instanceof BinaryExpression)) {
+                    return 0L;
+                }
+                BinaryExpression binaryExpression = (BinaryExpression) node;
+                Object value = binaryExpression.getRightOperand() instanceof ExpressionValue
+                        ? ((ExpressionValue) binaryExpression.getRightOperand()).value() : null;
+                return leafCost(binaryExpression.getOperator(), value);
+            }
+            long cost = LOGICAL_COST;
+            for (Long operandCost : results) {
+                cost += operandCost;
+            }
+            return cost;
+        });
+    }
+
+    /**
+     * Returns the cost of a single comparison.
+     */
+    static long leafCost(Operator operator, Object value) {
+        switch (operator) {
+            case CONTAINS:
+            case ENDS:
+                return 5;
+            case STARTS:
+            case BETWEEN:
+                return 2;
+            case IN:
+            case NOT_IN:
+                return value instanceof Collection ? Math.max(1, ((Collection) value).size()) : 1;
+            default:
+                return 1;
+        }
+    }
+}
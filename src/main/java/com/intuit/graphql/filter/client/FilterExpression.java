@@ -16,11 +16,33 @@
 package com.intuit.graphql.filter.client;
 
 import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionInterner;
+import com.intuit.graphql.filter.encoding.CompactExpression;
+import com.intuit.graphql.filter.optimizer.ExpressionOptimizer;
+import com.intuit.graphql.filter.optimizer.OptimizationReport;
+import com.intuit.graphql.filter.optimizer.UnsatisfiableExpression;
+import com.intuit.graphql.filter.visitors.AbstractStringExpressionVisitor;
 import com.intuit.graphql.filter.visitors.ExpressionVisitor;
+import com.intuit.graphql.filter.visitors.FieldResolution;
+import com.intuit.graphql.filter.visitors.PredicateExpressionVisitor;
+import com.fasterxml.jackson.core.JsonParser;
+import graphql.language.Argument;
 import graphql.language.Field;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLArgument;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLInputType;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 /**
  * This class is used by clients of this
@@ -35,12 +57,19 @@ public class FilterExpression {
     private Map<String,String> fieldMap;
     private Expression expressionAst;
     private FieldValueTransformer fieldValueTransformer;
+    private OptimizationReport optimizationReport;
+    /* Fields of the filter, resolved once when it is built.*/
+    private FieldResolution fieldResolution;
+    /* Rendered expressions per format, see isMemoized().*/
+    private final Map<ExpressionFormat, Object> expressions = new ConcurrentHashMap<>();
 
     private FilterExpression(FilterExpressionBuilder expressionBuilder) {
         this.field = expressionBuilder.field;
         this.fieldMap = expressionBuilder.fieldMap;
         this.expressionAst = expressionBuilder.expressionAst;
         this.fieldValueTransformer = expressionBuilder.fieldValueTransformer;
+        this.optimizationReport = expressionBuilder.optimizationReport;
+        this.fieldResolution = FieldResolution.of(expressionAst, fieldMap, fieldValueTransformer);
     }
 
     /**
@@ -53,8 +82,17 @@ public class FilterExpression {
         private Map<String,String> fieldMap;
         private Expression expressionAst;
         private Map args;
+        private GraphQLFieldDefinition fieldDefinition;
+        private Map<String, Object> variables;
+        private byte[] jsonBytes;
+        private InputStream jsonStream;
         private final String FILTER_ARG = "filter";
         private FieldValueTransformer fieldValueTransformer;
+        private FilterExpressionCache expressionCache;
+        private ExpressionOptimizer expressionOptimizer;
+        private OptimizationReport optimizationReport;
+        private FilterLimits limits;
+        private ExpressionInterner expressionInterner;
 
         private FilterExpressionBuilder () {
             fieldMap = new HashMap<>();
@@ -65,6 +103,44 @@ public class FilterExpression {
             return this;
         }
 
+        /**
+         * Sets the schema definition of the field, whose
+         * filter argument type is used to coerce the
+         * literals of the field's filter argument.
+         * @param fieldDefinition
+         * @return
+         */
+        public FilterExpressionBuilder fieldDefinition(GraphQLFieldDefinition fieldDefinition) {
+            this.fieldDefinition = fieldDefinition;
+            return this;
+        }
+
+        /**
+         * Sets the variables of the operation, resolved
+         * when the field's filter argument refers to them.
+         * @param variables
+         * @return
+         */
+        public FilterExpressionBuilder variables(Map<String, Object> variables) {
+            this.variables = variables;
+            return this;
+        }
+
+        /**
+         * Sets the field, its definition and the variables
+         * of the given environment, so that the filter is
+         * parsed from the document AST instead of the
+         * coerced arguments.
+         * @param environment
+         * @return
+         */
+        public FilterExpressionBuilder environment(DataFetchingEnvironment environment) {
+            this.field = environment.getField();
+            this.fieldDefinition = environment.getFieldDefinition();
+            this.variables = environment.getVariables();
+            return this;
+        }
+
         public FilterExpressionBuilder map(String source, String target) {
             fieldMap.put(source,target);
             return this;
@@ -80,22 +156,117 @@ public class FilterExpression {
             return this;
         }
 
+        /**
+         * Sets the filter as JSON, e.g. the raw filter
+         * variable of a request, which is parsed from its
+         * token stream without creating maps and lists.
+         * @param filterJson
+         * @return
+         */
+        public FilterExpressionBuilder json(byte[] filterJson) {
+            this.jsonBytes = filterJson;
+            return this;
+        }
+
+        /**
+         * Sets the filter as a JSON stream, which is left
+         * open once the filter has been read.
+         * @param filterJson
+         * @return
+         */
+        public FilterExpressionBuilder json(InputStream filterJson) {
+            this.jsonStream = filterJson;
+            return this;
+        }
+
+        /**
+         * Sets an already parsed expression tree, e.g. one
+         * kept in a cache, instead of a filter to parse.
+         * @param expression
+         * @return
+         */
+        public FilterExpressionBuilder expression(Expression expression) {
+            this.expressionAst = expression;
+            return this;
+        }
+
         public FilterExpressionBuilder transform(FieldValueTransformer fieldValueTransformer) {
             this.fieldValueTransformer = fieldValueTransformer;
             return this;
         }
 
+        public FilterExpressionBuilder cache(FilterExpressionCache expressionCache) {
+            this.expressionCache = expressionCache;
+            return this;
+        }
+
+        public FilterExpressionBuilder optimizer(ExpressionOptimizer expressionOptimizer) {
+            this.expressionOptimizer = expressionOptimizer;
+            return this;
+        }
+
+        public FilterExpressionBuilder limits(FilterLimits limits) {
+            this.limits = limits;
+            return this;
+        }
+
+        /**
+         * Sets the interner sharing equal subtrees of
+         * the parsed filters, e.g. across requests.
+         * @param expressionInterner
+         * @return
+         */
+        public FilterExpressionBuilder interner(ExpressionInterner expressionInterner) {
+            this.expressionInterner = expressionInterner;
+            return this;
+        }
+
         public FilterExpression build() {
-            FilterExpressionParser expressionParser = new FilterExpressionParser();
-            if (args != null) {
+            FilterExpressionParser expressionParser = new FilterExpressionParser(expressionCache, limits);
+            if (expressionAst != null) {
+                /* An already parsed tree was given, compact ones are decoded once per filter.*/
+                if (expressionAst instanceof CompactExpression) {
+                    expressionAst = ((CompactExpression) expressionAst).decode();
+                }
+            } else if (args != null) {
                 Object filter = args.get(FILTER_ARG);
                 if (filter != null) {
                     expressionAst = expressionParser.parseFilterExpression((Map) filter);
                 }
+            } else if (jsonBytes != null || jsonStream != null) {
+                try (JsonParser jsonParser = jsonBytes != null
+                        ? FilterJsonParser.JSON_FACTORY.createParser(jsonBytes)
+                        : FilterJsonParser.JSON_FACTORY.createParser(jsonStream)) {
+                    expressionAst = expressionParser.parseFilterJson(jsonParser);
+                } catch (IOException e) {
+                    throw new InvalidFilterException("Invalid filter JSON: " + e.getMessage());
+                }
+            } else if (field != null) {
+                /* Without coerced arguments the filter is read from the document.*/
+                for (Argument argument : field.getArguments()) {
+                    if (FILTER_ARG.equals(argument.getName())) {
+                        expressionAst = expressionParser.parseFilterLiteral(argument.getValue(), filterType(), variables);
+                    }
+                }
+            }
+            if (expressionOptimizer != null && expressionAst != null) {
+                optimizationReport = new OptimizationReport();
+                expressionAst = expressionOptimizer.optimize(expressionAst, optimizationReport);
+            }
+            if (expressionInterner != null) {
+                expressionAst = expressionInterner.intern(expressionAst);
             }
             FilterExpression expression = new FilterExpression(this);
             return expression;
         }
+
+        private GraphQLInputType filterType() {
+            if (fieldDefinition == null) {
+                return null;
+            }
+            GraphQLArgument argument = fieldDefinition.getArgument(FILTER_ARG);
+            return argument == null ? null : argument.getType();
+        }
     }
 
     public static FilterExpressionBuilder newFilterExpressionBuilder() {
@@ -104,7 +275,9 @@ public class FilterExpression {
 
     /**
      * This method returns the expression in
-     * required format.
+     * required format. Expressions of immutable
+     * formats are rendered once and returned
+     * again by later calls.
      * @param format
      * @param <T>
      * @return
@@ -113,7 +286,167 @@ public class FilterExpression {
         if (expressionAst == null) {
             throw new InvalidFilterException("Missing or invalid filter arguments");
         }
-        ExpressionVisitor<T> expressionVisitor = ExpressionVisitorFactory.getExpressionVisitor(format, fieldMap, fieldValueTransformer);
-        return expressionVisitor.expression(expressionAst);
+        if (format == null) {
+            format = ExpressionFormat.INFIX;
+        }
+        Object expression = expressions.get(format);
+        if (expression == null) {
+            ExpressionVisitor<T> expressionVisitor = ExpressionVisitorFactory.getExpressionVisitor(format);
+            expression = expressionVisitor.expression(expressionAst, fieldResolution);
+            if (isMemoized(format)) {
+                expressions.put(format, expression);
+            }
+        }
+        return (T) expression;
+    }
+
+    /**
+     * This method returns the expression in each
+     * of the required formats. String formats are
+     * rendered together in a single traversal of
+     * the expression tree.
+     * @param formats
+     * @return
+     */
+    public Map<ExpressionFormat, Object> getExpressions(ExpressionFormat... formats) {
+        if (expressionAst == null) {
+            throw new InvalidFilterException("Missing or invalid filter arguments");
+        }
+        List<ExpressionFormat> stringFormats = new ArrayList<>();
+        List<AbstractStringExpressionVisitor> stringVisitors = new ArrayList<>();
+        for (ExpressionFormat format : formats) {
+            if (!expressions.containsKey(format) && !stringFormats.contains(format)) {
+                ExpressionVisitor expressionVisitor = ExpressionVisitorFactory.getExpressionVisitor(format);
+                if (expressionVisitor instanceof AbstractStringExpressionVisitor) {
+                    stringFormats.add(format);
+                    stringVisitors.add((AbstractStringExpressionVisitor) expressionVisitor);
+                }
+            }
+        }
+        if (stringFormats.size() > 1) {
+            List<String> stringExpressions = AbstractStringExpressionVisitor.expressions(expressionAst,
+                    fieldResolution, stringVisitors);
+            for (int i = 0; i < stringFormats.size(); i++) {
+                expressions.put(stringFormats.get(i), stringExpressions.get(i));
+            }
+        }
+        Map<ExpressionFormat, Object> formatExpressions = new EnumMap<>(ExpressionFormat.class);
+        for (ExpressionFormat format : formats) {
+            formatExpressions.put(format, getExpression(format));
+        }
+        return formatExpressions;
+    }
+
+    /**
+     * Returns true if the expressions of the given
+     * format can be shared between callers. Mongo and
+     * Elasticsearch criteria are mutable builders.
+     */
+    private static boolean isMemoized(ExpressionFormat format) {
+        return format != ExpressionFormat.MONGO && format != ExpressionFormat.ELASTICSEARCH;
+    }
+
+    /**
+     * This method returns a future of the expression
+     * in required format. With an AsyncFieldValueTransformer
+     * the values of the filter are transformed in a single
+     * batch before the expression is rendered, otherwise
+     * the expression is rendered right away.
+     * @param format
+     * @param <T>
+     * @return
+     */
+    public <T> CompletableFuture<T> getExpressionAsync(ExpressionFormat format) {
+        if (expressionAst == null) {
+            throw new InvalidFilterException("Missing or invalid filter arguments");
+        }
+        if (!(fieldValueTransformer instanceof AsyncFieldValueTransformer)) {
+            return CompletableFuture.completedFuture(getExpression(format));
+        }
+        FieldValueBatch fieldValueBatch = new FieldValueBatch(expressionAst, fieldMap,
+                (AsyncFieldValueTransformer) fieldValueTransformer);
+        return fieldValueBatch.transform().thenApply(expression -> {
+            ExpressionVisitor<T> expressionVisitor = ExpressionVisitorFactory.getExpressionVisitor(format);
+            return expressionVisitor.expression(expression,
+                    FieldResolution.of(expression, fieldValueBatch.getFieldMap(), null));
+        });
+    }
+
+    /**
+     * This method returns the expression compiled
+     * into a predicate over rows of the given class.
+     * Properties are read through accessors generated
+     * once per class and property.
+     * @param rowClass
+     * @param <T>
+     * @return
+     */
+    public <T> Predicate<T> getPredicate(Class<T> rowClass) {
+        if (expressionAst == null) {
+            throw new InvalidFilterException("Missing or invalid filter arguments");
+        }
+        return new PredicateExpressionVisitor<>(rowClass, fieldMap, fieldValueTransformer)
+                .expression(expressionAst, fieldResolution);
+    }
+
+    /**
+     * Returns the parsed and optimized expression tree,
+     * e.g. to be cached and passed to expression(...)
+     * of a later builder.
+     * @return
+     */
+    public Expression getExpressionTree() {
+        return expressionAst;
+    }
+
+    /**
+     * Returns the cost score of the expression as it
+     * is rendered, i.e. after optimization, which can
+     * be used to reject or throttle expensive filters
+     * before they reach the backend. See FilterCost.
+     * @return
+     */
+    public long getCost() {
+        return FilterCost.of(expressionAst);
+    }
+
+    /**
+     * Returns true if the optimizer proved that
+     * no row can match the filter, in which case
+     * the backend call can be skipped and an empty
+     * result returned. Always false when no
+     * optimizer was configured.
+     * @return
+     */
+    public boolean isUnsatisfiable() {
+        return expressionAst instanceof UnsatisfiableExpression;
+    }
+
+    /**
+     * Returns the report of the optimizer, or
+     * null if no optimizer was configured.
+     * @return
+     */
+    public OptimizationReport getOptimizationReport() {
+        return optimizationReport;
+    }
+
+    /**
+     * This method writes the expression in
+     * required string format to the given
+     * appendable, e.g. a StringBuilder shared
+     * with the rest of the query or a Writer.
+     * @param format
+     * @param out
+     */
+    public void writeExpression(ExpressionFormat format, Appendable out) {
+        if (expressionAst == null) {
+            throw new InvalidFilterException("Missing or invalid filter arguments");
+        }
+        ExpressionVisitor expressionVisitor = ExpressionVisitorFactory.getExpressionVisitor(format);
+        if (!(expressionVisitor instanceof AbstractStringExpressionVisitor)) {
+            throw new InvalidFilterException("Expression format " + format + " is not a string format");
+        }
+        ((AbstractStringExpressionVisitor) expressionVisitor).expression(expressionAst, fieldResolution, out);
     }
 }
@@ -0,0 +1,321 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.client;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.visitors.ExpressionWalker;
+import graphql.language.Value;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of parsed expression trees keyed
+ * by the structural shape of the filter argument.
+ *
+ * Two filters that only differ in their literal
+ * values share the same shape, so the parsed tree
+ * is cached once as a template and the values of
+ * the incoming filter are bound to a copy of it on
+ * every hit. A single instance is meant to be shared
+ * across requests and is safe for concurrent use.
+ *
+ * Filter arguments parsed from the document AST are
+ * also cached by the identity of their document node,
+ * provided they reference no variables. Those entries
+ * are bounded by the same maximum size and eviction
+ * policy and have counts of their own. They only pay
+ * off when parsed documents are reused, e.g. through
+ * a PreparsedDocumentProvider.
+ */
+public class FilterExpressionCache {
+
+    /**
+     * Supported eviction policies.
+     */
+    public enum EvictionPolicy {
+        /* Evicts the least recently used shape. */
+        LRU,
+        /* Evicts the oldest cached shape. */
+        FIFO
+    }
+
+    private final int maximumSize;
+    private final EvictionPolicy evictionPolicy;
+    private final Map<String, Expression> templates;
+    private final Map<Value, Expression> literalTemplates;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong evictionCount;
+    private final AtomicLong literalHitCount;
+    private final AtomicLong literalMissCount;
+    private final AtomicLong literalEvictionCount;
+
+    private FilterExpressionCache(FilterExpressionCacheBuilder cacheBuilder) {
+        this.maximumSize = cacheBuilder.maximumSize;
+        this.evictionPolicy = cacheBuilder.evictionPolicy;
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.evictionCount = new AtomicLong();
+        this.literalHitCount = new AtomicLong();
+        this.literalMissCount = new AtomicLong();
+        this.literalEvictionCount = new AtomicLong();
+        this.templates = newTemplates(evictionCount);
+        this.literalTemplates = newTemplates(literalEvictionCount);
+    }
+
+    /**
+     * Creates a map of templates bounded by the maximum
+     * size, evicting with the configured policy.
+     */
+    private <K> Map<K, Expression> newTemplates(AtomicLong evictions) {
+        return new LinkedHashMap<K, Expression>(16, 0.75f, evictionPolicy == EvictionPolicy.LRU) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Expression> eldest) {
+                if (size() > maximumSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Builder class responsible for building the
+     * instance of FilterExpressionCache class.
+     */
+    public static class FilterExpressionCacheBuilder {
+
+        private int maximumSize = 500;
+        private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+
+        private FilterExpressionCacheBuilder() {
+        }
+
+        public FilterExpressionCacheBuilder maximumSize(int maximumSize) {
+            if (maximumSize < 1) {
+                throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public FilterExpressionCacheBuilder evictionPolicy(EvictionPolicy evictionPolicy) {
+            this.evictionPolicy = evictionPolicy;
+            return this;
+        }
+
+        public FilterExpressionCache build() {
+            return new FilterExpressionCache(this);
+        }
+    }
+
+    public static FilterExpressionCacheBuilder newFilterExpressionCacheBuilder() {
+        return new FilterExpressionCacheBuilder();
+    }
+
+    /**
+     * Returns a new expression tree for the given shape
+     * with the given values bound to its leaves, or null
+     * if the shape is not cached.
+     * @param shape
+     * @param values
+     * @return
+     */
+    Expression get(String shape, List<Object> values) {
+        Expression template;
+        synchronized (templates) {
+            template = templates.get(shape);
+        }
+        if (template == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return bind(template, values.iterator());
+    }
+
+    /**
+     * Caches the given expression tree as the template
+     * for the given shape and returns a copy of it bound
+     * to the given values.
+     * @param shape
+     * @param template
+     * @param values
+     * @return
+     */
+    Expression put(String shape, Expression template, List<Object> values) {
+        synchronized (templates) {
+            templates.put(shape, template);
+        }
+        return bind(template, values.iterator());
+    }
+
+    /**
+     * Returns a new expression tree for the given filter
+     * literal, or null if the literal is not cached. Nodes
+     * of graphql-java documents compare by identity.
+     * @param literal
+     * @return
+     */
+    Expression getLiteral(Value literal) {
+        Expression template;
+        synchronized (literalTemplates) {
+            template = literalTemplates.get(literal);
+        }
+        if (template == null) {
+            literalMissCount.incrementAndGet();
+            return null;
+        }
+        literalHitCount.incrementAndGet();
+        return copy(template);
+    }
+
+    /**
+     * Caches the given expression tree as the template
+     * for the given filter literal and returns a copy.
+     * @param literal
+     * @param template
+     * @return
+     */
+    Expression putLiteral(Value literal, Expression template) {
+        synchronized (literalTemplates) {
+            literalTemplates.put(literal, template);
+        }
+        return copy(template);
+    }
+
+    /**
+     * Returns the number of lookups that found a cached shape.
+     * @return
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups that did not find a cached shape.
+     * @return
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of shapes evicted to honour the maximum size.
+     * @return
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the number of cached shapes.
+     * @return
+     */
+    public int size() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+    /**
+     * Returns the number of lookups that found a cached literal.
+     * @return
+     */
+    public long getLiteralHitCount() {
+        return literalHitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups that did not find a cached literal.
+     * @return
+     */
+    public long getLiteralMissCount() {
+        return literalMissCount.get();
+    }
+
+    /**
+     * Returns the number of literals evicted to honour the maximum size.
+     * @return
+     */
+    public long getLiteralEvictionCount() {
+        return literalEvictionCount.get();
+    }
+
+    /**
+     * Returns the number of cached literals.
+     * @return
+     */
+    public int literalSize() {
+        synchronized (literalTemplates) {
+            return literalTemplates.size();
+        }
+    }
+
+    /**
+     * Removes all the cached shapes and literals.
+     */
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+        synchronized (literalTemplates) {
+            literalTemplates.clear();
+        }
+    }
+
+    private Expression copy(Expression template) {
+        List<Object> values = new ArrayList<>();
+        ExpressionWalker.walk(template, (node, operands) -> {
+            if (node instanceof BinaryExpression) {
+                values.add(((ExpressionValue) ((BinaryExpression) node).getRightOperand()).value());
+            }
+            return null;
+        });
+        return bind(template, values.iterator());
+    }
+
+    /**
+     * Copies the template tree, replacing the value of every
+     * leaf with the next value in leaf order. Field nodes are
+     * never modified and hence shared with the template.
+     */
+    private Expression bind(Expression template, Iterator<Object> values) {
+        return ExpressionWalker.walk(template, (node, operands) -> {
+            Expression expression = null;
+            if (node instanceof CompoundExpression) {
+                expression = new CompoundExpression(((CompoundExpression) node).getOperator(), new ArrayList<>(operands));
+            } else if (node instanceof UnaryExpression) {
+                expression = new UnaryExpression(operands.get(0), ((UnaryExpression) node).getOperator(), null);
+            } else if (node instanceof BinaryExpression) {
+                BinaryExpression binaryExpression = (BinaryExpression) node;
+                expression = new BinaryExpression(binaryExpression.getLeftOperand(),
+                        binaryExpression.getOperator(), new ExpressionValue<>(values.next()));
+            }
+            return expression;
+        });
+    }
+}
@@ -16,7 +16,13 @@
 package com.intuit.graphql.filter.client;
 
 import com.intuit.graphql.filter.ast.*;
+import com.intuit.graphql.filter.visitors.ExpressionWalker;
+import com.fasterxml.jackson.core.JsonParser;
+import graphql.language.*;
+import graphql.schema.*;
 
+import java.io.IOException;
+import java.math.BigInteger;
 import java.time.*;
 import java.util.*;
 
@@ -27,89 +33,575 @@ import java.util.*;
  */
 class FilterExpressionParser {
 
+    private final FilterExpressionCache expressionCache;
+    private final FilterLimits limits;
+
+    FilterExpressionParser() {
+        this(null);
+    }
+
+    FilterExpressionParser(FilterExpressionCache expressionCache) {
+        this(expressionCache, null);
+    }
+
+    FilterExpressionParser(FilterExpressionCache expressionCache, FilterLimits limits) {
+        this.expressionCache = expressionCache;
+        this.limits = limits;
+    }
+
     /**
      * Parses the given graphql filter expression AST.
      * @param filterArgs
      * @return
+     * @throws InvalidFilterException
+     *          if the filter exceeds the limits.
      */
     public Expression parseFilterExpression(Map filterArgs) {
-        return createExpressionTree(filterArgs);
+        if (expressionCache == null) {
+            return createExpressionTree(filterArgs, newBudget());
+        }
+        StringBuilder shape = new StringBuilder();
+        List<Object> values = new ArrayList<>();
+        if (!createShape(filterArgs, shape, values, newBudget())) {
+            /* Shapes the parser does not fully understand are never cached.*/
+            return createExpressionTree(filterArgs, newBudget());
+        }
+        String shapeKey = shape.toString();
+        Expression expression = expressionCache.get(shapeKey, values);
+        if (expression == null) {
+            /* The limits were enforced while creating the shape.*/
+            expression = createExpressionTree(filterArgs, null);
+            if (expression != null && countValues(expression) == values.size()) {
+                expression = expressionCache.put(shapeKey, expression, values);
+            }
+        }
+        return expression;
+    }
+
+    /**
+     * Parses the given graphql filter argument straight
+     * from the document AST. Literals are coerced with the
+     * scalars of the given filter input type and variables
+     * are resolved only when the walk reaches them. Filters
+     * without variables are cached by the identity of their
+     * document node.
+     * @param filterValue
+     * @param filterType
+     *          input type of the filter argument, or null
+     *          to convert literals without the schema.
+     * @param variables
+     * @return
+     * @throws InvalidFilterException
+     *          if the filter exceeds the limits or a literal
+     *          cannot be coerced.
+     */
+    public Expression parseFilterLiteral(Value filterValue, GraphQLInputType filterType, Map<String, Object> variables) {
+        if (filterValue instanceof VariableReference) {
+            /* The whole filter is a variable, which graphql-java already coerced.*/
+            Object filter = variables == null ? null : variables.get(((VariableReference) filterValue).getName());
+            return filter instanceof Map ? parseFilterExpression((Map) filter) : null;
+        }
+        if (expressionCache != null) {
+            Expression expression = expressionCache.getLiteral(filterValue);
+            if (expression != null) {
+                return expression;
+            }
+        }
+        Literals literals = new Literals(variables);
+        Expression expression = createExpressionTree(filterValue, GraphQLTypeUtil.unwrapAll(filterType), newBudget(), literals);
+        if (expressionCache != null && expression != null && !literals.variablesUsed) {
+            expression = expressionCache.putLiteral(filterValue, expression);
+        }
+        return expression;
+    }
+
+    private Expression createExpressionTree(Map filterMap, Budget budget) {
+        return createExpressionTree(filterMap, null, budget, null);
+    }
+
+    /**
+     * Creates the expression tree of the given filter map
+     * or literal using an explicit stack, so deeply nested
+     * filters do not overflow the thread stack.
+     * @param filter
+     * @return
+     */
+    private Expression createExpressionTree(Object filter, GraphQLType filterType, Budget budget, Literals literals) {
+        Object node = createNode(filter, filterType, 1, budget, literals);
+        if (!(node instanceof ParseFrame)) {
+            return (Expression) node;
+        }
+        Deque<ParseFrame> stack = new ArrayDeque<>();
+        stack.push((ParseFrame) node);
+        while (true) {
+            ParseFrame frame = stack.peek();
+            if (frame.hasNext()) {
+                Object child = createNode(frame.next(), frame.childType, frame.childDepth(), budget, frame.literals);
+                if (child instanceof ParseFrame) {
+                    stack.push((ParseFrame) child);
+                } else {
+                    frame.add((Expression) child);
+                }
+                continue;
+            }
+            stack.pop();
+            Expression expression = frame.finish();
+            if (stack.isEmpty()) {
+                return expression;
+            }
+            stack.peek().add(expression);
+        }
+    }
+
+    /**
+     * Returns the expression of the given filter map or
+     * literal if it has no nested filters, otherwise the
+     * frame collecting the expressions of the nested ones.
+     */
+    private Object createNode(Object filter, GraphQLType filterType, int depth, Budget budget, Literals literals) {
+        String key;
+        Object operand;
+        if (literals != null && filter instanceof VariableReference) {
+            /* graphql-java already coerced the value of the variable, parse it as a filter map.*/
+            filter = literals.variable((VariableReference) filter);
+            literals = null;
+        }
+        if (filter instanceof ObjectValue) {
+            List<ObjectField> objectFields = ((ObjectValue) filter).getObjectFields();
+            if (objectFields.size() != 1) {
+                return null;
+            }
+            key = objectFields.get(0).getName();
+            operand = objectFields.get(0).getValue();
+        } else if (filter instanceof Map) {
+            Map filterMap = (Map) filter;
+            if (filterMap.isEmpty() || filterMap.size() > 1) {
+                return null;
+            }
+            Map.Entry entry = (Map.Entry) filterMap.entrySet().iterator().next();
+            key = entry.getKey().toString();
+            operand = entry.getValue();
+        } else {
+            return null;
+        }
+        GraphQLType operandType = fieldType(filterType, key);
+        Operator operator = Operator.lookup(key);
+        if (operator == null) {
+            /* Case to handle the Field expression.*/
+            return new ParseFrame(null, key, Collections.singletonList(operand), depth, operandType, literals);
+        }
+        switch (operator.getKind()) {
+
+            /* Case to handle the compound expression.*/
+            case COMPOUND:
+                if (budget != null) {
+                    budget.logical(depth);
+                }
+                if (literals != null) {
+                    boolean variable = operand instanceof VariableReference;
+                    operand = literals.list(variable ? literals.variable((VariableReference) operand) : operand);
+                    if (variable) {
+                        /* The nested filters of a variable are already coerced.*/
+                        literals = null;
+                    }
+                }
+                return new ParseFrame(operator, key, (List) operand, depth, operandType, literals);
+
+            /* Case to handle the binary expression.*/
+            case BINARY:
+                if (literals != null) {
+                    operand = literals.value(operand, operandType);
+                }
+                if (budget != null) {
+                    budget.leaf(depth, operator, operand);
+                }
+                /* The field is filled in by the enclosing field frame.*/
+                if (operand instanceof Collection) {
+                    List<Comparable> expressionValues = new ArrayList<>();
+                    List<Comparable> operandValues = (List<Comparable>) operand;
+                    for (Comparable value : operandValues) {
+                        expressionValues.add(convertIfDate(value));
+                    }
+                    return new BinaryExpression(null, operator, new ExpressionValue<>(expressionValues));
+                }
+                return new BinaryExpression(null, operator, new ExpressionValue<>(convertIfDate((Comparable) operand)));
+
+            case UNARY:
+                if (budget != null) {
+                    budget.logical(depth);
+                }
+                return new ParseFrame(operator, key, Collections.singletonList(operand), depth, operandType, literals);
+        }
+        return null;
     }
 
-    private Expression createExpressionTree(Map filterMap) {
-        if (filterMap == null || filterMap.isEmpty() || filterMap.size() > 1) {
+    /**
+     * Returns the unwrapped type of the given field of an
+     * input object type, or null if the type is unknown.
+     */
+    private GraphQLType fieldType(GraphQLType filterType, String key) {
+        if (!(filterType instanceof GraphQLInputObjectType)) {
             return null;
         }
-        Deque<Expression> expressionStack = new ArrayDeque<>();
-        Expression expression = null;
-        Set<Map.Entry> entries =  filterMap.entrySet();
-        for (Map.Entry entry : entries) {
+        GraphQLInputObjectField field = ((GraphQLInputObjectType) filterType).getFieldDefinition(key);
+        return field == null ? null : GraphQLTypeUtil.unwrapAll(field.getType());
+    }
+
+    /**
+     * Converts the literals of a filter argument into the
+     * values the coerced arguments would hold, resolving
+     * variables on first use.
+     */
+    private static final class Literals {
+
+        private final Map<String, Object> variables;
+        private boolean variablesUsed;
+
+        Literals(Map<String, Object> variables) {
+            this.variables = variables == null ? Collections.emptyMap() : variables;
+        }
+
+        Object variable(VariableReference reference) {
+            variablesUsed = true;
+            return variables.get(reference.getName());
+        }
+
+        List list(Object operand) {
+            if (operand instanceof ArrayValue) {
+                return ((ArrayValue) operand).getValues();
+            }
+            return operand instanceof List ? (List) operand : Collections.emptyList();
+        }
+
+        Object value(Object operand, GraphQLType type) {
+            if (operand instanceof VariableReference) {
+                return variable((VariableReference) operand);
+            }
+            if (operand instanceof ArrayValue) {
+                List<Object> values = new ArrayList<>();
+                for (Value value : ((ArrayValue) operand).getValues()) {
+                    values.add(value(value, type));
+                }
+                return values;
+            }
+            if (operand == null || operand instanceof NullValue) {
+                return null;
+            }
+            try {
+                if (type instanceof GraphQLScalarType) {
+                    return ((GraphQLScalarType) type).getCoercing().parseLiteral(operand, variables);
+                } else if (type instanceof GraphQLEnumType) {
+                    return ((GraphQLEnumType) type).getCoercing().parseLiteral(operand);
+                }
+            } catch (RuntimeException e) {
+                throw new InvalidFilterException("Invalid filter value " + operand + ": " + e.getMessage());
+            }
+            return convert(operand);
+        }
+
+        /* Conversion of the literals when the schema types are unknown.*/
+        private Object convert(Object operand) {
+            if (operand instanceof StringValue) {
+                return ((StringValue) operand).getValue();
+            } else if (operand instanceof IntValue) {
+                BigInteger value = ((IntValue) operand).getValue();
+                return value.bitLength() < Integer.SIZE ? (Object) value.intValue() : (Object) value.longValue();
+            } else if (operand instanceof FloatValue) {
+                return ((FloatValue) operand).getValue().doubleValue();
+            } else if (operand instanceof BooleanValue) {
+                return ((BooleanValue) operand).isValue();
+            } else if (operand instanceof EnumValue) {
+                return ((EnumValue) operand).getName();
+            }
+            throw new InvalidFilterException("Invalid filter value " + operand);
+        }
+    }
+
+    /**
+     * Pending compound, unary or field expression
+     * waiting for the expressions of its nested maps.
+     */
+    private final class ParseFrame {
+
+        /* Null for a field expression.*/
+        private final Operator operator;
+        private final String key;
+        private final List children;
+        private final int depth;
+        private final GraphQLType childType;
+        /* Null once the nested filters come from a coerced variable.*/
+        private final Literals literals;
+        private List<Expression> operands;
+        private int next;
+
+        ParseFrame(Operator operator, String key, List children, int depth, GraphQLType childType,
+                   Literals literals) {
+            this.operator = operator;
+            this.key = key;
+            this.children = children;
+            this.depth = depth;
+            this.childType = childType;
+            this.literals = literals;
+            this.operands = new ArrayList<>(children.size());
+        }
+
+        boolean hasNext() {
+            return operands != null && next < children.size();
+        }
+
+        Object next() {
+            return children.get(next++);
+        }
+
+        /* A field wraps its comparison, which is on the same level.*/
+        int childDepth() {
+            return operator == null ? depth : depth + 1;
+        }
+
+        void add(Expression operand) {
+            if (operator != null && operator.getKind() == Operator.Kind.COMPOUND && !validateExpression(operand)) {
+                /* An invalid operand invalidates the whole compound expression.*/
+                operands = null;
+                return;
+            }
+            operands.add(operand);
+        }
+
+        Expression finish() {
+            if (operator == null) {
+                BinaryExpression comparison = (BinaryExpression) operands.get(0);
+                return new BinaryExpression(new ExpressionField(key), comparison.getOperator(),
+                        comparison.getRightOperand());
+            }
+            if (operator.getKind() == Operator.Kind.UNARY) {
+                return new UnaryExpression(operands.get(0), operator, null);
+            }
+            if (operands == null || operands.isEmpty()) {
+                return null;
+            } else if (operands.size() == 1) {
+                return operands.get(0);
+            }
+            return new CompoundExpression(operator, operands);
+        }
+    }
+
+    /**
+     * Appends the structural fingerprint of the given filter map
+     * to the shape buffer and collects its leaf values in the same
+     * order in which createExpressionTree creates the leaves.
+     * @param filterMap
+     * @param shape
+     * @param values
+     * @return
+     *        false if the filter map cannot be cached.
+     */
+    private boolean createShape(Map filterMap, StringBuilder shape, List<Object> values, Budget budget) {
+        /* Pending filter maps and the literal shape text following them, in order.*/
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(new ShapeNode(filterMap, 1));
+        while (!pending.isEmpty()) {
+            Object next = pending.pop();
+            if (next instanceof String) {
+                shape.append((String) next);
+                continue;
+            }
+            Map map = ((ShapeNode) next).filterMap;
+            int depth = ((ShapeNode) next).depth;
+            if (map == null || map.size() != 1) {
+                return false;
+            }
+            Map.Entry entry = (Map.Entry) map.entrySet().iterator().next();
             String key = entry.getKey().toString();
-            if (isOperator(key)) {
-                String kind = Operator.getOperatorKind(key);
-                switch (kind) {
-
-                    /* Case to handle the compound expression.*/
-                    case "COMPOUND":
-                        List values = (List)entry.getValue();
-                        for (Object o : values) {
-                            Expression right = createExpressionTree((Map)o);
-                            Expression left = expressionStack.peek();
-                            if (validateExpression(right) && validateExpression(left)) {
-                                left = expressionStack.pop();
-                                Expression newExp = new CompoundExpression(left, Operator.getOperator(key), right);
-                                expressionStack.push(newExp);
-                            } else {
-                                expressionStack.push(right);
-                            }
+            shape.append(key);
+            Operator operator = Operator.lookup(key);
+            if (operator == null) {
+                /* Field expression must wrap exactly one binary expression.*/
+                if (!(entry.getValue() instanceof Map) || !isBinaryOperatorMap((Map) entry.getValue())) {
+                    return false;
+                }
+                shape.append('{');
+                pending.push("}");
+                pending.push(new ShapeNode((Map) entry.getValue(), depth));
+                continue;
+            }
+            switch (operator.getKind()) {
+                case COMPOUND:
+                    if (!(entry.getValue() instanceof List) || ((List) entry.getValue()).isEmpty()) {
+                        return false;
+                    }
+                    if (budget != null) {
+                        budget.logical(depth);
+                    }
+                    List operands = (List) entry.getValue();
+                    shape.append('[');
+                    pending.push("]");
+                    for (int i = operands.size() - 1; i >= 0; i--) {
+                        if (!(operands.get(i) instanceof Map)) {
+                            return false;
                         }
-                        expression = expressionStack.pop();
-                        break;
-
-                    /* Case to handle the binary expression.*/
-                    case "BINARY":
-                        BinaryExpression binaryExpression = new BinaryExpression();
-                        binaryExpression.setOperator(Operator.getOperator(key));
-                        if (entry.getValue() instanceof Collection) {
-                            List<Comparable> expressionValues = new ArrayList<>();
-                            List<Comparable> operandValues = (List<Comparable>) entry.getValue();
-                            for (Comparable value : operandValues) {
-                                expressionValues.add(convertIfDate(value));
-                            }
-                            ExpressionValue<List> expressionValue = new ExpressionValue(expressionValues);
-                            binaryExpression.setRightOperand(expressionValue);
-                        } else {
-                            ExpressionValue<Comparable> expressionValue = new ExpressionValue<>(convertIfDate((Comparable) entry.getValue()));
-                            binaryExpression.setRightOperand(expressionValue);
+                        pending.push(",");
+                        pending.push(new ShapeNode((Map) operands.get(i), depth + 1));
+                    }
+                    break;
+
+                case BINARY:
+                    if (budget != null) {
+                        budget.leaf(depth, operator, entry.getValue());
+                    }
+                    if (entry.getValue() instanceof Collection) {
+                        List<Comparable> expressionValues = new ArrayList<>();
+                        for (Object value : (Collection) entry.getValue()) {
+                            expressionValues.add(convertIfDate((Comparable) value));
                         }
-                        expression = binaryExpression;
-                        break;
+                        values.add(expressionValues);
+                        shape.append("[?]");
+                    } else {
+                        values.add(convertIfDate((Comparable) entry.getValue()));
+                        shape.append('?');
+                    }
+                    break;
 
-                    case "UNARY":
-                        Expression operand = createExpressionTree((Map)entry.getValue());
-                        expression = new UnaryExpression(operand,Operator.getOperator(key), null);
-                        break;
-                }
-            } else {
-                /* Case to handle the Field expression.*/
-                ExpressionField leftOperand = new ExpressionField(entry.getKey().toString());
-                BinaryExpression binaryExpression = (BinaryExpression) createExpressionTree((Map)entry.getValue());
-                binaryExpression.setLeftOperand(leftOperand);
-                expression = binaryExpression;
+                case UNARY:
+                    if (!(entry.getValue() instanceof Map)) {
+                        return false;
+                    }
+                    if (budget != null) {
+                        budget.logical(depth);
+                    }
+                    shape.append('{');
+                    pending.push("}");
+                    pending.push(new ShapeNode((Map) entry.getValue(), depth + 1));
+                    break;
+
+                default:
+                    return false;
             }
         }
+        return true;
+    }
 
-        return expression;
+    private static final class ShapeNode {
+
+        private final Map filterMap;
+        private final int depth;
+
+        ShapeNode(Map filterMap, int depth) {
+            this.filterMap = filterMap;
+            this.depth = depth;
+        }
     }
 
-    private boolean isOperator(String key) {
-        Operator operator = null;
+    /**
+     * Parses the given JSON filter, i.e. the value of the
+     * filter argument, straight from its token stream
+     * without materializing it as maps and lists.
+     * @param filterJson
+     * @return
+     * @throws InvalidFilterException
+     *          if the JSON is not a valid filter or the
+     *          filter exceeds the limits.
+     */
+    public Expression parseFilterJson(JsonParser filterJson) {
         try {
-            operator = Operator.getOperator(key);
-        } catch (Exception ex) {
+            return new FilterJsonParser(filterJson, newBudget()).parse();
+        } catch (IOException e) {
+            throw new InvalidFilterException("Invalid filter JSON: " + e.getMessage());
+        }
+    }
+
+    private Budget newBudget() {
+        return limits == null ? null : new Budget(limits);
+    }
+
+    /**
+     * Counts the nodes and the cost of a filter while it
+     * is parsed, failing as soon as a limit is exceeded.
+     */
+    static final class Budget {
+
+        private final FilterLimits limits;
+        private int nodes;
+        private long cost;
+
+        Budget(FilterLimits limits) {
+            this.limits = limits;
+        }
+
+        void logical(int depth) {
+            node(depth);
+            addCost(FilterCost.LOGICAL_COST);
+        }
+
+        void leaf(int depth, Operator operator, Object value) {
+            node(depth);
+            if (value instanceof Collection) {
+                Collection values = (Collection) value;
+                values(operator, values.size());
+                for (Object item : values) {
+                    checkString(item);
+                }
+            } else {
+                checkString(value);
+            }
+            addCost(FilterCost.leafCost(operator, value));
+        }
+
+        /* Lets streaming parsers fail before reading all the values.*/
+        void values(Operator operator, int count) {
+            if (count > limits.getMaxInValues()) {
+                throw new InvalidFilterException("Filter exceeds the maximum of "
+                        + limits.getMaxInValues() + " values for " + operator.getName());
+            }
+        }
+
+        private void node(int depth) {
+            if (depth > limits.getMaxDepth()) {
+                throw new InvalidFilterException("Filter exceeds the maximum depth of " + limits.getMaxDepth());
+            }
+            if (++nodes > limits.getMaxNodes()) {
+                throw new InvalidFilterException("Filter exceeds the maximum of " + limits.getMaxNodes() + " nodes");
+            }
+        }
+
+        private void checkString(Object value) {
+            if (value instanceof CharSequence && ((CharSequence) value).length() > limits.getMaxStringLength()) {
+                throw new InvalidFilterException("Filter exceeds the maximum string length of "
+                        + limits.getMaxStringLength());
+            }
+        }
+
+        private void addCost(long nodeCost) {
+            cost += nodeCost;
+            if (cost > limits.getMaxCost()) {
+                throw new InvalidFilterException("Filter exceeds the maximum cost of " + limits.getMaxCost());
+            }
+        }
+    }
 
+    private boolean isBinaryOperatorMap(Map filterMap) {
+        if (filterMap.size() != 1) {
+            return false;
         }
-        return operator == null ? false : true;
+        Operator operator = Operator.lookup(filterMap.keySet().iterator().next().toString());
+        return operator != null && operator.getKind() == Operator.Kind.BINARY;
+    }
+
+    /**
+     * Returns the number of value leaves in the given expression tree.
+     * @param expression
+     * @return
+     */
+    private int countValues(Expression expression) {
+        return ExpressionWalker.walk(expression, (node, results) -> {
+            if (!ExpressionWalker.isInnerNode(node)) {
+                return node instanceof BinaryExpression ? 1 : 0;
+            }
+            int count = 0;
+            for (Integer operandCount : results) {
+                count += operandCount;
+            }
+            return count;
+        });
     }
 
     private Comparable convertIfDate(Comparable value) {
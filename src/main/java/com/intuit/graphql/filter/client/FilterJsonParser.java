@@ -0,0 +1,224 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Builds the expression tree of a JSON filter straight
+ * from the Jackson token stream, so the filter is never
+ * materialized as maps and lists. Pending compound and
+ * unary expressions are kept on an explicit stack, so
+ * deeply nested filters do not overflow the thread stack.
+ *
+ * JSON has no date type, so dates stay strings, and
+ * numbers are read as Integer, Long, BigInteger or
+ * Double, like a JSON deserializer would.
+ */
+class FilterJsonParser {
+
+    /* Streams belong to the caller and are left open.*/
+    static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    private final JsonParser json;
+    private final FilterExpressionParser.Budget budget;
+
+    FilterJsonParser(JsonParser json, FilterExpressionParser.Budget budget) {
+        this.json = json;
+        this.budget = budget;
+    }
+
+    /**
+     * Parses the filter object at the current position
+     * of the token stream.
+     * @return
+     *        null if the filter is null or missing.
+     * @throws IOException
+     * @throws InvalidFilterException
+     *          if the JSON is not a valid filter.
+     */
+    Expression parse() throws IOException {
+        JsonToken token = json.nextToken();
+        if (token == null || token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(token, JsonToken.START_OBJECT);
+        Deque<StreamFrame> stack = new ArrayDeque<>();
+        int depth = 1;
+        while (true) {
+            /* Positioned right after the start of a filter object.*/
+            String key = fieldName();
+            Expression expression;
+            Operator operator = Operator.lookup(key);
+            if (operator == null) {
+                expression = comparison(key, depth);
+            } else {
+                switch (operator.getKind()) {
+                    case COMPOUND:
+                        if (budget != null) {
+                            budget.logical(depth);
+                        }
+                        expect(json.nextToken(), JsonToken.START_ARRAY);
+                        stack.push(new StreamFrame(operator, depth));
+                        expect(json.nextToken(), JsonToken.START_OBJECT);
+                        depth++;
+                        continue;
+
+                    case UNARY:
+                        if (budget != null) {
+                            budget.logical(depth);
+                        }
+                        expect(json.nextToken(), JsonToken.START_OBJECT);
+                        stack.push(new StreamFrame(operator, depth));
+                        depth++;
+                        continue;
+
+                    default:
+                        throw new InvalidFilterException("Operator " + key + " must be applied to a field");
+                }
+            }
+            /* Completes the pending expressions the finished one closes.*/
+            while (true) {
+                expect(json.nextToken(), JsonToken.END_OBJECT);
+                StreamFrame frame = stack.peek();
+                if (frame == null) {
+                    return expression;
+                }
+                if (frame.operator.getKind() == Operator.Kind.UNARY) {
+                    stack.pop();
+                    depth = frame.depth;
+                    expression = new UnaryExpression(expression, frame.operator, null);
+                    continue;
+                }
+                frame.operands.add(expression);
+                JsonToken next = json.nextToken();
+                if (next == JsonToken.START_OBJECT) {
+                    break;
+                }
+                expect(next, JsonToken.END_ARRAY);
+                stack.pop();
+                depth = frame.depth;
+                expression = frame.operands.size() == 1
+                        ? frame.operands.get(0)
+                        : new CompoundExpression(frame.operator, frame.operands);
+            }
+        }
+    }
+
+    /**
+     * Reads the comparison object of the given field,
+     * e.g. { "gte" : 25 }, up to its end.
+     */
+    private Expression comparison(String field, int depth) throws IOException {
+        expect(json.nextToken(), JsonToken.START_OBJECT);
+        String key = fieldName();
+        Operator operator = Operator.lookup(key);
+        if (operator == null || operator.getKind() != Operator.Kind.BINARY) {
+            throw new InvalidFilterException("Field " + field + " must be compared with a relational operator");
+        }
+        Object value;
+        JsonToken token = json.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            List<Comparable> values = new ArrayList<>();
+            while ((token = json.nextToken()) != JsonToken.END_ARRAY) {
+                values.add(scalar(token));
+                if (budget != null) {
+                    budget.values(operator, values.size());
+                }
+            }
+            value = values;
+        } else {
+            value = scalar(token);
+        }
+        if (budget != null) {
+            budget.leaf(depth, operator, value);
+        }
+        expect(json.nextToken(), JsonToken.END_OBJECT);
+        return new BinaryExpression(new ExpressionField(field), operator, new ExpressionValue<>(value));
+    }
+
+    private Comparable scalar(JsonToken token) throws IOException {
+        if (token == null) {
+            throw new InvalidFilterException("Unexpected end of filter JSON");
+        }
+        switch (token) {
+            case VALUE_STRING:
+                return json.getText();
+            case VALUE_NUMBER_INT:
+                return (Comparable) json.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return json.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new InvalidFilterException("Unexpected " + token + " in filter value");
+        }
+    }
+
+    private String fieldName() throws IOException {
+        JsonToken token = json.nextToken();
+        if (token != JsonToken.FIELD_NAME) {
+            throw new InvalidFilterException("Filter object must have exactly one key");
+        }
+        return json.getCurrentName();
+    }
+
+    private void expect(JsonToken token, JsonToken expected) {
+        if (token != expected) {
+            if (expected == JsonToken.END_OBJECT && token == JsonToken.FIELD_NAME) {
+                throw new InvalidFilterException("Filter object must have exactly one key");
+            }
+            throw new InvalidFilterException("Expected " + expected + " but found " + token + " in filter JSON");
+        }
+    }
+
+    /**
+     * Pending compound or unary expression waiting
+     * for the expressions of its nested filters.
+     */
+    private static final class StreamFrame {
+
+        private final Operator operator;
+        private final int depth;
+        private final List<Expression> operands;
+
+        StreamFrame(Operator operator, int depth) {
+            this.operator = operator;
+            this.depth = depth;
+            this.operands = new ArrayList<>();
+        }
+    }
+}
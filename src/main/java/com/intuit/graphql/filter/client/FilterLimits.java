@@ -0,0 +1,151 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.client;
+
+/**
+ * Limits on the size of a filter enforced while it is
+ * parsed. A filter exceeding any of them is rejected
+ * with an InvalidFilterException as soon as the limit
+ * is reached, before the rest of the filter is parsed.
+ *
+ * The builder starts from limits suited to filters
+ * written by hand in a query; every limit can be
+ * raised up to Integer.MAX_VALUE, which disables it.
+ */
+public class FilterLimits {
+
+    private final int maxDepth;
+    private final int maxNodes;
+    private final int maxInValues;
+    private final int maxStringLength;
+    private final long maxCost;
+
+    private FilterLimits(FilterLimitsBuilder limitsBuilder) {
+        this.maxDepth = limitsBuilder.maxDepth;
+        this.maxNodes = limitsBuilder.maxNodes;
+        this.maxInValues = limitsBuilder.maxInValues;
+        this.maxStringLength = limitsBuilder.maxStringLength;
+        this.maxCost = limitsBuilder.maxCost;
+    }
+
+    /**
+     * Builder class responsible for building the
+     * instance of FilterLimits class.
+     */
+    public static class FilterLimitsBuilder {
+
+        private int maxDepth = 32;
+        private int maxNodes = 1000;
+        private int maxInValues = 1000;
+        private int maxStringLength = 1024;
+        private long maxCost = Long.MAX_VALUE;
+
+        private FilterLimitsBuilder() {
+        }
+
+        /**
+         * Maximum nesting of and, or and not.
+         * A single comparison has depth 1.
+         * @param maxDepth
+         * @return
+         */
+        public FilterLimitsBuilder maxDepth(int maxDepth) {
+            this.maxDepth = checkPositive(maxDepth);
+            return this;
+        }
+
+        /**
+         * Maximum number of and, or, not
+         * and comparison nodes.
+         * @param maxNodes
+         * @return
+         */
+        public FilterLimitsBuilder maxNodes(int maxNodes) {
+            this.maxNodes = checkPositive(maxNodes);
+            return this;
+        }
+
+        /**
+         * Maximum number of values of an in,
+         * notIn or between comparison.
+         * @param maxInValues
+         * @return
+         */
+        public FilterLimitsBuilder maxInValues(int maxInValues) {
+            this.maxInValues = checkPositive(maxInValues);
+            return this;
+        }
+
+        /**
+         * Maximum length of a string value.
+         * @param maxStringLength
+         * @return
+         */
+        public FilterLimitsBuilder maxStringLength(int maxStringLength) {
+            this.maxStringLength = checkPositive(maxStringLength);
+            return this;
+        }
+
+        /**
+         * Maximum cost of the filter, see FilterCost.
+         * Not limited by default.
+         * @param maxCost
+         * @return
+         */
+        public FilterLimitsBuilder maxCost(long maxCost) {
+            if (maxCost < 1) {
+                throw new IllegalArgumentException("Limit must be positive " + maxCost);
+            }
+            this.maxCost = maxCost;
+            return this;
+        }
+
+        public FilterLimits build() {
+            return new FilterLimits(this);
+        }
+
+        private int checkPositive(int limit) {
+            if (limit < 1) {
+                throw new IllegalArgumentException("Limit must be positive " + limit);
+            }
+            return limit;
+        }
+    }
+
+    public static FilterLimitsBuilder newFilterLimitsBuilder() {
+        return new FilterLimitsBuilder();
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    public int getMaxInValues() {
+        return maxInValues;
+    }
+
+    public int getMaxStringLength() {
+        return maxStringLength;
+    }
+
+    public long getMaxCost() {
+        return maxCost;
+    }
+}
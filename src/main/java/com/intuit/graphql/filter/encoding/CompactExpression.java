@@ -0,0 +1,488 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.encoding;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.optimizer.UnsatisfiableExpression;
+import com.intuit.graphql.filter.visitors.ExpressionVisitor;
+import com.intuit.graphql.filter.visitors.ExpressionWalker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expression tree encoded into a flat array of longs
+ * in prefix order, meant for keeping large numbers of
+ * filters in memory, e.g. saved searches.
+ *
+ * Every node is a single word holding its kind, its
+ * operator and either its number of operands or the
+ * index of its field in a shared FieldTable. A value
+ * follows its comparison as a word holding its type
+ * and, for ints and booleans, the value itself. Long
+ * and double values take one more word. Other values,
+ * e.g. strings and dates, are kept in a per-expression
+ * constant pool. Lists are a word holding their size
+ * followed by their elements.
+ *
+ * Visitors are handed the decoded tree, while the
+ * Reader walks the encoding in place without creating
+ * any node.
+ */
+public final class CompactExpression implements Expression {
+
+    /* Node kinds, bits 0-3 of a node word. */
+    public static final int COMPOUND = 0;
+    public static final int UNARY = 1;
+    public static final int BINARY = 2;
+    public static final int UNSATISFIABLE = 3;
+
+    /* Value types, bits 0-3 of a value word. */
+    public static final int NULL = 0;
+    public static final int INT = 1;
+    public static final int LONG = 2;
+    public static final int DOUBLE = 3;
+    public static final int BOOLEAN = 4;
+    public static final int CONSTANT = 5;
+    public static final int LIST = 6;
+
+    private static final Operator[] OPERATORS = Operator.values();
+
+    private final long[] code;
+    private final Object[] constants;
+    private final FieldTable fieldTable;
+
+    CompactExpression(long[] code, Object[] constants, FieldTable fieldTable) {
+        this.code = code;
+        this.constants = constants;
+        this.fieldTable = fieldTable;
+    }
+
+    /**
+     * Encodes the given expression tree, interning
+     * its field names in the given table.
+     * @param expression
+     * @param fieldTable
+     * @return
+     * @throws IllegalArgumentException
+     *          if the tree has nodes of an unknown type.
+     */
+    public static CompactExpression encode(Expression expression, FieldTable fieldTable) {
+        if (expression instanceof CompactExpression) {
+            CompactExpression compactExpression = (CompactExpression) expression;
+            if (compactExpression.fieldTable == fieldTable) {
+                return compactExpression;
+            }
+            expression = compactExpression.decode();
+        }
+        Encoder encoder = new Encoder(fieldTable);
+        encoder.encode(expression);
+        return new CompactExpression(Arrays.copyOf(encoder.code, encoder.length),
+                encoder.constants.isEmpty() ? null : encoder.constants.toArray(), fieldTable);
+    }
+
+    /**
+     * Returns the expression tree of this encoding.
+     * @return
+     */
+    public Expression decode() {
+        Reader reader = reader();
+        Deque<DecodeFrame> stack = new ArrayDeque<>();
+        while (reader.next()) {
+            if (reader.kind() != BINARY) {
+                stack.push(new DecodeFrame(reader.kind(), reader.operator(), reader.operandCount()));
+                continue;
+            }
+            Expression expression = new BinaryExpression(reader.field(), reader.operator(),
+                    new ExpressionValue<>(reader.value()));
+            /* Completes the pending nodes the comparison was the last operand of.*/
+            while (true) {
+                DecodeFrame frame = stack.peek();
+                if (frame == null) {
+                    return expression;
+                }
+                frame.operands.add(expression);
+                if (frame.operands.size() < frame.operandCount) {
+                    break;
+                }
+                stack.pop();
+                expression = frame.finish();
+            }
+        }
+        throw new IllegalStateException("Truncated compact expression");
+    }
+
+    /**
+     * Pending compound, unary or unsatisfiable node
+     * waiting for its operands to be decoded.
+     */
+    private static final class DecodeFrame {
+
+        private final int kind;
+        private final Operator operator;
+        private final int operandCount;
+        private final List<Expression> operands;
+
+        DecodeFrame(int kind, Operator operator, int operandCount) {
+            this.kind = kind;
+            this.operator = operator;
+            this.operandCount = operandCount;
+            this.operands = new ArrayList<>(operandCount);
+        }
+
+        Expression finish() {
+            switch (kind) {
+                case COMPOUND:
+                    return new CompoundExpression(operator, operands);
+                case UNARY:
+                    return new UnaryExpression(operands.get(0), operator, null);
+                default:
+                    return new UnsatisfiableExpression(operands.get(0));
+            }
+        }
+    }
+
+    /**
+     * Returns a reader positioned before the
+     * first node of the encoding.
+     * @return
+     */
+    public Reader reader() {
+        return new Reader();
+    }
+
+    /**
+     * Returns the number of words of the encoding.
+     * @return
+     */
+    public int getCodeLength() {
+        return code.length;
+    }
+
+    /**
+     * Returns the number of values in the constant pool.
+     * @return
+     */
+    public int getConstantCount() {
+        return constants == null ? 0 : constants.length;
+    }
+
+    long[] code() {
+        return code;
+    }
+
+    Object[] constants() {
+        return constants;
+    }
+
+    @Override
+    public String infix() {
+        return decode().infix();
+    }
+
+    /**
+     * Decodes the tree and passes the visitor on to it.
+     * @param visitor
+     * @param data
+     * @param <T>
+     * @return
+     */
+    @Override
+    public <T> T accept(ExpressionVisitor visitor, T data) {
+        return decode().accept(visitor, data);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof CompactExpression)) {
+            return false;
+        }
+        CompactExpression compactExpression = (CompactExpression) other;
+        return fieldTable == compactExpression.fieldTable && Arrays.equals(code, compactExpression.code)
+                && Arrays.equals(constants, compactExpression.constants);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(code) + Arrays.hashCode(constants);
+    }
+
+    /**
+     * Cursor over the nodes of the encoding in prefix
+     * order, i.e. every compound, unary or unsatisfiable
+     * node is followed by its operands. Fields, operators
+     * and numbers are read straight from the encoding.
+     */
+    public final class Reader {
+
+        private int position = -1;
+        private int nextPosition;
+
+        private Reader() {
+        }
+
+        /**
+         * Moves to the next node.
+         * @return
+         *        false if there are no more nodes.
+         */
+        public boolean next() {
+            if (nextPosition >= code.length) {
+                return false;
+            }
+            position = nextPosition;
+            nextPosition = kind() == BINARY ? skipValue(position + 1) : position + 1;
+            return true;
+        }
+
+        /**
+         * Returns the kind of the node, one of COMPOUND,
+         * UNARY, BINARY or UNSATISFIABLE.
+         * @return
+         */
+        public int kind() {
+            return (int) (code[position] & 0xF);
+        }
+
+        /**
+         * Returns the operator of the node, or
+         * null for an unsatisfiable node.
+         * @return
+         */
+        public Operator operator() {
+            return kind() == UNSATISFIABLE ? null : OPERATORS[(int) (code[position] >>> 4) & 0xFF];
+        }
+
+        /**
+         * Returns the number of operands of a compound
+         * node, 1 for unary and unsatisfiable nodes and
+         * 0 for comparisons.
+         * @return
+         */
+        public int operandCount() {
+            switch (kind()) {
+                case COMPOUND:
+                    return (int) (code[position] >>> 32);
+                case BINARY:
+                    return 0;
+                default:
+                    return 1;
+            }
+        }
+
+        /**
+         * Returns the field of a comparison.
+         * @return
+         */
+        public String fieldName() {
+            return fieldTable.nameOf((int) (code[position] >>> 32));
+        }
+
+        /**
+         * Returns the shared field node of a comparison.
+         * @return
+         */
+        public ExpressionField field() {
+            return fieldTable.fieldOf((int) (code[position] >>> 32));
+        }
+
+        /**
+         * Returns the value type of a comparison,
+         * one of NULL, INT, LONG, DOUBLE, BOOLEAN,
+         * CONSTANT or LIST.
+         * @return
+         */
+        public int valueType() {
+            return (int) (code[position + 1] & 0xF);
+        }
+
+        /**
+         * Returns the int, long or double value of
+         * a comparison as long without boxing it.
+         * @return
+         */
+        public long longValue() {
+            return valueType() == INT ? code[position + 1] >> 32 : code[position + 2];
+        }
+
+        /**
+         * Returns the double value of a comparison
+         * without boxing it.
+         * @return
+         */
+        public double doubleValue() {
+            return valueType() == DOUBLE ? Double.longBitsToDouble(code[position + 2]) : longValue();
+        }
+
+        /**
+         * Returns the value of a comparison, boxed,
+         * or as list for list values.
+         * @return
+         */
+        public Object value() {
+            return readValue(position + 1);
+        }
+
+        private Object readValue(int at) {
+            long word = code[at];
+            switch ((int) (word & 0xF)) {
+                case INT:
+                    return (int) (word >> 32);
+                case LONG:
+                    return code[at + 1];
+                case DOUBLE:
+                    return Double.longBitsToDouble(code[at + 1]);
+                case BOOLEAN:
+                    return (word >>> 32) != 0;
+                case CONSTANT:
+                    return constants[(int) (word >>> 32)];
+                case LIST:
+                    int size = (int) (word >>> 32);
+                    List<Object> values = new ArrayList<>(size);
+                    int element = at + 1;
+                    for (int i = 0; i < size; i++) {
+                        values.add(readValue(element));
+                        element = skipValue(element);
+                    }
+                    return values;
+                default:
+                    return null;
+            }
+        }
+
+        /* Returns the position following the value at the given position.*/
+        private int skipValue(int at) {
+            long word = code[at];
+            switch ((int) (word & 0xF)) {
+                case LONG:
+                case DOUBLE:
+                    return at + 2;
+                case LIST:
+                    int size = (int) (word >>> 32);
+                    int element = at + 1;
+                    for (int i = 0; i < size; i++) {
+                        element = skipValue(element);
+                    }
+                    return element;
+                default:
+                    return at + 1;
+            }
+        }
+    }
+
+    /**
+     * Writes the nodes of a tree in prefix order.
+     */
+    private static final class Encoder {
+
+        private final FieldTable fieldTable;
+        private final List<Object> constants = new ArrayList<>();
+        private final Map<Object, Integer> constantIndexes = new HashMap<>();
+        private long[] code = new long[16];
+        private int length;
+
+        Encoder(FieldTable fieldTable) {
+            this.fieldTable = fieldTable;
+        }
+
+        void encode(Expression expression) {
+            ExpressionWalker.walk(expression, new ExpressionWalker.Callback<Void>() {
+                @Override
+                public void enter(Expression node) {
+                    encodeNode(node);
+                }
+
+                @Override
+                public Void leave(Expression node, List<Void> results) {
+                    return null;
+                }
+            });
+        }
+
+        private void encodeNode(Expression node) {
+            if (node instanceof CompoundExpression) {
+                CompoundExpression compoundExpression = (CompoundExpression) node;
+                write(COMPOUND, compoundExpression.getOperator(), compoundExpression.getOperands().size());
+            } else if (node instanceof UnaryExpression) {
+                write(UNARY, ((UnaryExpression) node).getOperator(), 0);
+            } else if (node instanceof BinaryExpression) {
+                BinaryExpression binaryExpression = (BinaryExpression) node;
+                String fieldName = binaryExpression.getLeftOperand().infix();
+                write(BINARY, binaryExpression.getOperator(), fieldTable.indexOf(fieldName));
+                writeValue(((ExpressionValue<?>) binaryExpression.getRightOperand()).value());
+            } else if (node instanceof UnsatisfiableExpression) {
+                /* The walker does not descend into it, the nesting is shallow.*/
+                write(UNSATISFIABLE, null, 0);
+                encode(((UnsatisfiableExpression) node).getExpression());
+            } else {
+                throw new IllegalArgumentException("Cannot encode " + node.getClass().getName());
+            }
+        }
+
+        private void write(int kind, Operator operator, int argument) {
+            int ordinal = operator == null ? 0 : operator.ordinal();
+            append(kind | (long) ordinal << 4 | (long) argument << 32);
+        }
+
+        private void writeValue(Object value) {
+            if (value == null) {
+                append(NULL);
+            } else if (value instanceof Integer) {
+                append(INT | (long) (Integer) value << 32);
+            } else if (value instanceof Long) {
+                append(LONG);
+                append((Long) value);
+            } else if (value instanceof Double) {
+                append(DOUBLE);
+                append(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof Boolean) {
+                append(BOOLEAN | ((Boolean) value ? 1L : 0L) << 32);
+            } else if (value instanceof List) {
+                List<?> values = (List<?>) value;
+                append(LIST | (long) values.size() << 32);
+                for (Object element : values) {
+                    writeValue(element);
+                }
+            } else {
+                Integer index = constantIndexes.get(value);
+                if (index == null) {
+                    index = constants.size();
+                    constants.add(value);
+                    constantIndexes.put(value, index);
+                }
+                append(CONSTANT | (long) index << 32);
+            }
+        }
+
+        private void append(long word) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+            }
+            code[length++] = word;
+        }
+    }
+}
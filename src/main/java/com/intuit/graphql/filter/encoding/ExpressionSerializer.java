@@ -0,0 +1,483 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.encoding;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.optimizer.UnsatisfiableExpression;
+import com.intuit.graphql.filter.visitors.ExpressionWalker;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes expression trees into a compact binary
+ * form, so parsed and optimized filters can be shared
+ * through a distributed cache or between services
+ * instead of being parsed again by every node.
+ *
+ * The payload starts with a magic number and a format
+ * version, followed by the field names and the nodes in
+ * prefix order. Operators are written as indexes into a
+ * table fixed per format version, so the payload does
+ * not depend on the order of the Operator enum. Numbers
+ * are written as variable length integers. Supported
+ * values are strings, numbers, booleans, dates and lists
+ * of those. Unsatisfiable subtrees keep their marker.
+ */
+public final class ExpressionSerializer {
+
+    /**
+     * Version of the format written by serialize.
+     */
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'G', 'Q', 'F'};
+
+    /* Operators of version 1, new operators are appended. */
+    private static final Operator[] OPERATORS = {
+            Operator.AND, Operator.OR, Operator.NOT,
+            Operator.EQUALS, Operator.NOT_EQUALS, Operator.CONTAINS, Operator.STARTS, Operator.ENDS,
+            Operator.EQ, Operator.NE, Operator.GT, Operator.GTE, Operator.LT, Operator.LTE,
+            Operator.IN, Operator.NOT_IN, Operator.BETWEEN};
+
+    /* Value types written in addition to those of CompactExpression. */
+    private static final int STRING = 8;
+    private static final int DATE = 9;
+    private static final int DECIMAL = 10;
+    private static final int BIG_INTEGER = 11;
+
+    private ExpressionSerializer() {
+    }
+
+    /**
+     * Serializes the given expression tree.
+     * @param expression
+     * @return
+     * @throws IllegalArgumentException
+     *          if the tree holds values of unsupported types.
+     */
+    public static byte[] serialize(Expression expression) {
+        if (expression instanceof CompactExpression) {
+            expression = ((CompactExpression) expression).decode();
+        }
+        /* Nodes are written first, the field names they index come before them in the output.*/
+        Map<String, Integer> fieldIndexes = new LinkedHashMap<>();
+        Output nodes = new Output();
+        writeNodes(expression, fieldIndexes, nodes);
+        Output output = new Output();
+        output.bytes(MAGIC);
+        output.write(VERSION);
+        output.varint(fieldIndexes.size());
+        for (String fieldName : fieldIndexes.keySet()) {
+            output.string(fieldName);
+        }
+        output.bytes(nodes.buffer, nodes.length);
+        return output.toByteArray();
+    }
+
+    private static void writeNodes(Expression expression, Map<String, Integer> fieldIndexes, Output output) {
+        ExpressionWalker.walk(expression, new ExpressionWalker.Callback<Void>() {
+            @Override
+            public void enter(Expression node) {
+                if (node instanceof CompoundExpression) {
+                    CompoundExpression compoundExpression = (CompoundExpression) node;
+                    output.write(CompactExpression.COMPOUND | operatorIndex(compoundExpression.getOperator()) << 2);
+                    output.varint(compoundExpression.getOperands().size());
+                } else if (node instanceof UnaryExpression) {
+                    output.write(CompactExpression.UNARY | operatorIndex(((UnaryExpression) node).getOperator()) << 2);
+                } else if (node instanceof BinaryExpression) {
+                    BinaryExpression binaryExpression = (BinaryExpression) node;
+                    output.write(CompactExpression.BINARY | operatorIndex(binaryExpression.getOperator()) << 2);
+                    String fieldName = binaryExpression.getLeftOperand().infix();
+                    Integer fieldIndex = fieldIndexes.get(fieldName);
+                    if (fieldIndex == null) {
+                        fieldIndex = fieldIndexes.size();
+                        fieldIndexes.put(fieldName, fieldIndex);
+                    }
+                    output.varint(fieldIndex);
+                    output.value(((ExpressionValue<?>) binaryExpression.getRightOperand()).value());
+                } else if (node instanceof UnsatisfiableExpression) {
+                    /* The walker does not descend into it, the nesting is shallow.*/
+                    output.write(CompactExpression.UNSATISFIABLE | operatorIndex(null) << 2);
+                    writeNodes(((UnsatisfiableExpression) node).getExpression(), fieldIndexes, output);
+                } else {
+                    throw new IllegalArgumentException("Cannot serialize " + node.getClass().getName());
+                }
+            }
+
+            @Override
+            public Void leave(Expression node, List<Void> results) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Deserializes an expression tree.
+     * @param bytes
+     * @return
+     * @throws IllegalArgumentException
+     *          if the bytes are not a serialized tree
+     *          or were written by a newer version.
+     */
+    public static Expression deserialize(byte[] bytes) {
+        return deserialize(bytes, new FieldTable()).decode();
+    }
+
+    /**
+     * Deserializes an expression tree into its compact
+     * encoding, interning its field names in the given
+     * table, e.g. to keep it in a local cache.
+     * @param bytes
+     * @param fieldTable
+     * @return
+     * @throws IllegalArgumentException
+     *          if the bytes are not a serialized tree
+     *          or were written by a newer version.
+     */
+    public static CompactExpression deserialize(byte[] bytes, FieldTable fieldTable) {
+        Input input = new Input(bytes);
+        for (byte magic : MAGIC) {
+            if (input.read() != magic) {
+                throw new IllegalArgumentException("Not a serialized filter expression");
+            }
+        }
+        int version = input.read();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported filter expression version " + version);
+        }
+        int[] fieldIndexes = new int[input.count()];
+        for (int i = 0; i < fieldIndexes.length; i++) {
+            fieldIndexes[i] = fieldTable.indexOf(input.string());
+        }
+        Code code = new Code();
+        /* Nodes still to be read, so truncated or trailing bytes are detected.*/
+        long pending = 1;
+        while (pending > 0) {
+            pending--;
+            int header = input.read();
+            int kind = header & 0x3;
+            Operator operator = (header >>> 2) == 0x3F ? null : operatorAt(header >>> 2);
+            int ordinal = operator == null ? 0 : operator.ordinal();
+            long argument = 0;
+            if (kind == CompactExpression.COMPOUND) {
+                argument = input.count();
+                pending += argument;
+                if (pending > input.remaining()) {
+                    throw new IllegalArgumentException("Truncated filter expression");
+                }
+            } else if (kind == CompactExpression.BINARY) {
+                int field = input.varint();
+                if (field >= fieldIndexes.length) {
+                    throw new IllegalArgumentException("Unknown field " + field);
+                }
+                argument = fieldIndexes[field];
+            } else {
+                pending++;
+            }
+            code.append(kind | (long) ordinal << 4 | argument << 32);
+            if (kind == CompactExpression.BINARY) {
+                readValue(input, code, false);
+            }
+        }
+        if (input.available()) {
+            throw new IllegalArgumentException("Trailing bytes after filter expression");
+        }
+        return new CompactExpression(code.toArray(),
+                code.constants.isEmpty() ? null : code.constants.toArray(), fieldTable);
+    }
+
+    private static void readValue(Input input, Code code, boolean inList) {
+        int type = input.read();
+        switch (type) {
+            case CompactExpression.NULL:
+                code.append(CompactExpression.NULL);
+                break;
+            case CompactExpression.INT:
+                code.append(CompactExpression.INT | (long) (int) input.zigzag() << 32);
+                break;
+            case CompactExpression.LONG:
+                code.append(CompactExpression.LONG);
+                code.append(input.zigzag());
+                break;
+            case CompactExpression.DOUBLE:
+                code.append(CompactExpression.DOUBLE);
+                code.append(input.fixed64());
+                break;
+            case CompactExpression.BOOLEAN:
+                code.append(CompactExpression.BOOLEAN | (long) input.read() << 32);
+                break;
+            case CompactExpression.LIST:
+                if (inList) {
+                    throw new IllegalArgumentException("Nested lists are not supported");
+                }
+                int size = input.count();
+                code.append(CompactExpression.LIST | (long) size << 32);
+                for (int i = 0; i < size; i++) {
+                    readValue(input, code, true);
+                }
+                break;
+            case STRING:
+                code.constant(input.string());
+                break;
+            case DATE:
+                code.constant(new Date(input.zigzag()));
+                break;
+            case DECIMAL:
+                code.constant(new BigDecimal(input.string()));
+                break;
+            case BIG_INTEGER:
+                code.constant(new BigInteger(input.string()));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown value type " + type);
+        }
+    }
+
+    private static int operatorIndex(Operator operator) {
+        if (operator == null) {
+            return 0x3F;
+        }
+        for (int i = 0; i < OPERATORS.length; i++) {
+            if (OPERATORS[i] == operator) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Cannot serialize operator " + operator.getName());
+    }
+
+    private static Operator operatorAt(int index) {
+        if (index >= OPERATORS.length) {
+            throw new IllegalArgumentException("Unknown operator " + index);
+        }
+        return OPERATORS[index];
+    }
+
+    /**
+     * Words and constants of the compact
+     * encoding being deserialized.
+     */
+    private static final class Code {
+
+        private final List<Object> constants = new ArrayList<>();
+        private long[] words = new long[16];
+        private int length;
+
+        void append(long word) {
+            if (length == words.length) {
+                words = Arrays.copyOf(words, length * 2);
+            }
+            words[length++] = word;
+        }
+
+        void constant(Object value) {
+            append(CompactExpression.CONSTANT | (long) constants.size() << 32);
+            constants.add(value);
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(words, length);
+        }
+    }
+
+    private static final class Output {
+
+        private byte[] buffer = new byte[64];
+        private int length;
+
+        void write(int value) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, length * 2);
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        void bytes(byte[] bytes) {
+            bytes(bytes, bytes.length);
+        }
+
+        void bytes(byte[] bytes, int count) {
+            if (length + count > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+            }
+            System.arraycopy(bytes, 0, buffer, length, count);
+            length += count;
+        }
+
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void fixed64(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (value >>> shift));
+            }
+        }
+
+        void string(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            bytes(bytes);
+        }
+
+        void value(Object value) {
+            if (value == null) {
+                write(CompactExpression.NULL);
+            } else if (value instanceof Integer) {
+                write(CompactExpression.INT);
+                zigzag((Integer) value);
+            } else if (value instanceof Long) {
+                write(CompactExpression.LONG);
+                zigzag((Long) value);
+            } else if (value instanceof Double) {
+                write(CompactExpression.DOUBLE);
+                fixed64(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof Boolean) {
+                write(CompactExpression.BOOLEAN);
+                write((Boolean) value ? 1 : 0);
+            } else if (value instanceof List) {
+                List<?> values = (List<?>) value;
+                write(CompactExpression.LIST);
+                varint(values.size());
+                for (Object element : values) {
+                    if (element instanceof List) {
+                        throw new IllegalArgumentException("Nested lists are not supported");
+                    }
+                    value(element);
+                }
+            } else if (value instanceof String) {
+                write(STRING);
+                string((String) value);
+            } else if (value instanceof Date) {
+                write(DATE);
+                zigzag(((Date) value).getTime());
+            } else if (value instanceof BigDecimal) {
+                write(DECIMAL);
+                string(value.toString());
+            } else if (value instanceof BigInteger) {
+                write(BIG_INTEGER);
+                string(value.toString());
+            } else {
+                throw new IllegalArgumentException("Cannot serialize value of type " + value.getClass().getName());
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+
+    private static final class Input {
+
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        boolean available() {
+            return position < bytes.length;
+        }
+
+        int remaining() {
+            return bytes.length - position;
+        }
+
+        int read() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Truncated filter expression");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        int varint() {
+            long value = varlong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid length " + value);
+            }
+            return (int) value;
+        }
+
+        /**
+         * Reads the count of the items that follow, each
+         * taking at least one byte, so a corrupt count is
+         * rejected before anything is sized from it.
+         */
+        int count() {
+            int count = varint();
+            if (count > remaining()) {
+                throw new IllegalArgumentException("Truncated filter expression");
+            }
+            return count;
+        }
+
+        long varlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int next = read();
+                value |= (long) (next & 0x7F) << shift;
+                if ((next & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed variable length integer");
+        }
+
+        long zigzag() {
+            long value = varlong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long fixed64() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = value << 8 | read();
+            }
+            return value;
+        }
+
+        String string() {
+            int length = varint();
+            if (length > remaining()) {
+                throw new IllegalArgumentException("Truncated filter expression");
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.encoding;
+
+import com.intuit.graphql.filter.ast.ExpressionField;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table of interned field names shared by compact
+ * expressions, which store the index of a field name
+ * instead of the name itself. Indexes are assigned on
+ * first use and never change, so a single instance is
+ * meant to be shared by all the compact expressions
+ * of an application and is safe for concurrent use.
+ */
+public class FieldTable {
+
+    private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+    private volatile ExpressionField[] fields = new ExpressionField[16];
+    private int size;
+
+    /**
+     * Returns the index of the given field
+     * name, adding it to the table if needed.
+     * @param fieldName
+     * @return
+     */
+    public int indexOf(String fieldName) {
+        Integer index = indexes.get(fieldName);
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            index = indexes.get(fieldName);
+            if (index == null) {
+                ExpressionField[] table = fields;
+                if (size == table.length) {
+                    table = Arrays.copyOf(table, size * 2);
+                }
+                /* The field is published before its index.*/
+                table[size] = new ExpressionField(fieldName);
+                fields = table;
+                index = size++;
+                indexes.put(fieldName, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Returns the field name of the given index.
+     * @param index
+     * @return
+     */
+    public String nameOf(int index) {
+        return fields[index].infix();
+    }
+
+    /**
+     * Returns the field node of the given index,
+     * shared by all the trees decoded with this
+     * table since nodes are immutable.
+     * @param index
+     * @return
+     */
+    public ExpressionField fieldOf(int index) {
+        return fields[index];
+    }
+
+    /**
+     * Returns the number of field names.
+     * @return
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.Operator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Simplifies nodes whose values make them
+ * equivalent to a simpler node:
+ * <ul>
+ *     <li>removes repeated values of an IN list,</li>
+ *     <li>turns an IN list with one value into an equality,</li>
+ *     <li>turns a BETWEEN with equal bounds into an equality,</li>
+ *     <li>replaces a compound expression with one operand by the operand.</li>
+ * </ul>
+ */
+public class ConstantFoldingRule implements OptimizerRule {
+
+    public static final String NAME = "constant-folding";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Expression apply(Expression expression) {
+        if (expression instanceof CompoundExpression) {
+            List<Expression> operands = ((CompoundExpression) expression).getOperands();
+            return operands.size() == 1 ? operands.get(0) : expression;
+        }
+        if (!(expression instanceof BinaryExpression)) {
+            return expression;
+        }
+        BinaryExpression binaryExpression = (BinaryExpression) expression;
+        Object value = Expressions.value(binaryExpression);
+        if (!(value instanceof List)) {
+            return expression;
+        }
+        List<?> values = (List<?>) value;
+        switch (binaryExpression.getOperator()) {
+            case IN:
+                Set<Object> distinctValues = new LinkedHashSet<>(values);
+                if (distinctValues.size() == 1) {
+                    Object single = distinctValues.iterator().next();
+                    if (single != null) {
+                        return Expressions.binary(binaryExpression, Expressions.equalityOperator(single), single);
+                    }
+                } else if (distinctValues.size() < values.size()) {
+                    return Expressions.binary(binaryExpression, Operator.IN, new ArrayList<>(distinctValues));
+                }
+                break;
+
+            case BETWEEN:
+                if (values.size() == 2 && values.get(0) != null && Objects.equals(values.get(0), values.get(1))) {
+                    return Expressions.binary(binaryExpression, Expressions.equalityOperator(values.get(0)), values.get(0));
+                }
+                break;
+        }
+        return expression;
+    }
+}
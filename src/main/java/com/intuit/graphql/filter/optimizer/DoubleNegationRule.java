@@ -0,0 +1,50 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+
+/**
+ * Removes a pair of nested negations,
+ * e.g. (not (not a)) into a.
+ */
+public class DoubleNegationRule implements OptimizerRule {
+
+    public static final String NAME = "double-negation";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Expression apply(Expression expression) {
+        if (isNot(expression)) {
+            Expression operand = ((UnaryExpression) expression).getLeftOperand();
+            if (isNot(operand)) {
+                return ((UnaryExpression) operand).getLeftOperand();
+            }
+        }
+        return expression;
+    }
+
+    private boolean isNot(Expression expression) {
+        return expression instanceof UnaryExpression
+                && ((UnaryExpression) expression).getOperator() == Operator.NOT;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes the operands of a compound expression that
+ * are structurally equal to an earlier operand,
+ * e.g. (a or b or a) into (a or b). Operands are
+ * compared by their cached structural hash codes
+ * and equality, without building keys for them.
+ */
+public class DuplicateRule implements OptimizerRule {
+
+    public static final String NAME = "duplicates";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Expression apply(Expression expression) {
+        if (!(expression instanceof CompoundExpression)) {
+            return expression;
+        }
+        CompoundExpression compoundExpression = (CompoundExpression) expression;
+        Set<Expression> distinct = new HashSet<>();
+        List<Expression> operands = new ArrayList<>();
+        for (Expression operand : compoundExpression.getOperands()) {
+            if (distinct.add(operand)) {
+                operands.add(operand);
+            }
+        }
+        if (operands.size() == compoundExpression.getOperands().size()) {
+            return expression;
+        }
+        return Expressions.compound(compoundExpression.getOperator(), operands);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.Operator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges the equality and IN operands of an OR on
+ * the same field into a single IN operand, e.g.
+ * ((status equals A) or (status equals B) or (age gt 30))
+ * into ((status in [A, B]) or (age gt 30)). The merged
+ * operand takes the place of the first operand of
+ * its field.
+ */
+public class EqualityToInRule implements OptimizerRule {
+
+    public static final String NAME = "equality-to-in";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Expression apply(Expression expression) {
+        if (!(expression instanceof CompoundExpression)
+                || ((CompoundExpression) expression).getOperator() != Operator.OR) {
+            return expression;
+        }
+        List<Expression> operands = ((CompoundExpression) expression).getOperands();
+        Map<String, Set<Object>> valuesByField = new LinkedHashMap<>();
+        Map<String, Integer> operandsByField = new LinkedHashMap<>();
+        for (Expression operand : operands) {
+            if (isMergeable(operand)) {
+                String fieldName = Expressions.fieldName((BinaryExpression) operand);
+                addValues((BinaryExpression) operand, valuesByField.computeIfAbsent(fieldName, key -> new LinkedHashSet<>()));
+                operandsByField.merge(fieldName, 1, Integer::sum);
+            }
+        }
+        if (operandsByField.values().stream().noneMatch(count -> count > 1)) {
+            return expression;
+        }
+        List<Expression> merged = new ArrayList<>();
+        Set<String> mergedFields = new LinkedHashSet<>();
+        for (Expression operand : operands) {
+            if (!isMergeable(operand)) {
+                merged.add(operand);
+                continue;
+            }
+            BinaryExpression binaryExpression = (BinaryExpression) operand;
+            String fieldName = Expressions.fieldName(binaryExpression);
+            if (operandsByField.get(fieldName) == 1) {
+                merged.add(operand);
+            } else if (mergedFields.add(fieldName)) {
+                merged.add(Expressions.binary(binaryExpression, Operator.IN, new ArrayList<>(valuesByField.get(fieldName))));
+            }
+        }
+        return Expressions.compound(Operator.OR, merged);
+    }
+
+    private boolean isMergeable(Expression expression) {
+        if (!(expression instanceof BinaryExpression)) {
+            return false;
+        }
+        BinaryExpression binaryExpression = (BinaryExpression) expression;
+        Object value = Expressions.value(binaryExpression);
+        switch (binaryExpression.getOperator()) {
+            case EQ:
+            case EQUALS:
+                return value != null && !(value instanceof Collection);
+            case IN:
+                if (!(value instanceof Collection)) {
+                    return false;
+                }
+                for (Object item : (Collection) value) {
+                    if (item == null) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void addValues(BinaryExpression binaryExpression, Set<Object> values) {
+        Object value = Expressions.value(binaryExpression);
+        if (value instanceof Collection) {
+            values.addAll((Collection) value);
+        } else {
+            values.add(value);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.visitors.ExpressionWalker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rewrites the expression tree produced by the parser
+ * into an equivalent, smaller tree before it is handed
+ * to the expression visitors.
+ *
+ * The rules are applied bottom up: the children of a
+ * node are optimized first, then every enabled rule is
+ * applied to the node until none of them changes it.
+ * The tree is walked by an ExpressionWalker, so its
+ * depth is not limited by the thread stack. The
+ * optimizer never modifies the given tree.
+ */
+public class ExpressionOptimizer {
+
+    private static final int MAX_PASSES = 16;
+
+    private final List<OptimizerRule> rules;
+
+    private ExpressionOptimizer(ExpressionOptimizerBuilder optimizerBuilder) {
+        List<OptimizerRule> enabledRules = new ArrayList<>();
+        for (OptimizerRule rule : optimizerBuilder.rules.values()) {
+            if (optimizerBuilder.enabled.contains(rule.getName())) {
+                enabledRules.add(rule);
+            }
+        }
+        this.rules = Collections.unmodifiableList(enabledRules);
+    }
+
+    /**
+     * Builder class responsible for building the
+     * instance of ExpressionOptimizer class. All
+     * the default rules are enabled unless disabled,
+     * except not-push-down and selectivity which
+     * have to be enabled.
+     */
+    public static class ExpressionOptimizerBuilder {
+
+        private final Map<String, OptimizerRule> rules = new LinkedHashMap<>();
+        private final Set<String> enabled = new LinkedHashSet<>();
+
+        private ExpressionOptimizerBuilder() {
+            rule(new FlattenRule());
+            rule(new DuplicateRule());
+            rule(new DoubleNegationRule());
+            rule(new ConstantFoldingRule());
+            rule(new EqualityToInRule());
+            rule(new RangeMergeRule());
+            rule(new NotPushDownRule());
+            enabled.remove(NotPushDownRule.NAME);
+            rule(new SelectivityRule());
+            enabled.remove(SelectivityRule.NAME);
+        }
+
+        /**
+         * Adds and enables the given rule, replacing
+         * any rule with the same name.
+         * @param rule
+         * @return
+         */
+        public ExpressionOptimizerBuilder rule(OptimizerRule rule) {
+            rules.put(rule.getName(), rule);
+            enabled.add(rule.getName());
+            return this;
+        }
+
+        public ExpressionOptimizerBuilder enable(String ruleName) {
+            checkRule(ruleName);
+            enabled.add(ruleName);
+            return this;
+        }
+
+        public ExpressionOptimizerBuilder disable(String ruleName) {
+            checkRule(ruleName);
+            enabled.remove(ruleName);
+            return this;
+        }
+
+        public ExpressionOptimizer build() {
+            return new ExpressionOptimizer(this);
+        }
+
+        private void checkRule(String ruleName) {
+            if (!rules.containsKey(ruleName)) {
+                throw new IllegalArgumentException("Unknown optimizer rule " + ruleName);
+            }
+        }
+    }
+
+    public static ExpressionOptimizerBuilder newExpressionOptimizerBuilder() {
+        return new ExpressionOptimizerBuilder();
+    }
+
+    /**
+     * Returns the names of the enabled rules
+     * in the order they are applied.
+     * @return
+     */
+    public List<String> getRuleNames() {
+        List<String> ruleNames = new ArrayList<>();
+        for (OptimizerRule rule : rules) {
+            ruleNames.add(rule.getName());
+        }
+        return ruleNames;
+    }
+
+    /**
+     * Returns the optimized expression tree.
+     * @param expression
+     * @return
+     */
+    public Expression optimize(Expression expression) {
+        return optimize(expression, new OptimizationReport());
+    }
+
+    /**
+     * Returns the optimized expression tree and
+     * records the applied rules in the report.
+     * @param expression
+     * @param report
+     * @return
+     */
+    public Expression optimize(Expression expression, OptimizationReport report) {
+        if (expression == null) {
+            return null;
+        }
+        report.setNodesBefore(Expressions.count(expression));
+        Set<Expression> optimized = Collections.newSetFromMap(new IdentityHashMap<>());
+        Expression result = optimizeNode(expression, report, optimized);
+        report.setNodesAfter(Expressions.count(result));
+        return result;
+    }
+
+    private Expression optimizeNode(Expression expression, OptimizationReport report, Set<Expression> optimized) {
+        return ExpressionWalker.walk(expression, new ExpressionWalker.Callback<Expression>() {
+            @Override
+            public boolean descend(Expression node) {
+                return ExpressionWalker.isInnerNode(node) && !optimized.contains(node);
+            }
+
+            @Override
+            public Expression leave(Expression node, List<Expression> operands) {
+                if (optimized.contains(node)) {
+                    return node;
+                }
+                Expression result = applyRules(withOperands(node, operands), report, optimized);
+                optimized.add(result);
+                return result;
+            }
+        });
+    }
+
+    private Expression applyRules(Expression expression, OptimizationReport report, Set<Expression> optimized) {
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            boolean changed = false;
+            for (OptimizerRule rule : rules) {
+                Expression rewritten = rule.apply(expression);
+                if (rewritten != expression) {
+                    report.recordApplication(rule.getName());
+                    /* New children created by the rule have not been optimized yet. */
+                    expression = optimizeChildren(rewritten, report, optimized);
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                break;
+            }
+        }
+        return expression;
+    }
+
+    /**
+     * Optimizes the operands of an expression created
+     * by a rule, whose new operands are not optimized yet.
+     */
+    private Expression optimizeChildren(Expression expression, OptimizationReport report, Set<Expression> optimized) {
+        if (!ExpressionWalker.isInnerNode(expression)) {
+            return expression;
+        }
+        List<Expression> operands = expression instanceof CompoundExpression
+                ? ((CompoundExpression) expression).getOperands()
+                : Collections.singletonList(((UnaryExpression) expression).getLeftOperand());
+        List<Expression> optimizedOperands = new ArrayList<>(operands.size());
+        for (Expression operand : operands) {
+            optimizedOperands.add(optimizeNode(operand, report, optimized));
+        }
+        return withOperands(expression, optimizedOperands);
+    }
+
+    /**
+     * Returns the given inner node with the given operands,
+     * the node itself if they are the same.
+     */
+    private static Expression withOperands(Expression expression, List<Expression> operands) {
+        if (expression instanceof CompoundExpression) {
+            CompoundExpression compoundExpression = (CompoundExpression) expression;
+            List<Expression> current = compoundExpression.getOperands();
+            for (int i = 0; i < operands.size(); i++) {
+                if (operands.get(i) != current.get(i)) {
+                    return new CompoundExpression(compoundExpression.getOperator(), operands);
+                }
+            }
+            return expression;
+        }
+        if (expression instanceof UnaryExpression && !operands.isEmpty()) {
+            UnaryExpression unaryExpression = (UnaryExpression) expression;
+            return operands.get(0) != unaryExpression.getLeftOperand()
+                    ? new UnaryExpression(operands.get(0), unaryExpression.getOperator(), null) : expression;
+        }
+        return expression;
+    }
+}
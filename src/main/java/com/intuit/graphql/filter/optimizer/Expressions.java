@@ -0,0 +1,105 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.visitors.ExpressionWalker;
+
+import java.util.List;
+
+/**
+ * Helpers shared by the optimizer rules.
+ */
+final class Expressions {
+
+    private Expressions() {
+    }
+
+    /**
+     * Returns the field name of the given binary expression.
+     */
+    static String fieldName(BinaryExpression binaryExpression) {
+        return binaryExpression.getLeftOperand().infix();
+    }
+
+    /**
+     * Returns the value of the given binary expression.
+     */
+    static Object value(BinaryExpression binaryExpression) {
+        return ((ExpressionValue) binaryExpression.getRightOperand()).value();
+    }
+
+    /**
+     * Creates a binary expression sharing the
+     * field node of the given expression.
+     */
+    static BinaryExpression binary(BinaryExpression binaryExpression, Operator operator, Object value) {
+        return new BinaryExpression(binaryExpression.getLeftOperand(), operator, new ExpressionValue(value));
+    }
+
+    /**
+     * Creates a binary expression for the given field.
+     */
+    static BinaryExpression binary(String fieldName, Operator operator, Object value) {
+        return new BinaryExpression(new ExpressionField(fieldName), operator, new ExpressionValue(value));
+    }
+
+    /**
+     * Returns the equality operator matching the value,
+     * EQUALS for strings and EQ for everything else.
+     */
+    static Operator equalityOperator(Object value) {
+        return value instanceof String ? Operator.EQUALS : Operator.EQ;
+    }
+
+    /**
+     * Returns the single operand if there is only one,
+     * otherwise a compound expression of the operands.
+     */
+    static Expression compound(Operator operator, List<Expression> operands) {
+        return operands.size() == 1 ? operands.get(0) : new CompoundExpression(operator, operands);
+    }
+
+    /**
+     * Returns the number of nodes in the tree.
+     */
+    static int count(Expression expression) {
+        if (expression == null) {
+            return 0;
+        }
+        return ExpressionWalker.walk(expression, new ExpressionWalker.Callback<Integer>() {
+            @Override
+            public boolean descend(Expression node) {
+                return ExpressionWalker.isInnerNode(node) || node instanceof UnsatisfiableExpression;
+            }
+
+            @Override
+            public Integer leave(Expression node, List<Integer> counts) {
+                /* The unsatisfiable marker itself is not counted.*/
+                int count = node instanceof UnsatisfiableExpression ? 0 : 1;
+                for (Integer operandCount : counts) {
+                    count += operandCount;
+                }
+                return count;
+            }
+        });
+    }
+}
@@ -0,0 +1,141 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.Operator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statistics of a single field: the number of distinct
+ * values, the fraction of rows where the field is null
+ * and an optional equi-depth histogram, given as the
+ * ascending bucket boundaries of the non null values.
+ */
+public class FieldStatistics {
+
+    /* Fallback when a range cannot be located in the histogram. */
+    static final double DEFAULT_RANGE_SELECTIVITY = 1.0 / 3;
+
+    private final long distinctValues;
+    private final double nullFraction;
+    private final List<Object> histogram;
+
+    public FieldStatistics(long distinctValues, double nullFraction, List<?> histogram) {
+        this.distinctValues = Math.max(1, distinctValues);
+        this.nullFraction = Math.min(1, Math.max(0, nullFraction));
+        this.histogram = histogram == null ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(histogram));
+    }
+
+    public long getDistinctValues() {
+        return distinctValues;
+    }
+
+    public double getNullFraction() {
+        return nullFraction;
+    }
+
+    public List<Object> getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * Returns the estimated fraction of rows matching
+     * the comparison, or a negative value if the
+     * operator cannot be estimated from statistics.
+     * @param operator
+     * @param value
+     * @return
+     */
+    public double selectivity(Operator operator, Object value) {
+        switch (operator) {
+            case EQ:
+            case EQUALS:
+                return equality(value);
+            case NE:
+            case NOT_EQUALS:
+                return value == null ? 1 - nullFraction : Math.max(0, 1 - nullFraction - equality(value));
+            case IN:
+                return in(value);
+            case NOT_IN:
+                return Math.max(0, 1 - nullFraction - in(value));
+            case LT:
+                return range(null, false, value, false);
+            case LTE:
+                return range(null, false, value, true);
+            case GT:
+                return range(value, false, null, false);
+            case GTE:
+                return range(value, true, null, false);
+            case BETWEEN:
+                if (value instanceof List && ((List) value).size() == 2) {
+                    return range(((List) value).get(0), true, ((List) value).get(1), true);
+                }
+                return -1;
+            default:
+                return -1;
+        }
+    }
+
+    private double equality(Object value) {
+        return value == null ? nullFraction : (1 - nullFraction) / distinctValues;
+    }
+
+    private double in(Object value) {
+        int count = value instanceof Collection ? ((Collection) value).size() : 1;
+        return Math.min(1, (double) count / distinctValues) * (1 - nullFraction);
+    }
+
+    /**
+     * Estimates the fraction of rows between the given
+     * bounds from the histogram, an absent bound
+     * being unbounded.
+     */
+    private double range(Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+        if (histogram.size() < 2) {
+            return (1 - nullFraction) * DEFAULT_RANGE_SELECTIVITY;
+        }
+        double from = lower == null ? 0 : fractionBelow(lower, !lowerInclusive);
+        double to = upper == null ? 1 : fractionBelow(upper, upperInclusive);
+        if (from < 0 || to < 0) {
+            return (1 - nullFraction) * DEFAULT_RANGE_SELECTIVITY;
+        }
+        return (1 - nullFraction) * Math.max(0, to - from);
+    }
+
+    /**
+     * Returns the fraction of non null values below, or
+     * with inclusive also equal to, the given value, or
+     * -1 if the value is not comparable to the histogram.
+     */
+    private double fractionBelow(Object value, boolean inclusive) {
+        int below = 0;
+        for (Object boundary : histogram) {
+            Integer result = RangeMergeRule.compare(boundary, value);
+            if (result == null) {
+                return -1;
+            }
+            if (result < 0 || (inclusive && result == 0)) {
+                below++;
+            }
+        }
+        return (double) below / histogram.size();
+    }
+}
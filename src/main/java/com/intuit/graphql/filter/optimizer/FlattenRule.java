@@ -0,0 +1,66 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges the operands of nested compound expressions
+ * with the same operator into their parent,
+ * e.g. (a and (b and c)) into (a and b and c).
+ */
+public class FlattenRule implements OptimizerRule {
+
+    public static final String NAME = "flatten";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Expression apply(Expression expression) {
+        if (!(expression instanceof CompoundExpression)) {
+            return expression;
+        }
+        CompoundExpression compoundExpression = (CompoundExpression) expression;
+        boolean nested = false;
+        for (Expression operand : compoundExpression.getOperands()) {
+            nested |= isNested(compoundExpression, operand);
+        }
+        if (!nested) {
+            return expression;
+        }
+        List<Expression> operands = new ArrayList<>();
+        for (Expression operand : compoundExpression.getOperands()) {
+            if (isNested(compoundExpression, operand)) {
+                operands.addAll(((CompoundExpression) operand).getOperands());
+            } else {
+                operands.add(operand);
+            }
+        }
+        return new CompoundExpression(compoundExpression.getOperator(), operands);
+    }
+
+    private boolean isNested(CompoundExpression parent, Expression operand) {
+        return operand instanceof CompoundExpression
+                && ((CompoundExpression) operand).getOperator() == parent.getOperator();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pushes negations down to the comparisons using
+ * De Morgan's laws, so that backends are handed
+ * plain comparisons they can serve from an index
+ * rather than a wrapped negation, e.g.
+ * (not ((age gt 30) and (firstName in [A, B]))) into
+ * ((age lte 30) or (firstName notIn [A, B])).
+ *
+ * String matches such as contains, and comparisons
+ * against null, keep their negation.
+ *
+ * The rule is not enabled by default: a negated
+ * comparison matches rows without the field in some
+ * backends, e.g. not (age gt 30) in Mongo, while the
+ * pushed down (age lte 30) does not.
+ */
+public class NotPushDownRule implements OptimizerRule {
+
+    public static final String NAME = "not-push-down";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Expression apply(Expression expression) {
+        if (!(expression instanceof UnaryExpression)
+                || ((UnaryExpression) expression).getOperator() != Operator.NOT) {
+            return expression;
+        }
+        Expression operand = ((UnaryExpression) expression).getLeftOperand();
+        if (operand instanceof CompoundExpression) {
+            CompoundExpression compoundExpression = (CompoundExpression) operand;
+            Operator operator = compoundExpression.getOperator() == Operator.AND ? Operator.OR : Operator.AND;
+            List<Expression> operands = new ArrayList<>();
+            for (Expression compoundOperand : compoundExpression.getOperands()) {
+                operands.add(new UnaryExpression(compoundOperand, Operator.NOT, null));
+            }
+            return new CompoundExpression(operator, operands);
+        }
+        if (operand instanceof BinaryExpression) {
+            Expression negated = negate((BinaryExpression) operand);
+            return negated != null ? negated : expression;
+        }
+        return expression;
+    }
+
+    /**
+     * Returns the negation of the given comparison
+     * without a NOT, or null if there is none.
+     */
+    private Expression negate(BinaryExpression binaryExpression) {
+        Object value = Expressions.value(binaryExpression);
+        if (value == null) {
+            return null;
+        }
+        switch (binaryExpression.getOperator()) {
+            case EQ:
+                return Expressions.binary(binaryExpression, Operator.NE, value);
+            case NE:
+                return Expressions.binary(binaryExpression, Operator.EQ, value);
+            case EQUALS:
+                return Expressions.binary(binaryExpression, Operator.NOT_EQUALS, value);
+            case NOT_EQUALS:
+                return Expressions.binary(binaryExpression, Operator.EQUALS, value);
+            case GT:
+                return Expressions.binary(binaryExpression, Operator.LTE, value);
+            case GTE:
+                return Expressions.binary(binaryExpression, Operator.LT, value);
+            case LT:
+                return Expressions.binary(binaryExpression, Operator.GTE, value);
+            case LTE:
+                return Expressions.binary(binaryExpression, Operator.GT, value);
+            case IN:
+                return Expressions.binary(binaryExpression, Operator.NOT_IN, value);
+            case NOT_IN:
+                return Expressions.binary(binaryExpression, Operator.IN, value);
+            case BETWEEN:
+                List<?> bounds = (List<?>) value;
+                if (bounds.size() != 2) {
+                    return null;
+                }
+                return new CompoundExpression(Operator.OR, Arrays.asList(
+                        Expressions.binary(binaryExpression, Operator.LT, bounds.get(0)),
+                        Expressions.binary(binaryExpression, Operator.GT, bounds.get(1))));
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records what the ExpressionOptimizer did
+ * to an expression tree.
+ */
+public class OptimizationReport {
+
+    private final Map<String, Integer> applications = new LinkedHashMap<>();
+    private int nodesBefore;
+    private int nodesAfter;
+
+    /**
+     * Returns the number of rewrites
+     * per rule name, in order of first
+     * application.
+     * @return
+     */
+    public Map<String, Integer> getApplications() {
+        return Collections.unmodifiableMap(applications);
+    }
+
+    /**
+     * Returns the number of rewrites
+     * done by the given rule.
+     * @param ruleName
+     * @return
+     */
+    public int getApplications(String ruleName) {
+        Integer count = applications.get(ruleName);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Returns the number of nodes in the
+     * tree before optimization.
+     * @return
+     */
+    public int getNodesBefore() {
+        return nodesBefore;
+    }
+
+    /**
+     * Returns the number of nodes in the
+     * tree after optimization.
+     * @return
+     */
+    public int getNodesAfter() {
+        return nodesAfter;
+    }
+
+    /**
+     * Returns true if any rule rewrote the tree.
+     * @return
+     */
+    public boolean isChanged() {
+        return !applications.isEmpty();
+    }
+
+    void recordApplication(String ruleName) {
+        applications.merge(ruleName, 1, Integer::sum);
+    }
+
+    void setNodesBefore(int nodesBefore) {
+        this.nodesBefore = nodesBefore;
+    }
+
+    void setNodesAfter(int nodesAfter) {
+        this.nodesAfter = nodesAfter;
+    }
+
+    @Override
+    public String toString() {
+        return "OptimizationReport{" +
+                "applications=" + applications +
+                ", nodesBefore=" + nodesBefore +
+                ", nodesAfter=" + nodesAfter +
+                '}';
+    }
+}
@@ -0,0 +1,46 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.Expression;
+
+/**
+ * A rewrite rule applied by the ExpressionOptimizer
+ * to every node of the expression tree.
+ *
+ * The optimizer applies the rules bottom up, so the
+ * children of the given node have already been
+ * optimized. A rule must not modify the given node;
+ * it returns a new node when it rewrites it and the
+ * given node itself when it does not apply.
+ */
+public interface OptimizerRule {
+
+    /**
+     * Returns the name used to enable, disable
+     * and report the rule.
+     * @return
+     */
+    public String getName();
+
+    /**
+     * Returns the rewritten node, or the
+     * given node if the rule does not apply.
+     * @param expression
+     * @return
+     */
+    public Expression apply(Expression expression);
+}
@@ -0,0 +1,362 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.Operator;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the comparisons of an AND on the same field
+ * into a single range and detects ranges that are
+ * empty, e.g.
+ * ((age gt 20) and (age lt 30) and (age lt 40)) into
+ * ((age gt 20) and (age lt 30)),
+ * ((age gte 20) and (age lte 30)) into (age between [20, 30]) and
+ * ((age gt 50) and (age lt 10)) into an UnsatisfiableExpression.
+ * Only comparisons with number and date values are merged.
+ *
+ * An AND with an unsatisfiable operand is unsatisfiable.
+ * Unsatisfiable operands of an OR are removed, and an OR
+ * of unsatisfiable operands only is unsatisfiable.
+ */
+public class RangeMergeRule implements OptimizerRule {
+
+    public static final String NAME = "range-merge";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Expression apply(Expression expression) {
+        if (!(expression instanceof CompoundExpression)) {
+            return expression;
+        }
+        CompoundExpression compoundExpression = (CompoundExpression) expression;
+        switch (compoundExpression.getOperator()) {
+            case AND:
+                return applyAnd(compoundExpression);
+            case OR:
+                return applyOr(compoundExpression);
+            default:
+                return expression;
+        }
+    }
+
+    private Expression applyOr(CompoundExpression compoundExpression) {
+        List<Expression> operands = new ArrayList<>();
+        for (Expression operand : compoundExpression.getOperands()) {
+            if (!(operand instanceof UnsatisfiableExpression)) {
+                operands.add(operand);
+            }
+        }
+        if (operands.size() == compoundExpression.getOperands().size()) {
+            return compoundExpression;
+        }
+        if (operands.isEmpty()) {
+            return new UnsatisfiableExpression(compoundExpression);
+        }
+        return Expressions.compound(Operator.OR, operands);
+    }
+
+    private Expression applyAnd(CompoundExpression compoundExpression) {
+        Map<String, List<BinaryExpression>> comparisonsByField = new LinkedHashMap<>();
+        for (Expression operand : compoundExpression.getOperands()) {
+            if (operand instanceof UnsatisfiableExpression) {
+                return new UnsatisfiableExpression(compoundExpression);
+            }
+            if (isComparison(operand)) {
+                BinaryExpression binaryExpression = (BinaryExpression) operand;
+                comparisonsByField.computeIfAbsent(Expressions.fieldName(binaryExpression), key -> new ArrayList<>())
+                        .add(binaryExpression);
+            }
+        }
+        Map<String, List<Expression>> replacements = new LinkedHashMap<>();
+        for (Map.Entry<String, List<BinaryExpression>> entry : comparisonsByField.entrySet()) {
+            List<BinaryExpression> comparisons = entry.getValue();
+            if (comparisons.size() < 2) {
+                continue;
+            }
+            Range range = new Range();
+            if (!range.addAll(comparisons)) {
+                /* Values of different types, leave the field alone. */
+                continue;
+            }
+            if (range.isEmpty()) {
+                return new UnsatisfiableExpression(compoundExpression);
+            }
+            List<Expression> replacement = range.toExpressions(comparisons.get(0));
+            if (!replacement.equals(comparisons)) {
+                replacements.put(entry.getKey(), replacement);
+            }
+        }
+        if (replacements.isEmpty()) {
+            return compoundExpression;
+        }
+        List<Expression> operands = new ArrayList<>();
+        for (Expression operand : compoundExpression.getOperands()) {
+            List<Expression> replacement = isComparison(operand)
+                    ? replacements.get(Expressions.fieldName((BinaryExpression) operand)) : null;
+            if (replacement == null) {
+                operands.add(operand);
+            } else if (!replacement.isEmpty()) {
+                operands.addAll(replacement);
+                /* The other comparisons of the field are dropped. */
+                replacements.put(Expressions.fieldName((BinaryExpression) operand), Collections.emptyList());
+            }
+        }
+        return Expressions.compound(Operator.AND, operands);
+    }
+
+    private boolean isComparison(Expression expression) {
+        if (!(expression instanceof BinaryExpression)) {
+            return false;
+        }
+        BinaryExpression binaryExpression = (BinaryExpression) expression;
+        Object value = Expressions.value(binaryExpression);
+        switch (binaryExpression.getOperator()) {
+            case EQ:
+            case EQUALS:
+            case GT:
+            case GTE:
+            case LT:
+            case LTE:
+                return isOrdered(value);
+            case BETWEEN:
+                return value instanceof List && ((List) value).size() == 2
+                        && isOrdered(((List) value).get(0)) && isOrdered(((List) value).get(1));
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Only numbers and dates are merged, strings and other
+     * values may be compared differently by the data store
+     * (e.g. by its collation) and are left alone.
+     */
+    private static boolean isOrdered(Object value) {
+        return value instanceof Number || value instanceof Date;
+    }
+
+    /**
+     * Compares two values of the same kind, returning
+     * null if they cannot be compared. Numbers of any
+     * type are compared by value.
+     */
+    static Integer compare(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            BigDecimal leftDecimal = toBigDecimal((Number) left);
+            BigDecimal rightDecimal = toBigDecimal((Number) right);
+            return leftDecimal == null || rightDecimal == null ? null : leftDecimal.compareTo(rightDecimal);
+        }
+        if (left instanceof Comparable && left.getClass() == right.getClass()) {
+            return ((Comparable) left).compareTo(right);
+        }
+        return null;
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+        if (number instanceof BigInteger) {
+            return new BigDecimal((BigInteger) number);
+        }
+        if (number instanceof Double || number instanceof Float) {
+            double value = number.doubleValue();
+            return Double.isNaN(value) || Double.isInfinite(value) ? null : BigDecimal.valueOf(value);
+        }
+        return BigDecimal.valueOf(number.longValue());
+    }
+
+    /**
+     * The intersection of the comparisons on one field.
+     */
+    private static final class Range {
+
+        private Object lower;
+        private boolean lowerInclusive;
+        private Object upper;
+        private boolean upperInclusive;
+        private Object equal;
+        private Operator equalOperator;
+        private boolean empty;
+
+        /**
+         * Adds the given comparisons, returning
+         * false if their values cannot be compared.
+         */
+        boolean addAll(List<BinaryExpression> comparisons) {
+            for (BinaryExpression comparison : comparisons) {
+                Object value = Expressions.value(comparison);
+                boolean comparable = true;
+                switch (comparison.getOperator()) {
+                    case EQ:
+                    case EQUALS:
+                        comparable = addEqual(comparison.getOperator(), value);
+                        break;
+                    case GT:
+                        comparable = addLower(value, false);
+                        break;
+                    case GTE:
+                        comparable = addLower(value, true);
+                        break;
+                    case LT:
+                        comparable = addUpper(value, false);
+                        break;
+                    case LTE:
+                        comparable = addUpper(value, true);
+                        break;
+                    case BETWEEN:
+                        List<?> bounds = (List<?>) value;
+                        comparable = addLower(bounds.get(0), true) && addUpper(bounds.get(1), true);
+                        break;
+                }
+                if (!comparable) {
+                    return false;
+                }
+            }
+            return checkEmpty();
+        }
+
+        boolean isEmpty() {
+            return empty;
+        }
+
+        /**
+         * Returns the comparisons equivalent to the range,
+         * sharing the field node of the given comparison.
+         */
+        List<Expression> toExpressions(BinaryExpression field) {
+            if (equal != null) {
+                return Collections.singletonList(Expressions.binary(field, equalOperator, equal));
+            }
+            if (lower != null && upper != null) {
+                if (compare(lower, upper) == 0) {
+                    return Collections.singletonList(Expressions.binary(field, Expressions.equalityOperator(lower), lower));
+                }
+                if (lowerInclusive && upperInclusive) {
+                    return Collections.singletonList(Expressions.binary(field, Operator.BETWEEN,
+                            new ArrayList<>(Arrays.asList(lower, upper))));
+                }
+            }
+            List<Expression> expressions = new ArrayList<>(2);
+            if (lower != null) {
+                expressions.add(Expressions.binary(field, lowerInclusive ? Operator.GTE : Operator.GT, lower));
+            }
+            if (upper != null) {
+                expressions.add(Expressions.binary(field, upperInclusive ? Operator.LTE : Operator.LT, upper));
+            }
+            return expressions;
+        }
+
+        private boolean addEqual(Operator operator, Object value) {
+            if (equal == null) {
+                equal = value;
+                equalOperator = operator;
+                return true;
+            }
+            Integer result = compare(equal, value);
+            if (result == null) {
+                return false;
+            }
+            empty |= result != 0;
+            return true;
+        }
+
+        private boolean addLower(Object value, boolean inclusive) {
+            if (lower == null) {
+                lower = value;
+                lowerInclusive = inclusive;
+                return true;
+            }
+            Integer result = compare(value, lower);
+            if (result == null) {
+                return false;
+            }
+            if (result > 0) {
+                lower = value;
+                lowerInclusive = inclusive;
+            } else if (result == 0) {
+                lowerInclusive &= inclusive;
+            }
+            return true;
+        }
+
+        private boolean addUpper(Object value, boolean inclusive) {
+            if (upper == null) {
+                upper = value;
+                upperInclusive = inclusive;
+                return true;
+            }
+            Integer result = compare(value, upper);
+            if (result == null) {
+                return false;
+            }
+            if (result < 0) {
+                upper = value;
+                upperInclusive = inclusive;
+            } else if (result == 0) {
+                upperInclusive &= inclusive;
+            }
+            return true;
+        }
+
+        /**
+         * Checks the bounds against each other and the
+         * equality, returning false if they cannot be
+         * compared.
+         */
+        private boolean checkEmpty() {
+            if (lower != null && upper != null) {
+                Integer result = compare(lower, upper);
+                if (result == null) {
+                    return false;
+                }
+                empty |= result > 0 || (result == 0 && !(lowerInclusive && upperInclusive));
+            }
+            if (equal != null && lower != null) {
+                Integer result = compare(equal, lower);
+                if (result == null) {
+                    return false;
+                }
+                empty |= result < 0 || (result == 0 && !lowerInclusive);
+            }
+            if (equal != null && upper != null) {
+                Integer result = compare(equal, upper);
+                if (result == null) {
+                    return false;
+                }
+                empty |= result > 0 || (result == 0 && !upperInclusive);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Statistics provider computing the field statistics
+ * from a sample of the rows, e.g. a few hundred rows
+ * read at startup. The distinct values are counted as
+ * seen in the sample.
+ */
+public class SampledStatistics implements StatisticsProvider {
+
+    private final Map<String, FieldStatistics> statistics;
+
+    private SampledStatistics(SampledStatisticsBuilder statisticsBuilder) {
+        Map<String, FieldStatistics> fieldStatistics = new HashMap<>();
+        for (Map.Entry<String, List<Object>> entry : statisticsBuilder.samples.entrySet()) {
+            fieldStatistics.put(entry.getKey(), compute(entry.getValue(), statisticsBuilder.buckets));
+        }
+        this.statistics = Collections.unmodifiableMap(fieldStatistics);
+    }
+
+    /**
+     * Builder class responsible for building the
+     * instance of SampledStatistics class.
+     */
+    public static class SampledStatisticsBuilder {
+
+        private final Map<String, List<Object>> samples = new HashMap<>();
+        private int buckets = 16;
+
+        private SampledStatisticsBuilder() {
+        }
+
+        /**
+         * Sets the number of histogram buckets.
+         * @param buckets
+         * @return
+         */
+        public SampledStatisticsBuilder buckets(int buckets) {
+            if (buckets < 1) {
+                throw new IllegalArgumentException("Buckets must be positive " + buckets);
+            }
+            this.buckets = buckets;
+            return this;
+        }
+
+        /**
+         * Adds a sampled value of the given field,
+         * which may be null.
+         * @param fieldName
+         * @param value
+         * @return
+         */
+        public SampledStatisticsBuilder sample(String fieldName, Object value) {
+            samples.computeIfAbsent(fieldName, key -> new ArrayList<>()).add(value);
+            return this;
+        }
+
+        /**
+         * Adds the values of a sampled row.
+         * @param row
+         * @return
+         */
+        public SampledStatisticsBuilder sample(Map<String, ?> row) {
+            for (Map.Entry<String, ?> entry : row.entrySet()) {
+                sample(entry.getKey(), entry.getValue());
+            }
+            return this;
+        }
+
+        /**
+         * Adds the values of the sampled rows.
+         * @param rows
+         * @return
+         */
+        public SampledStatisticsBuilder sampleAll(Iterable<? extends Map<String, ?>> rows) {
+            for (Map<String, ?> row : rows) {
+                sample(row);
+            }
+            return this;
+        }
+
+        public SampledStatistics build() {
+            return new SampledStatistics(this);
+        }
+    }
+
+    public static SampledStatisticsBuilder newSampledStatisticsBuilder() {
+        return new SampledStatisticsBuilder();
+    }
+
+    @Override
+    public FieldStatistics getFieldStatistics(String fieldName) {
+        return statistics.get(fieldName);
+    }
+
+    private static FieldStatistics compute(List<Object> values, int buckets) {
+        List<Object> nonNullValues = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value != null) {
+                nonNullValues.add(value);
+            }
+        }
+        Set<Object> distinctValues = new HashSet<>(nonNullValues);
+        double nullFraction = 1 - (double) nonNullValues.size() / values.size();
+        return new FieldStatistics(distinctValues.size(), nullFraction, histogram(nonNullValues, buckets));
+    }
+
+    /**
+     * Returns the equi-depth bucket boundaries of the values,
+     * or an empty list if they cannot be ordered.
+     */
+    private static List<Object> histogram(List<Object> values, int buckets) {
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            values.sort((left, right) -> {
+                Integer result = RangeMergeRule.compare(left, right);
+                if (result == null) {
+                    throw new ClassCastException();
+                }
+                return result;
+            });
+        } catch (ClassCastException | IllegalArgumentException e) {
+            return Collections.emptyList();
+        }
+        int boundaries = Math.min(buckets, values.size() - 1) + 1;
+        List<Object> histogram = new ArrayList<>(boundaries);
+        for (int i = 0; i < boundaries; i++) {
+            histogram.add(values.get(boundaries == 1 ? 0 : (int) ((long) i * (values.size() - 1) / (boundaries - 1))));
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.visitors.ExpressionWalker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reorders the operands of AND and OR so that backends
+ * evaluating them in order, e.g. DynamoDB filter
+ * expressions or in-memory predicates, stop as early
+ * as possible. The operands of an AND are ordered by
+ * cost per rejected row and those of an OR by cost per
+ * accepted row, so selective and cheap comparisons
+ * such as an equality on a number come before a
+ * contains. Operands which rank the same keep their
+ * order.
+ *
+ * Selectivities are estimated from the statistics of
+ * the given provider and fall back to fixed estimates
+ * for fields without statistics. The rule is not
+ * enabled by default; adding it with statistics
+ * replaces the default instance and enables it.
+ */
+public class SelectivityRule implements OptimizerRule {
+
+    public static final String NAME = "selectivity";
+
+    private static final double EQUALITY_SELECTIVITY = 0.05;
+    private static final double STRING_MATCH_SELECTIVITY = 0.25;
+
+    private final StatisticsProvider statisticsProvider;
+
+    /**
+     * Creates the rule using fixed
+     * selectivity estimates only.
+     */
+    public SelectivityRule() {
+        this(fieldName -> null);
+    }
+
+    public SelectivityRule(StatisticsProvider statisticsProvider) {
+        this.statisticsProvider = statisticsProvider;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Expression apply(Expression expression) {
+        if (!(expression instanceof CompoundExpression)) {
+            return expression;
+        }
+        CompoundExpression compoundExpression = (CompoundExpression) expression;
+        boolean and = compoundExpression.getOperator() == Operator.AND;
+        List<Expression> operands = compoundExpression.getOperands();
+        List<Ranked> ranked = new ArrayList<>(operands.size());
+        for (Expression operand : operands) {
+            double selectivity = selectivity(operand);
+            /* An AND stops at the first rejected row, an OR at the first accepted one. */
+            double stopProbability = and ? 1 - selectivity : selectivity;
+            ranked.add(new Ranked(operand, cost(operand) / Math.max(stopProbability, 1e-9)));
+        }
+        ranked.sort(Comparator.comparingDouble(rankedOperand -> rankedOperand.rank));
+        List<Expression> reordered = new ArrayList<>(operands.size());
+        boolean changed = false;
+        for (int i = 0; i < ranked.size(); i++) {
+            reordered.add(ranked.get(i).expression);
+            changed |= ranked.get(i).expression != operands.get(i);
+        }
+        return changed ? new CompoundExpression(compoundExpression.getOperator(), reordered) : compoundExpression;
+    }
+
+    /**
+     * Returns the estimated fraction of
+     * rows matching the expression.
+     */
+    double selectivity(Expression expression) {
+        return ExpressionWalker.walk(expression, (node, selectivities) -> {
+            if (node instanceof CompoundExpression) {
+                boolean and = ((CompoundExpression) node).getOperator() == Operator.AND;
+                double selectivity = 1;
+                for (Double operandSelectivity : selectivities) {
+                    selectivity *= and ? operandSelectivity : 1 - operandSelectivity;
+                }
+                return and ? selectivity : 1 - selectivity;
+            }
+            if (node instanceof UnaryExpression) {
+                return 1 - selectivities.get(0);
+            }
+            if (node instanceof BinaryExpression) {
+                return binarySelectivity((BinaryExpression) node);
+            }
+            if (node instanceof UnsatisfiableExpression) {
+                return 0d;
+            }
+            return 1d;
+        });
+    }
+
+    /**
+     * Returns the relative cost of evaluating the expression,
+     * pattern matches costing more than comparisons.
+     */
+    double cost(Expression expression) {
+        return ExpressionWalker.walk(expression, (node, costs) -> {
+            if (ExpressionWalker.isInnerNode(node)) {
+                double cost = 0;
+                for (Double operandCost : costs) {
+                    cost += operandCost;
+                }
+                return cost;
+            }
+            if (node instanceof BinaryExpression) {
+                switch (((BinaryExpression) node).getOperator()) {
+                    case CONTAINS:
+                    case ENDS:
+                        return 4d;
+                    case STARTS:
+                    case IN:
+                    case NOT_IN:
+                    case BETWEEN:
+                        return 2d;
+                    default:
+                        return 1d;
+                }
+            }
+            return 1d;
+        });
+    }
+
+    private double binarySelectivity(BinaryExpression binaryExpression) {
+        FieldStatistics fieldStatistics = statisticsProvider.getFieldStatistics(Expressions.fieldName(binaryExpression));
+        if (fieldStatistics != null) {
+            double selectivity = fieldStatistics.selectivity(binaryExpression.getOperator(),
+                    Expressions.value(binaryExpression));
+            if (selectivity >= 0) {
+                return Math.min(1, selectivity);
+            }
+        }
+        return defaultSelectivity(binaryExpression);
+    }
+
+    private double defaultSelectivity(BinaryExpression binaryExpression) {
+        switch (binaryExpression.getOperator()) {
+            case EQ:
+            case EQUALS:
+                return EQUALITY_SELECTIVITY;
+            case NE:
+            case NOT_EQUALS:
+                return 1 - EQUALITY_SELECTIVITY;
+            case IN:
+                Object values = Expressions.value(binaryExpression);
+                int count = values instanceof List ? ((List) values).size() : 1;
+                return Math.min(1, count * EQUALITY_SELECTIVITY);
+            case NOT_IN:
+                return 1 - EQUALITY_SELECTIVITY;
+            case STARTS:
+            case ENDS:
+            case CONTAINS:
+                return STRING_MATCH_SELECTIVITY;
+            default:
+                return FieldStatistics.DEFAULT_RANGE_SELECTIVITY;
+        }
+    }
+
+    private static final class Ranked {
+
+        private final Expression expression;
+        private final double rank;
+
+        Ranked(Expression expression, double rank) {
+            this.expression = expression;
+            this.rank = rank;
+        }
+    }
+}
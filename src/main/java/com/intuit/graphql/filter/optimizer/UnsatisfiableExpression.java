@@ -0,0 +1,82 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.visitors.ExpressionVisitor;
+
+/**
+ * Marks a sub tree which the optimizer has proven
+ * can never match, e.g. ((age gt 50) and (age lt 10)).
+ *
+ * The node keeps the sub tree it replaces and visitors
+ * are handed that sub tree, so the rendered expression
+ * is still a valid query that matches nothing. When it
+ * is the root of the tree, FilterExpression reports
+ * the filter as unsatisfiable so the backend call can
+ * be skipped.
+ */
+public class UnsatisfiableExpression implements Expression {
+
+    private final Expression expression;
+
+    public UnsatisfiableExpression(Expression expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * Returns the sub tree which
+     * can never match.
+     * @return
+     */
+    public Expression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Returns the infix string representation
+     * of the replaced sub tree.
+     * @return
+     */
+    @Override
+    public String infix() {
+        return expression.infix();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof UnsatisfiableExpression
+                && expression.equals(((UnsatisfiableExpression) other).expression);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * expression.hashCode() + 1;
+    }
+
+    /**
+     * Passes the visitor on to the
+     * replaced sub tree.
+     * @param visitor
+     * @param data
+     * @param <T>
+     * @return
+     */
+    @Override
+    public <T> T accept(ExpressionVisitor visitor, T data) {
+        return expression.accept(visitor, data);
+    }
+}
@@ -0,0 +1,444 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.visitors;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.client.FieldValueTransformer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class for the visitors generating a string
+ * from the expression tree.
+ *
+ * All the nodes append to a single buffer for the
+ * whole traversal, so rendering is linear in the size
+ * of the output rather than copying the prefix at
+ * every level of the tree.
+ *
+ * The buffer, the resolution of the fields and any
+ * other state of a traversal are kept in a Rendering
+ * created per call, the visitor only holds its
+ * configuration and can be shared between threads
+ * and reused across requests.
+ *
+ * Compound and unary expressions are rendered here by
+ * an ExpressionWalker, subclasses render the leaves
+ * and name the operators. A single walk can drive the
+ * renderings of several visitors, see expressions().
+ */
+public abstract class AbstractStringExpressionVisitor implements ExpressionVisitor<String> {
+
+    private final Map<String, String> fieldMap;
+    private final FieldValueTransformer fieldValueTransformer;
+
+    protected AbstractStringExpressionVisitor(Map<String, String> fieldMap, FieldValueTransformer fieldValueTransformer) {
+        this.fieldMap = fieldMap;
+        this.fieldValueTransformer = fieldValueTransformer;
+    }
+
+    /**
+     * Returns the string version
+     * of the expression tree.
+     * @return
+     * @param expression
+     */
+    @Override
+    public String expression(Expression expression) {
+        return expression(expression, resolve(expression));
+    }
+
+    /**
+     * Returns the string version of the expression
+     * tree, its fields resolved by the given resolution.
+     * @param expression
+     * @param fieldResolution
+     * @return
+     */
+    @Override
+    public String expression(Expression expression, FieldResolution fieldResolution) {
+        StringBuilder expressionBuilder = new StringBuilder(64);
+        expression(expression, fieldResolution, expressionBuilder);
+        return expressionBuilder.toString();
+    }
+
+    /**
+     * Writes the string version of the expression
+     * tree to the given appendable.
+     * @param expression
+     * @param out
+     *          Caller supplied buffer, writer or stream.
+     * @throws UncheckedIOException
+     *          if the appendable fails to write.
+     */
+    public void expression(Expression expression, Appendable out) {
+        expression(expression, resolve(expression), out);
+    }
+
+    /**
+     * Writes the string version of the expression tree,
+     * its fields resolved by the given resolution, to
+     * the given appendable.
+     * @param expression
+     * @param fieldResolution
+     * @param out
+     *          Caller supplied buffer, writer or stream.
+     * @throws UncheckedIOException
+     *          if the appendable fails to write.
+     */
+    public void expression(Expression expression, FieldResolution fieldResolution, Appendable out) {
+        write(expression, newRendering(out, fieldResolution));
+    }
+
+    /**
+     * Returns the string versions of the expression
+     * tree for each of the given visitors, written in
+     * a single traversal of the tree.
+     * @param expression
+     * @param fieldResolution
+     * @param visitors
+     * @return
+     */
+    public static List<String> expressions(Expression expression, FieldResolution fieldResolution,
+                                           List<? extends AbstractStringExpressionVisitor> visitors) {
+        List<StringBuilder> expressionBuilders = new ArrayList<>(visitors.size());
+        List<Rendering> renderings = new ArrayList<>(visitors.size());
+        for (AbstractStringExpressionVisitor visitor : visitors) {
+            StringBuilder expressionBuilder = new StringBuilder(64);
+            Rendering rendering = visitor.newRendering(expressionBuilder, fieldResolution);
+            visitor.begin(rendering);
+            expressionBuilders.add(expressionBuilder);
+            renderings.add(rendering);
+        }
+        if (expression != null) {
+            walk(expression, renderings, "");
+        }
+        List<String> expressions = new ArrayList<>(visitors.size());
+        for (StringBuilder expressionBuilder : expressionBuilders) {
+            expressions.add(expressionBuilder.toString());
+        }
+        return expressions;
+    }
+
+    /**
+     * Writes the whole expression tree, preceded
+     * by its prefix, with the given rendering.
+     * @param expression
+     * @param rendering
+     */
+    void write(Expression expression, Rendering rendering) {
+        begin(rendering);
+        if (expression != null) {
+            expression.accept(rendering, "");
+        }
+    }
+
+    /**
+     * Returns the given data followed by the string
+     * version of the given sub tree.
+     * @param expression
+     * @param data
+     * @return
+     */
+    String render(Expression expression, String data) {
+        StringBuilder expressionBuilder = new StringBuilder(data);
+        expression.accept(newRendering(expressionBuilder, resolve(expression)), data);
+        return expressionBuilder.toString();
+    }
+
+    /**
+     * Handles the processing of compound
+     * expression node.
+     * @param compoundExpression
+     *          Contains compound expression.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public String visitCompoundExpression(CompoundExpression compoundExpression, String data) {
+        return render(compoundExpression, data);
+    }
+
+    /**
+     * Handles the processing of binary
+     * expression node.
+     * @param binaryExpression
+     *          Contains binary expression.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public String visitBinaryExpression(BinaryExpression binaryExpression, String data) {
+        return render(binaryExpression, data);
+    }
+
+    /**
+     * Handles the processing of unary
+     * expression node.
+     * @param unaryExpression
+     *          Contains unary expression.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public String visitUnaryExpression(UnaryExpression unaryExpression, String data) {
+        return render(unaryExpression, data);
+    }
+
+    /**
+     * Handles the processing of expression
+     * field node.
+     * @param field
+     *          Contains expression field.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public String visitExpressionField(ExpressionField field, String data) {
+        return render(field, data);
+    }
+
+    /**
+     * Handles the processing of expression
+     * value node.
+     * @param value
+     *          Contains expression value.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public String visitExpressionValue(ExpressionValue<? extends Comparable> value, String data) {
+        return render(value, data);
+    }
+
+    /**
+     * Returns the resolution of the fields of the given
+     * expression tree through the field map and transformer
+     * of this visitor.
+     * @param expression
+     * @return
+     */
+    FieldResolution resolve(Expression expression) {
+        return FieldResolution.of(expression, fieldMap, fieldValueTransformer);
+    }
+
+    /**
+     * Creates the state of a single traversal
+     * writing to the given appendable.
+     * @param out
+     * @param fieldResolution
+     * @return
+     */
+    protected Rendering newRendering(Appendable out, FieldResolution fieldResolution) {
+        return new Rendering(out, fieldResolution);
+    }
+
+    /**
+     * Writes a comparison of a field and a value.
+     * @param binaryExpression
+     * @param rendering
+     */
+    protected abstract void writeBinaryExpression(BinaryExpression binaryExpression, Rendering rendering);
+
+    /**
+     * Writes a field rendered on its own.
+     * @param field
+     * @param rendering
+     */
+    protected abstract void writeExpressionField(ExpressionField field, Rendering rendering);
+
+    /**
+     * Writes a value rendered on its own.
+     * @param value
+     * @param rendering
+     */
+    protected abstract void writeExpressionValue(ExpressionValue<? extends Comparable> value, Rendering rendering);
+
+    /**
+     * Returns the text of the given operator.
+     * @param operator
+     * @return
+     */
+    protected abstract String resolveOperator(Operator operator);
+
+    /**
+     * Writes the text preceding the expression.
+     * @param rendering
+     */
+    protected void begin(Rendering rendering) {
+    }
+
+    /**
+     * Writes (a OP b OP c) for compound expressions and
+     * ( OP a) for unary expressions with each of the given
+     * renderings, accepting the leaves, in a single walk.
+     */
+    private static void walk(Expression expression, List<? extends Rendering> renderings, String data) {
+        ExpressionWalker.walk(expression, new ExpressionWalker.Callback<String>() {
+            @Override
+            public void enter(Expression node) {
+                for (Rendering rendering : renderings) {
+                    rendering.enter(node, data);
+                }
+            }
+
+            @Override
+            public void separate(CompoundExpression compoundExpression, int index) {
+                for (Rendering rendering : renderings) {
+                    rendering.separate(compoundExpression);
+                }
+            }
+
+            @Override
+            public String leave(Expression node, List<String> results) {
+                if (ExpressionWalker.isInnerNode(node)) {
+                    for (Rendering rendering : renderings) {
+                        rendering.append(")");
+                    }
+                }
+                return data;
+            }
+        });
+    }
+
+    /**
+     * State of a single traversal, the buffer being
+     * written to and the resolution of the fields.
+     * Subclasses extend it to collect what they return
+     * along with the string, e.g. bind parameters.
+     */
+    protected class Rendering implements ExpressionVisitor<String> {
+
+        private final Appendable out;
+        private final FieldResolution fieldResolution;
+
+        protected Rendering(Appendable out, FieldResolution fieldResolution) {
+            this.out = out;
+            this.fieldResolution = fieldResolution;
+        }
+
+        /**
+         * Returns the resolution of the fields
+         * of the expression being written.
+         * @return
+         */
+        public FieldResolution getFieldResolution() {
+            return fieldResolution;
+        }
+
+        /**
+         * Writes the expression tree to the buffer
+         * of this rendering.
+         * @param expression
+         * @return
+         *          The empty data, the text is in the buffer.
+         */
+        @Override
+        public String expression(Expression expression) {
+            write(expression, this);
+            return "";
+        }
+
+        @Override
+        public String visitCompoundExpression(CompoundExpression compoundExpression, String data) {
+            walk(compoundExpression, Collections.singletonList(this), data);
+            return data;
+        }
+
+        @Override
+        public String visitBinaryExpression(BinaryExpression binaryExpression, String data) {
+            writeBinaryExpression(binaryExpression, this);
+            return data;
+        }
+
+        @Override
+        public String visitUnaryExpression(UnaryExpression unaryExpression, String data) {
+            walk(unaryExpression, Collections.singletonList(this), data);
+            return data;
+        }
+
+        @Override
+        public String visitExpressionField(ExpressionField field, String data) {
+            writeExpressionField(field, this);
+            return data;
+        }
+
+        @Override
+        public String visitExpressionValue(ExpressionValue<? extends Comparable> value, String data) {
+            writeExpressionValue(value, this);
+            return data;
+        }
+
+        private void enter(Expression node, String data) {
+            if (node instanceof CompoundExpression) {
+                append("(");
+            } else if (node instanceof UnaryExpression) {
+                append("( ").append(resolveOperator(((UnaryExpression) node).getOperator())).append(" ");
+            } else {
+                node.accept(this, data);
+            }
+        }
+
+        private void separate(CompoundExpression compoundExpression) {
+            append(" ").append(resolveOperator(compoundExpression.getOperator())).append(" ");
+        }
+
+        /**
+         * Appends the given text to the buffer.
+         * @param text
+         * @return
+         */
+        public Rendering append(CharSequence text) {
+            try {
+                out.append(text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        /**
+         * Appends the string value of the given
+         * object to the buffer.
+         * @param value
+         * @return
+         */
+        public Rendering append(Object value) {
+            return append(String.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.visitors;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Generates and caches the accessors used by the
+ * predicate visitor to read bean properties.
+ *
+ * Public getters of public classes are bound with
+ * LambdaMetafactory, so reading a property is a
+ * direct call the JIT can inline. Getters returning
+ * int, long or double get a ToIntFunction,
+ * ToLongFunction or ToDoubleFunction and are read
+ * without boxing. Other members fall back to
+ * reflection. Accessors are created once per bean
+ * class and property.
+ */
+final class BeanAccessors {
+
+    private static final Object MISSING = new Object();
+
+    private static final ClassValue<ConcurrentMap<String, Object>> ACCESSORS =
+            new ClassValue<ConcurrentMap<String, Object>>() {
+                @Override
+                protected ConcurrentMap<String, Object> computeValue(Class<?> beanClass) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private BeanAccessors() {
+    }
+
+    /**
+     * Returns the accessor of the given property, either a
+     * ToIntFunction, ToLongFunction, ToDoubleFunction or a
+     * Function, or null if the class has no such property.
+     * @param beanClass
+     * @param property
+     * @return
+     */
+    static Object get(Class<?> beanClass, String property) {
+        Object accessor = ACCESSORS.get(beanClass).computeIfAbsent(property, name -> {
+            Object created = create(beanClass, name);
+            return created == null ? MISSING : created;
+        });
+        return accessor == MISSING ? null : accessor;
+    }
+
+    /**
+     * Returns the accessor of the given property
+     * boxing primitive values, or null if the
+     * class has no such property.
+     * @param beanClass
+     * @param property
+     * @return
+     */
+    static Function<Object, Object> getBoxed(Class<?> beanClass, String property) {
+        Object accessor = get(beanClass, property);
+        if (accessor instanceof ToIntFunction) {
+            ToIntFunction<Object> intAccessor = (ToIntFunction<Object>) accessor;
+            return bean -> intAccessor.applyAsInt(bean);
+        }
+        if (accessor instanceof ToLongFunction) {
+            ToLongFunction<Object> longAccessor = (ToLongFunction<Object>) accessor;
+            return bean -> longAccessor.applyAsLong(bean);
+        }
+        if (accessor instanceof ToDoubleFunction) {
+            ToDoubleFunction<Object> doubleAccessor = (ToDoubleFunction<Object>) accessor;
+            return bean -> doubleAccessor.applyAsDouble(bean);
+        }
+        return (Function<Object, Object>) accessor;
+    }
+
+    private static Object create(Class<?> beanClass, String property) {
+        Method getter = findGetter(beanClass, property);
+        if (getter != null) {
+            Object accessor = null;
+            if (isLinkable(beanClass, getter)) {
+                try {
+                    accessor = generate(beanClass, getter);
+                } catch (Throwable e) {
+                    /* Fall back to reflection below. */
+                }
+            }
+            return accessor != null ? accessor : reflect(getter);
+        }
+        try {
+            return reflect(beanClass.getField(property));
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
+
+    private static Method findGetter(Class<?> beanClass, String property) {
+        if (property.isEmpty()) {
+            return null;
+        }
+        String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (String methodName : new String[] {"get" + suffix, "is" + suffix, property}) {
+            try {
+                Method method = beanClass.getMethod(methodName);
+                if (method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers())) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                /* Try the next naming convention. */
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The generated class lives with this library, so the getter
+     * must be public and the bean class visible from here.
+     */
+    private static boolean isLinkable(Class<?> beanClass, Method getter) {
+        if (!Modifier.isPublic(beanClass.getModifiers())
+                || !Modifier.isPublic(getter.getDeclaringClass().getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(beanClass.getName(), false, BeanAccessors.class.getClassLoader()) == beanClass;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static Object generate(Class<?> beanClass, Method getter) throws Throwable {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle handle = lookup.unreflect(getter);
+        Class<?> returnType = getter.getReturnType();
+        Class<?> functionType;
+        String methodName;
+        MethodType methodType;
+        if (returnType == int.class) {
+            functionType = ToIntFunction.class;
+            methodName = "applyAsInt";
+            methodType = MethodType.methodType(int.class, Object.class);
+        } else if (returnType == long.class) {
+            functionType = ToLongFunction.class;
+            methodName = "applyAsLong";
+            methodType = MethodType.methodType(long.class, Object.class);
+        } else if (returnType == double.class) {
+            functionType = ToDoubleFunction.class;
+            methodName = "applyAsDouble";
+            methodType = MethodType.methodType(double.class, Object.class);
+        } else {
+            functionType = Function.class;
+            methodName = "apply";
+            methodType = MethodType.methodType(Object.class, Object.class);
+            returnType = MethodType.methodType(returnType).wrap().returnType();
+        }
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, methodName,
+                MethodType.methodType(functionType), methodType, handle,
+                MethodType.methodType(returnType, beanClass));
+        return callSite.getTarget().invoke();
+    }
+
+    private static Object reflect(Method getter) {
+        try {
+            getter.setAccessible(true);
+        } catch (RuntimeException e) {
+            /* Public members of public classes do not need it. */
+        }
+        return (Function<Object, Object>) bean -> {
+            try {
+                return getter.invoke(bean);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static Object reflect(Field field) {
+        try {
+            field.setAccessible(true);
+        } catch (RuntimeException e) {
+            /* Public members of public classes do not need it. */
+        }
+        return (Function<Object, Object>) bean -> {
+            try {
+                return field.get(bean);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.visitors;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * DynamoDB filter expression along with the
+ * expression-attribute values of its placeholders,
+ * collected while it was rendered.
+ */
+public class DynamoDBExpression {
+
+    private final String expression;
+    private final Map<String, Object> expressionValues;
+
+    DynamoDBExpression(String expression, Map<String, Object> expressionValues) {
+        this.expression = expression;
+        this.expressionValues = Collections.unmodifiableMap(expressionValues);
+    }
+
+    /**
+     * Returns the filter expression, e.g.
+     * {@code (contains(firstName, :firstName))}.
+     * @return
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Returns the expression-attribute values, e.g.
+     * {@code {":firstName": "Saurabh"}}, for
+     * {@code ExpressionAttributeValues} after converting
+     * each value to an {@code AttributeValue}.
+     * @return
+     */
+    public Map<String, Object> getExpressionValues() {
+        return expressionValues;
+    }
+
+    @Override
+    public String toString() {
+        return expression + " " + expressionValues;
+    }
+}
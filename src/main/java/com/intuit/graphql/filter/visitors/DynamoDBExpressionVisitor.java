@@ -16,17 +16,13 @@
 package com.intuit.graphql.filter.visitors;
 
 import com.intuit.graphql.filter.ast.BinaryExpression;
-import com.intuit.graphql.filter.ast.CompoundExpression;
 import com.intuit.graphql.filter.ast.Expression;
 import com.intuit.graphql.filter.ast.ExpressionField;
 import com.intuit.graphql.filter.ast.ExpressionValue;
 import com.intuit.graphql.filter.ast.Operator;
-import com.intuit.graphql.filter.ast.UnaryExpression;
-import com.intuit.graphql.filter.client.FieldValuePair;
 import com.intuit.graphql.filter.client.FieldValueTransformer;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,201 +43,204 @@ import java.util.Map;
  *       an {@code AttributeValue}.</li>
  * </ul>
  *
+ * <p>Both are collected per call, {@link #dynamoDBExpression(Expression)}
+ * returns them together and keeps no state, so a single visitor can be
+ * shared between threads.
+ *
  * @author sjaiswal
  */
-public class DynamoDBExpressionVisitor implements ExpressionVisitor<String> {
+public class DynamoDBExpressionVisitor extends AbstractStringExpressionVisitor {
 
-    private final Deque<Operator> operatorStack;
-    private final Map<String, String> fieldMap;
-    private final Deque<ExpressionField> fieldStack;
-    private final FieldValueTransformer fieldValueTransformer;
-    private final Map<String, Object> expressionValues;
-    private final Map<String, String> expressionNames;
+    /* Last expression rendered through expression(Expression), for the deprecated accessor.*/
+    private volatile DynamoDBExpression lastExpression;
 
     public DynamoDBExpressionVisitor(Map<String, String> fieldMap,
                                      FieldValueTransformer fieldValueTransformer) {
-        this.operatorStack = new ArrayDeque<>();
-        this.fieldMap = fieldMap;
-        this.fieldStack = new ArrayDeque<>();
-        this.fieldValueTransformer = fieldValueTransformer;
-        this.expressionValues = new HashMap<>();
-        this.expressionNames = new HashMap<>();
+        super(fieldMap, fieldValueTransformer);
     }
 
     /**
-     * Entry point — initiates AST traversal and returns the complete
-     * DynamoDB filter expression string.
+     * Creates a rendering collecting the
+     * expression-attribute values.
+     * @param out
+     * @param fieldResolution
+     * @return
      */
     @Override
-    public String expression(Expression expression) {
-        String expressionString = "";
-        if (expression != null) {
-            expressionString = expression.accept(this, expressionString);
-        }
-        return expressionString;
+    protected DynamoDBRendering newRendering(Appendable out, FieldResolution fieldResolution) {
+        return new DynamoDBRendering(out, fieldResolution);
     }
 
     /**
-     * Handles AND / OR compound expressions.
-     * Wraps both operands in parentheses to preserve precedence.
+     * Returns the filter expression of the given tree,
+     * keeping its values for getExpressionValues().
+     * Only this entry point keeps them, the visitors
+     * shared between filters render through the others.
+     * @param expression
+     * @return
      */
     @Override
-    public String visitCompoundExpression(CompoundExpression compoundExpression, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        expressionBuilder.append("(")
-                .append(compoundExpression.getLeftOperand().accept(this, ""))
-                .append(" ").append(compoundExpression.getOperator().getName().toUpperCase()).append(" ")
-                .append(compoundExpression.getRightOperand().accept(this, ""))
-                .append(")");
-        return expressionBuilder.toString();
+    public String expression(Expression expression) {
+        DynamoDBExpression dynamoDBExpression = dynamoDBExpression(expression);
+        lastExpression = dynamoDBExpression;
+        return dynamoDBExpression.getExpression();
     }
 
     /**
-     * Handles binary field-value comparisons.
-     * CONTAINS and STARTS use DynamoDB function syntax and are handled
-     * specially in {@link #visitExpressionValue}.
+     * Returns the filter expression of the given tree along
+     * with the expression-attribute values of its placeholders,
+     * collected in the same traversal.
+     * @param expression
+     * @return
      */
-    @Override
-    public String visitBinaryExpression(BinaryExpression binaryExpression, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        Operator operator = binaryExpression.getOperator();
-
-        if (operator == Operator.STARTS || operator == Operator.CONTAINS) {
-            // Function-style operators: field name is embedded in visitExpressionValue
-            operatorStack.push(operator);
-            binaryExpression.getLeftOperand().accept(this, "");
-            expressionBuilder.append(binaryExpression.getRightOperand().accept(this, ""));
-        } else {
-            expressionBuilder.append("(")
-                    .append(binaryExpression.getLeftOperand().accept(this, ""))
-                    .append(" ").append(resolveOperator(operator)).append(" ");
-            operatorStack.push(operator);
-            expressionBuilder.append(binaryExpression.getRightOperand().accept(this, ""))
-                    .append(")");
-        }
-        return expressionBuilder.toString();
+    public DynamoDBExpression dynamoDBExpression(Expression expression) {
+        return dynamoDBExpression(expression, resolve(expression));
     }
 
     /**
-     * Handles NOT unary expressions.
+     * Returns the filter expression of the given tree, its
+     * fields resolved by the given resolution, along with the
+     * expression-attribute values of its placeholders.
+     * @param expression
+     * @param fieldResolution
+     * @return
      */
-    @Override
-    public String visitUnaryExpression(UnaryExpression unaryExpression, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        expressionBuilder.append("(")
-                .append(" ").append(resolveOperator(unaryExpression.getOperator())).append(" ")
-                .append(unaryExpression.getLeftOperand().accept(this, ""))
-                .append(")");
-        return expressionBuilder.toString();
+    public DynamoDBExpression dynamoDBExpression(Expression expression, FieldResolution fieldResolution) {
+        StringBuilder expressionBuilder = new StringBuilder(64);
+        DynamoDBRendering rendering = newRendering(expressionBuilder, fieldResolution);
+        write(expression, rendering);
+        return new DynamoDBExpression(expressionBuilder.toString(), rendering.expressionValues);
     }
 
     /**
-     * Handles field name resolution including fieldMap and custom transformer.
-     * For STARTS/CONTAINS the field name is not appended here — it is used
-     * inside {@link #visitExpressionValue} to build the function call.
+     * Handles binary field-value comparisons, generating the
+     * expression-attribute placeholder names and storing the
+     * values, transformed if the field is, in the expression-attribute
+     * values of the rendering. CONTAINS and STARTS use DynamoDB
+     * function syntax.
      */
     @Override
-    public String visitExpressionField(ExpressionField field, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        String fieldName = field.infix();
-
-        if (fieldMap != null && fieldMap.get(fieldName) != null) {
-            fieldName = fieldMap.get(fieldName);
-        } else if (fieldValueTransformer != null
-                && fieldValueTransformer.transformField(fieldName) != null) {
-            fieldName = fieldValueTransformer.transformField(fieldName);
-        }
-        fieldStack.push(field);
-
-        Operator operator = operatorStack.peek();
-        if (operator == Operator.STARTS || operator == Operator.CONTAINS) {
-            // Field name is written inside visitExpressionValue for function calls
-            return expressionBuilder.toString();
-        }
-        expressionBuilder.append(fieldName);
-        return expressionBuilder.toString();
-    }
-
-    /**
-     * Handles value nodes — generates the expression-attribute placeholder name,
-     * stores the value in {@link #expressionValues}, and builds the final expression
-     * fragment for the current operator.
-     */
-    @Override
-    public String visitExpressionValue(ExpressionValue<? extends Comparable> value, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        Operator operator = operatorStack.pop();
-        ExpressionField field = fieldStack.pop();
-        String fieldName = resolveFieldName(field.infix());
-
-        if (!fieldStack.isEmpty() && fieldValueTransformer != null) {
-            FieldValuePair fieldValuePair = fieldValueTransformer.transformValue(field.infix(), value.value());
-            if (fieldValuePair != null && fieldValuePair.getValue() != null) {
-                value = new ExpressionValue(fieldValuePair.getValue());
-            }
-        }
+    protected void writeBinaryExpression(BinaryExpression binaryExpression, Rendering rendering) {
+        Operator operator = binaryExpression.getOperator();
+        FieldResolution fieldResolution = rendering.getFieldResolution();
+        int field = fieldResolution.indexOf(binaryExpression.getLeftOperand().infix());
+        String fieldName = fieldResolution.targetName(field);
+        ExpressionValue<? extends Comparable> value = getTransformedValue(fieldResolution, field,
+                (ExpressionValue<? extends Comparable>) binaryExpression.getRightOperand());
+        Map<String, Object> expressionValues = ((DynamoDBRendering) rendering).expressionValues;
 
         String expressionValue = deriveValueParameterName(operator, fieldName);
         expressionValues.put(expressionValue, value.value());
 
         if (operator == Operator.STARTS) {
-            expressionBuilder.append("(begins_with(")
+            rendering.append("(begins_with(")
                     .append(fieldName).append(", ").append(expressionValue).append("))");
+            return;
         } else if (operator == Operator.CONTAINS) {
-            expressionBuilder.append("(contains(")
+            rendering.append("(contains(")
                     .append(fieldName).append(", ").append(expressionValue).append("))");
-        } else if (operator == Operator.BETWEEN) {
+            return;
+        }
+
+        if (operator == Operator.NOT_IN) {
+            // DynamoDB has no NOT IN comparator, negate the IN condition instead
+            rendering.append("(NOT ");
+        }
+        rendering.append("(").append(fieldName).append(" ").append(resolveOperator(operator)).append(" ");
+        if (operator == Operator.BETWEEN) {
             List<Comparable> values = (List<Comparable>) value.value();
             String minValue = ":min_" + fieldName;
             String maxValue = ":max_" + fieldName;
-            this.expressionValues.put(minValue, values.get(0));
-            this.expressionValues.put(maxValue, values.get(1));
-            expressionBuilder.append(minValue).append(" AND ").append(maxValue);
-        } else if (operator == Operator.IN) {
+            expressionValues.put(minValue, values.get(0));
+            expressionValues.put(maxValue, values.get(1));
+            rendering.append(minValue).append(" AND ").append(maxValue);
+        } else if (operator == Operator.IN || operator == Operator.NOT_IN) {
             List<Comparable> values = (List<Comparable>) value.value();
-            expressionBuilder.append("(");
+            rendering.append("(");
             for (int i = 0; i < values.size(); i++) {
                 String inValue = ":" + fieldName + "_" + i;
-                this.expressionValues.put(inValue, values.get(i));
-                expressionBuilder.append(inValue);
+                expressionValues.put(inValue, values.get(i));
+                rendering.append(inValue);
                 if (i < values.size() - 1) {
-                    expressionBuilder.append(", ");
+                    rendering.append(", ");
                 }
             }
-            expressionBuilder.append(")");
+            rendering.append(")");
         } else {
-            expressionBuilder.append(expressionValue);
+            rendering.append(expressionValue);
+        }
+        rendering.append(")");
+        if (operator == Operator.NOT_IN) {
+            rendering.append(")");
         }
-        return expressionBuilder.toString();
     }
 
     /**
-     * Returns the expression-attribute values map, e.g.
+     * Writes the name of a field, resolved
+     * through the fieldMap and custom transformer.
+     */
+    @Override
+    protected void writeExpressionField(ExpressionField field, Rendering rendering) {
+        FieldResolution fieldResolution = rendering.getFieldResolution();
+        rendering.append(fieldResolution.targetName(fieldResolution.indexOf(field.infix())));
+    }
+
+    /**
+     * Writes a value rendered on its own as the
+     * {@code :value} placeholder, or a list of values
+     * as {@code (:value_0, :value_1)}, storing them in
+     * the expression-attribute values of the rendering.
+     */
+    @Override
+    protected void writeExpressionValue(ExpressionValue<? extends Comparable> value, Rendering rendering) {
+        Map<String, Object> expressionValues = ((DynamoDBRendering) rendering).expressionValues;
+        if (value.value() instanceof List) {
+            List<Comparable> values = (List<Comparable>) value.value();
+            rendering.append("(");
+            for (int i = 0; i < values.size(); i++) {
+                String inValue = ":value_" + i;
+                expressionValues.put(inValue, values.get(i));
+                rendering.append(inValue);
+                if (i < values.size() - 1) {
+                    rendering.append(", ");
+                }
+            }
+            rendering.append(")");
+        } else {
+            expressionValues.put(":value", value.value());
+            rendering.append(":value");
+        }
+    }
+
+    /**
+     * Returns the expression-attribute values map of the last
+     * expression rendered by {@link #expression(Expression)}, e.g.
      * {@code {":firstName": "Saurabh", ":min_age": 25}}.
-     * Use this to populate {@code ExpressionAttributeValues} on the DynamoDB request
-     * after converting each value to an {@code AttributeValue}.
+     * @deprecated the values of a visitor used by several threads
+     * race, use {@link #dynamoDBExpression(Expression)} instead.
      */
+    @Deprecated
     public Map<String, Object> getExpressionValues() {
-        return expressionValues;
+        DynamoDBExpression dynamoDBExpression = lastExpression;
+        return dynamoDBExpression == null ? Collections.emptyMap() : dynamoDBExpression.getExpressionValues();
     }
 
     /**
      * Returns the expression-attribute names map for aliasing reserved words.
      * Currently unused but available for callers that need {@code ExpressionAttributeNames}.
+     * @deprecated always empty, attribute names are not aliased.
      */
+    @Deprecated
     public Map<String, String> getExpressionNames() {
-        return expressionNames;
+        return Collections.emptyMap();
     }
 
-    private String resolveFieldName(String fieldName) {
-        if (fieldMap != null && fieldMap.get(fieldName) != null) {
-            return fieldMap.get(fieldName);
+    private ExpressionValue<? extends Comparable> getTransformedValue(FieldResolution fieldResolution, int field,
+                                                                      ExpressionValue<? extends Comparable> value) {
+        if (!fieldResolution.isValueTransformed(field)) {
+            return value;
         }
-        if (fieldValueTransformer != null
-                && fieldValueTransformer.transformField(fieldName) != null) {
-            return fieldValueTransformer.transformField(fieldName);
-        }
-        return fieldName;
+        return new ExpressionValue(fieldResolution.transformValue(field, value.value()));
     }
 
     /**
@@ -262,7 +261,8 @@ public class DynamoDBExpressionVisitor implements ExpressionVisitor<String> {
         }
     }
 
-    private String resolveOperator(Operator operator) {
+    @Override
+    protected String resolveOperator(Operator operator) {
         switch (operator) {
             case AND:
             case OR:
@@ -279,11 +279,15 @@ public class DynamoDBExpressionVisitor implements ExpressionVisitor<String> {
             case EQ:
             case EQUALS:
                 return "=";
+            case NE:
+            case NOT_EQUALS:
+                return "<>";
             case GTE:
                 return ">=";
             case LTE:
                 return "<=";
             case IN:
+            case NOT_IN:
                 return "IN";
             case BETWEEN:
                 return "BETWEEN";
@@ -291,4 +295,17 @@ public class DynamoDBExpressionVisitor implements ExpressionVisitor<String> {
                 return "";
         }
     }
+
+    /**
+     * Rendering collecting the expression-attribute
+     * values of the placeholders.
+     */
+    final class DynamoDBRendering extends Rendering {
+
+        private final Map<String, Object> expressionValues = new HashMap<>();
+
+        DynamoDBRendering(Appendable out, FieldResolution fieldResolution) {
+            super(out, fieldResolution);
+        }
+    }
 }
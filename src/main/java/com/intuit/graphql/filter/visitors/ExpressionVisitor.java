@@ -45,6 +45,20 @@ public interface ExpressionVisitor<T> {
      */
     public T expression(Expression expression);
 
+    /**
+     * Returns the final transformed expression, the
+     * fields being resolved by the given resolution
+     * rather than the field map and transformer of
+     * the visitor. Visitors which do not map fields
+     * ignore it.
+     * @param expression
+     * @param fieldResolution
+     * @return
+     */
+    public default T expression(Expression expression, FieldResolution fieldResolution) {
+        return expression(expression);
+    }
+
     /**
      * Handles the processing of compound
      * expression node.
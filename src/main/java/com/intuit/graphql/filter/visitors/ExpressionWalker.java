@@ -0,0 +1,164 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.visitors;
+
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.optimizer.UnsatisfiableExpression;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Walks an expression tree in post order using an
+ * explicit stack instead of recursion, so the depth
+ * of a filter is not limited by the thread stack.
+ *
+ * Compound and unary expressions are inner nodes,
+ * every other expression is a leaf. The visitors use
+ * the walker for the logical nodes and only accept
+ * the leaves, whose depth is fixed. A callback may
+ * treat an inner node as a leaf, or walk into the
+ * sub tree of an UnsatisfiableExpression, see
+ * Callback.descend().
+ */
+public final class ExpressionWalker {
+
+    private ExpressionWalker() {
+    }
+
+    /**
+     * Callbacks of a walk.
+     * @param <T>
+     *          Type of the result of a node.
+     */
+    public interface Callback<T> {
+
+        /**
+         * Returns true if the operands of the given expression
+         * are walked. Inner nodes are walked into unless it
+         * returns false, e.g. for a sub tree which was already
+         * processed. An UnsatisfiableExpression is walked into,
+         * with the sub tree it replaces as single operand, only
+         * if it returns true.
+         * @param expression
+         * @return
+         */
+        default boolean descend(Expression expression) {
+            return isInnerNode(expression);
+        }
+
+        /**
+         * Called before the operands of
+         * the expression are walked.
+         * @param expression
+         */
+        default void enter(Expression expression) {
+        }
+
+        /**
+         * Called between two operands of a compound
+         * expression, before the operand at the
+         * given index is walked.
+         * @param compoundExpression
+         * @param index
+         */
+        default void separate(CompoundExpression compoundExpression, int index) {
+        }
+
+        /**
+         * Called after the operands of the expression
+         * were walked, with their results in order.
+         * The results are empty for leaves and the
+         * expressions which are not walked into.
+         * @param expression
+         * @param results
+         * @return
+         *          Result of the expression.
+         */
+        T leave(Expression expression, List<T> results);
+    }
+
+    /**
+     * Walks the given expression tree and
+     * returns the result of its root.
+     * @param expression
+     * @param callback
+     * @param <T>
+     * @return
+     */
+    public static <T> T walk(Expression expression, Callback<T> callback) {
+        Deque<Frame<T>> stack = new ArrayDeque<>();
+        callback.enter(expression);
+        stack.push(new Frame<>(expression, callback.descend(expression)));
+        while (true) {
+            Frame<T> frame = stack.peek();
+            if (frame.next < frame.operands.size()) {
+                if (frame.next > 0) {
+                    callback.separate((CompoundExpression) frame.expression, frame.next);
+                }
+                Expression operand = frame.operands.get(frame.next++);
+                callback.enter(operand);
+                stack.push(new Frame<>(operand, callback.descend(operand)));
+                continue;
+            }
+            stack.pop();
+            T result = callback.leave(frame.expression, frame.results);
+            if (stack.isEmpty()) {
+                return result;
+            }
+            stack.peek().results.add(result);
+        }
+    }
+
+    /**
+     * Returns true if the given expression is
+     * walked into rather than treated as leaf.
+     * @param expression
+     * @return
+     */
+    public static boolean isInnerNode(Expression expression) {
+        return expression instanceof CompoundExpression || expression instanceof UnaryExpression;
+    }
+
+    private static final class Frame<T> {
+
+        private final Expression expression;
+        private final List<Expression> operands;
+        private final List<T> results;
+        private int next;
+
+        Frame(Expression expression, boolean descend) {
+            this.expression = expression;
+            if (!descend) {
+                this.operands = Collections.emptyList();
+            } else if (expression instanceof CompoundExpression) {
+                this.operands = ((CompoundExpression) expression).getOperands();
+            } else if (expression instanceof UnaryExpression) {
+                this.operands = Collections.singletonList(((UnaryExpression) expression).getLeftOperand());
+            } else if (expression instanceof UnsatisfiableExpression) {
+                this.operands = Collections.singletonList(((UnsatisfiableExpression) expression).getExpression());
+            } else {
+                this.operands = Collections.emptyList();
+            }
+            this.results = operands.isEmpty() ? Collections.emptyList() : new ArrayList<>(operands.size());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.visitors;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.client.FieldValuePair;
+import com.intuit.graphql.filter.client.FieldValueTransformer;
+import com.intuit.graphql.filter.optimizer.UnsatisfiableExpression;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the field names of an expression tree
+ * through the field map and the field value transformer
+ * once per name. The target name of a field and whether
+ * its values are transformed are kept in arrays, looked
+ * up by the index of the field, so rendering does not
+ * call the field map or the transformer per node.
+ *
+ * A field mapped by the field map keeps its values,
+ * a field renamed by the transformer has its values
+ * transformed as well.
+ *
+ * A resolution is built for the fields of a single
+ * tree and is not modified afterwards, so it is safe
+ * for concurrent use by the visitors rendering it.
+ */
+public final class FieldResolution {
+
+    private final FieldValueTransformer fieldValueTransformer;
+    private final String[] fieldNames;
+    private final String[] targetNames;
+    private final boolean[] valueTransformed;
+    private final Map<String, Integer> indexes;
+
+    private FieldResolution(Set<String> fieldNames, Map<String, String> fieldMap,
+                            FieldValueTransformer fieldValueTransformer) {
+        this.fieldValueTransformer = fieldValueTransformer;
+        this.fieldNames = new String[fieldNames.size()];
+        this.targetNames = new String[fieldNames.size()];
+        this.valueTransformed = new boolean[fieldNames.size()];
+        this.indexes = new HashMap<>((int) (fieldNames.size() / 0.75f) + 1);
+        int index = 0;
+        for (String fieldName : fieldNames) {
+            String targetName = fieldMap == null ? null : fieldMap.get(fieldName);
+            boolean transformed = false;
+            if (targetName == null && fieldValueTransformer != null) {
+                targetName = fieldValueTransformer.transformField(fieldName);
+                transformed = targetName != null;
+            }
+            this.fieldNames[index] = fieldName;
+            this.targetNames[index] = targetName == null ? fieldName : targetName;
+            this.valueTransformed[index] = transformed;
+            indexes.put(fieldName, index++);
+        }
+    }
+
+    /**
+     * Resolves the fields of the given expression
+     * tree through the given field map and transformer.
+     * @param expression
+     * @param fieldMap
+     * @param fieldValueTransformer
+     * @return
+     */
+    public static FieldResolution of(Expression expression, Map<String, String> fieldMap,
+                                     FieldValueTransformer fieldValueTransformer) {
+        Set<String> fieldNames = new LinkedHashSet<>();
+        collectFieldNames(expression, fieldNames);
+        return new FieldResolution(fieldNames, fieldMap, fieldValueTransformer);
+    }
+
+    /**
+     * Returns the index of the given field name.
+     * @param fieldName
+     * @return
+     * @throws IllegalArgumentException if the field is not
+     *          in the expression tree of the resolution.
+     */
+    public int indexOf(String fieldName) {
+        Integer index = indexes.get(fieldName);
+        if (index == null) {
+            throw new IllegalArgumentException("Field " + fieldName + " is not resolved");
+        }
+        return index;
+    }
+
+    /**
+     * Returns the name the field of the
+     * given index is rendered with.
+     * @param index
+     * @return
+     */
+    public String targetName(int index) {
+        return targetNames[index];
+    }
+
+    /**
+     * Returns true if the values of the field of
+     * the given index go through the transformer.
+     * @param index
+     * @return
+     */
+    public boolean isValueTransformed(int index) {
+        return valueTransformed[index];
+    }
+
+    /**
+     * Returns the value of the field of the given index
+     * as it is rendered, the given one unless the field
+     * is transformed and the transformer returns a value.
+     * @param index
+     * @param value
+     * @return
+     */
+    public Object transformValue(int index, Object value) {
+        if (!valueTransformed[index]) {
+            return value;
+        }
+        FieldValuePair fieldValuePair = fieldValueTransformer.transformValue(fieldNames[index], value);
+        if (fieldValuePair != null && fieldValuePair.getValue() != null) {
+            return fieldValuePair.getValue();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of resolved fields.
+     * @return
+     */
+    public int size() {
+        return fieldNames.length;
+    }
+
+    private static void collectFieldNames(Expression expression, Set<String> fieldNames) {
+        if (expression == null) {
+            return;
+        }
+        ExpressionWalker.walk(expression, new ExpressionWalker.Callback<Void>() {
+            @Override
+            public boolean descend(Expression node) {
+                return ExpressionWalker.isInnerNode(node) || node instanceof UnsatisfiableExpression;
+            }
+
+            @Override
+            public void enter(Expression node) {
+                if (node instanceof BinaryExpression) {
+                    fieldNames.add(((BinaryExpression) node).getLeftOperand().infix());
+                } else if (node instanceof ExpressionField) {
+                    fieldNames.add(node.infix());
+                }
+            }
+
+            @Override
+            public Void leave(Expression node, List<Void> results) {
+                return null;
+            }
+        });
+    }
+}
@@ -16,16 +16,11 @@
 package com.intuit.graphql.filter.visitors;
 
 import com.intuit.graphql.filter.ast.BinaryExpression;
-import com.intuit.graphql.filter.ast.CompoundExpression;
-import com.intuit.graphql.filter.ast.UnaryExpression;
-import com.intuit.graphql.filter.ast.Expression;
 import com.intuit.graphql.filter.ast.ExpressionField;
 import com.intuit.graphql.filter.ast.ExpressionValue;
-import com.intuit.graphql.filter.client.FieldValuePair;
+import com.intuit.graphql.filter.ast.Operator;
 import com.intuit.graphql.filter.client.FieldValueTransformer;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.Map;
 
 /**
@@ -36,142 +31,65 @@ import java.util.Map;
  *
  * @author sjaiswal
  */
-public class InfixExpressionVisitor implements ExpressionVisitor<String> {
-
-    private Map<String, String> fieldMap;
-    private Deque<ExpressionField> fieldStack;
-    private FieldValueTransformer fieldValueTransformer;
+public class InfixExpressionVisitor extends AbstractStringExpressionVisitor {
 
     public InfixExpressionVisitor(Map<String,String> fieldMap, FieldValueTransformer fieldValueTransformer) {
-        this.fieldMap = fieldMap;
-        this.fieldStack = new ArrayDeque<>();
-        this.fieldValueTransformer = fieldValueTransformer;
+        super(fieldMap, fieldValueTransformer);
     }
 
     /**
-     * Returns the infix string version
-     * of the expression tree.
-     * @return
-     * @param expression
-     */
-    @Override
-    public String expression(Expression expression) {
-        String expressionString = "";
-        if (expression != null) {
-            expressionString = expression.accept(this, expressionString);
-        }
-        return expressionString;
-    }
-
-    /**
-     * Handles the processing of compound
-     * expression node.
-     * @param compoundExpression
-     *          Contains compound expression.
-     * @param data
-     *          Buffer for storing processed data.
-     * @return
-     *          Data of processed node.
+     * Writes (field OP value) for a comparison.
+     * @param binaryExpression
+     * @param rendering
      */
     @Override
-    public String visitCompoundExpression(CompoundExpression compoundExpression, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        expressionBuilder.append("(")
-                        .append(compoundExpression.getLeftOperand().accept(this, ""))
-                        .append(" ").append(compoundExpression.getOperator().getName()).append(" ")
-                        .append(compoundExpression.getRightOperand().accept(this, ""))
-                        .append(")");
-        return expressionBuilder.toString();
+    protected void writeBinaryExpression(BinaryExpression binaryExpression, Rendering rendering) {
+        FieldResolution fieldResolution = rendering.getFieldResolution();
+        int field = fieldResolution.indexOf(binaryExpression.getLeftOperand().infix());
+        ExpressionValue<? extends Comparable> value = (ExpressionValue<? extends Comparable>) binaryExpression.getRightOperand();
+        rendering.append("(").append(fieldResolution.targetName(field))
+                .append(" ").append(binaryExpression.getOperator().getName()).append(" ")
+                .append(getTransformedValue(fieldResolution, field, value).value())
+                .append(")");
     }
 
     /**
-     * Handles the processing of binary
-     * expression node.
-     * @param binaryExpression
-     *          Contains binary expression.
-     * @param data
-     *          Buffer for storing processed data.
-     * @return
-     *          Data of processed node.
+     * Writes the mapped name of a field.
+     * @param field
+     * @param rendering
      */
     @Override
-    public String visitBinaryExpression(BinaryExpression binaryExpression, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        expressionBuilder.append("(")
-                        .append(binaryExpression.getLeftOperand().accept(this, ""))
-                        .append(" ").append(binaryExpression.getOperator().getName()).append(" ")
-                        .append(binaryExpression.getRightOperand().accept(this, ""))
-                        .append(")");
-        return expressionBuilder.toString();
-
+    protected void writeExpressionField(ExpressionField field, Rendering rendering) {
+        FieldResolution fieldResolution = rendering.getFieldResolution();
+        rendering.append(fieldResolution.targetName(fieldResolution.indexOf(field.infix())));
     }
 
     /**
-     * Handles the processing of unary
-     * expression node.
-     * @param unaryExpression
-     *          Contains unary expression.
-     * @param data
-     *          Buffer for storing processed data.
-     * @return
-     *          Data of processed node.
+     * Writes a value as it is.
+     * @param value
+     * @param rendering
      */
     @Override
-    public String visitUnaryExpression(UnaryExpression unaryExpression, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        expressionBuilder.append("(")
-                .append(" ").append(unaryExpression.getOperator()).append(" ")
-                .append(unaryExpression.getLeftOperand().accept(this, ""))
-                .append(")");
-        return expressionBuilder.toString();
+    protected void writeExpressionValue(ExpressionValue<? extends Comparable> value, Rendering rendering) {
+        rendering.append(value.value());
     }
 
     /**
-     * Handles the processing of expression
-     * field node.
-     * @param field
-     *          Contains expression field.
-     * @param data
-     *          Buffer for storing processed data.
+     * Returns the name of logical operators, the
+     * negation being written in upper case.
+     * @param operator
      * @return
-     *          Data of processed node.
      */
     @Override
-    public String visitExpressionField(ExpressionField field, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        if (fieldMap != null && fieldMap.get(field.infix()) != null) {
-            expressionBuilder.append(fieldMap.get(field.infix()));
-        } else if (fieldValueTransformer != null && fieldValueTransformer.transformField(field.infix()) != null) {
-            expressionBuilder.append(fieldValueTransformer.transformField(field.infix()));
-            fieldStack.push(field); //pushing the field for lookup while visiting value.
-        } else {
-            expressionBuilder.append(field.infix());
-        }
-        return expressionBuilder.toString();
+    protected String resolveOperator(Operator operator) {
+        return operator == Operator.NOT ? operator.name() : operator.getName();
     }
 
-    /**
-     * Handles the processing of expression
-     * value node.
-     * @param value
-     *          Contains expression value.
-     * @param data
-     *          Buffer for storing processed data.
-     * @return
-     *          Data of processed node.
-     */
-    @Override
-    public String visitExpressionValue(ExpressionValue<? extends Comparable> value, String data) {
-        if (!fieldStack.isEmpty() && fieldValueTransformer != null) {
-            ExpressionField field  = fieldStack.pop(); // pop the field associated with this value.
-            FieldValuePair fieldValuePair = fieldValueTransformer.transformValue(field.infix(),value.value());
-            if (fieldValuePair != null && fieldValuePair.getValue() != null) {
-                value = new ExpressionValue(fieldValuePair.getValue());
-            }
+    private ExpressionValue<? extends Comparable> getTransformedValue(FieldResolution fieldResolution, int field,
+                                                                      ExpressionValue<? extends Comparable> value) {
+        if (!fieldResolution.isValueTransformed(field)) {
+            return value;
         }
-
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        expressionBuilder.append(value.value());
-        return expressionBuilder.toString();
+        return new ExpressionValue(fieldResolution.transformValue(field, value.value()));
     }
 }
@@ -21,7 +21,6 @@ import com.intuit.graphql.filter.ast.UnaryExpression;
 import com.intuit.graphql.filter.ast.Expression;
 import com.intuit.graphql.filter.ast.ExpressionField;
 import com.intuit.graphql.filter.ast.ExpressionValue;
-import com.intuit.graphql.filter.client.FieldValuePair;
 import com.intuit.graphql.filter.client.FieldValueTransformer;
 import org.springframework.data.jpa.domain.Specification;
 
@@ -30,8 +29,7 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -45,14 +43,20 @@ import java.util.Map;
  */
 public class JpaSpecificationExpressionVisitor<T> implements ExpressionVisitor<Specification<T>>{
 
-    private Map<String, String> fieldMap;
-    private Deque<String> fieldStack;
-    private FieldValueTransformer fieldValueTransformer;
+    private final Map<String, String> fieldMap;
+    private final FieldValueTransformer fieldValueTransformer;
+    /* Resolution of the fields of the expression being visited, null until bound, see bind().*/
+    private final FieldResolution fieldResolution;
 
     public JpaSpecificationExpressionVisitor(Map<String, String> fieldMap, FieldValueTransformer fieldValueTransformer) {
+        this(fieldMap, fieldValueTransformer, null);
+    }
+
+    private JpaSpecificationExpressionVisitor(Map<String, String> fieldMap, FieldValueTransformer fieldValueTransformer,
+            FieldResolution fieldResolution) {
         this.fieldMap = fieldMap;
-        this.fieldStack = new ArrayDeque<>();
         this.fieldValueTransformer = fieldValueTransformer;
+        this.fieldResolution = fieldResolution;
     }
 
     /**
@@ -63,9 +67,22 @@ public class JpaSpecificationExpressionVisitor<T> implements ExpressionVisitor<S
      */
     @Override
     public Specification<T> expression(Expression expression) {
+        return expression(expression, resolve(expression));
+    }
+
+    /**
+     * Returns the specification from the expression tree,
+     * its fields resolved by the given resolution.
+     * @param expression
+     * @param fieldResolution
+     * @return
+     */
+    @Override
+    public Specification<T> expression(Expression expression, FieldResolution fieldResolution) {
         Specification<T> specification = null;
         if (expression != null){
-            specification = expression.accept(this, null);
+            specification = expression.accept(
+                    new JpaSpecificationExpressionVisitor<>(fieldMap, fieldValueTransformer, fieldResolution), null);
         }
         return specification;
     }
@@ -82,25 +99,50 @@ public class JpaSpecificationExpressionVisitor<T> implements ExpressionVisitor<S
      */
     @Override
     public Specification<T> visitCompoundExpression(CompoundExpression compoundExpression, Specification<T> data) {
+        return ExpressionWalker.walk(compoundExpression, bind(compoundExpression)::combine);
+    }
+
+    /**
+     * Combines the specifications of the operands of a logical
+     * expression, or accepts the expression if it is a leaf.
+     */
+    private Specification<T> combine(Expression expression, List<Specification<T>> operands) {
         Specification<T> result = null;
-        switch (compoundExpression.getOperator()) {
-            /* Logical operations.*/
-            case AND:
-                Specification<T> left = compoundExpression.getLeftOperand().accept(this, null);
-                Specification<T> right = compoundExpression.getRightOperand().accept(this, null);
-                result = Specification.where(left).and(right);
-
-                break;
-
-            case OR:
-                left = compoundExpression.getLeftOperand().accept(this, null);
-                right = compoundExpression.getRightOperand().accept(this, null);
-                result = Specification.where(left).or(right);
-                break;
+        if (expression instanceof CompoundExpression) {
+            List<Specification<T>> specifications = new ArrayList<>(operands);
+            switch (((CompoundExpression) expression).getOperator()) {
+                /* Logical operations.*/
+                case AND:
+                    result = (root, criteriaQuery, criteriaBuilder) ->
+                            criteriaBuilder.and(toPredicates(specifications, root, criteriaQuery, criteriaBuilder));
+                    break;
+
+                case OR:
+                    result = (root, criteriaQuery, criteriaBuilder) ->
+                            criteriaBuilder.or(toPredicates(specifications, root, criteriaQuery, criteriaBuilder));
+                    break;
+            }
+        } else if (expression instanceof UnaryExpression) {
+            result = Specification.not(operands.get(0));
+        } else {
+            result = expression.accept(this, null);
         }
         return result;
     }
 
+    private Predicate[] toPredicates(List<Specification<T>> specifications, Root<T> root,
+                                     CriteriaQuery<?> criteriaQuery, CriteriaBuilder criteriaBuilder) {
+        List<Predicate> predicates = new ArrayList<>(specifications.size());
+        for (Specification<T> specification : specifications) {
+            Predicate predicate = specification == null ? null
+                    : specification.toPredicate(root, criteriaQuery, criteriaBuilder);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
     /**
      * Handles the processing of binary
      * expression node.
@@ -113,6 +155,9 @@ public class JpaSpecificationExpressionVisitor<T> implements ExpressionVisitor<S
      */
     @Override
     public Specification<T> visitBinaryExpression(BinaryExpression binaryExpression, Specification<T> data) {
+        if (fieldResolution == null) {
+            return bind(binaryExpression).visitBinaryExpression(binaryExpression, data);
+        }
 
         return new Specification<T>() {
             @Override
@@ -121,8 +166,9 @@ public class JpaSpecificationExpressionVisitor<T> implements ExpressionVisitor<S
 
                 ExpressionValue<? extends Comparable> operandValue = (ExpressionValue<? extends Comparable>)binaryExpression.getRightOperand();
                 Predicate predicate = null;
-                String fieldName = mappedFieldName(binaryExpression.getLeftOperand().infix());
-                operandValue = getTransformedValue(operandValue);
+                int field = fieldResolution.indexOf(binaryExpression.getLeftOperand().infix());
+                String fieldName = fieldResolution.targetName(field);
+                operandValue = getTransformedValue(field, operandValue);
                 Path path = root.get(fieldName);
 
                 switch (binaryExpression.getOperator()) {
@@ -143,6 +189,10 @@ public class JpaSpecificationExpressionVisitor<T> implements ExpressionVisitor<S
                         predicate = criteriaBuilder.equal(path,  operandValue.value());
                         break;
 
+                    case NOT_EQUALS:
+                        predicate = criteriaBuilder.notEqual(path,  operandValue.value());
+                        break;
+
                     /* Numeric operations.*/
                     case LT:
                         predicate = criteriaBuilder.lessThan(path, operandValue.value());
@@ -160,6 +210,14 @@ public class JpaSpecificationExpressionVisitor<T> implements ExpressionVisitor<S
                         }
                         break;
 
+                    case NE:
+                        if (operandValue.value() == null) {
+                            predicate = criteriaBuilder.isNotNull(path);
+                        } else {
+                            predicate = criteriaBuilder.notEqual(path, operandValue.value());
+                        }
+                        break;
+
                     case GT:
                         predicate = criteriaBuilder.greaterThan(path, operandValue.value());
                         break;
@@ -173,6 +231,11 @@ public class JpaSpecificationExpressionVisitor<T> implements ExpressionVisitor<S
                         predicate = criteriaBuilder.in(path).value(expressionInValues);
                         break;
 
+                    case NOT_IN:
+                        List<Comparable> expressionNotInValues = (List<Comparable>)operandValue.value();
+                        predicate = criteriaBuilder.in(path).value(expressionNotInValues).not();
+                        break;
+
                     case BETWEEN:
                         List<Comparable> expressionBetweenValues = (List<Comparable>)operandValue.value();
                         predicate = criteriaBuilder.between(path,expressionBetweenValues.get(0),expressionBetweenValues.get(1));
@@ -195,8 +258,7 @@ public class JpaSpecificationExpressionVisitor<T> implements ExpressionVisitor<S
      */
     @Override
     public Specification<T> visitUnaryExpression(UnaryExpression unaryExpression, Specification<T> data) {
-        Specification<T> left = unaryExpression.getLeftOperand().accept(this, null);
-        return Specification.not(left);
+        return ExpressionWalker.walk(unaryExpression, bind(unaryExpression)::combine);
     }
 
     /**
@@ -231,27 +293,24 @@ public class JpaSpecificationExpressionVisitor<T> implements ExpressionVisitor<S
         return null;
     }
 
-    private String mappedFieldName(String fieldName) {
-        StringBuilder expressionBuilder = new StringBuilder();
-        if (fieldMap != null && fieldMap.get(fieldName) != null) {
-            expressionBuilder.append(fieldMap.get(fieldName));
-        } else if (fieldValueTransformer != null && fieldValueTransformer.transformField(fieldName) != null) {
-            expressionBuilder.append(fieldValueTransformer.transformField(fieldName));
-            fieldStack.push(fieldName); //pushing the field for lookup while visiting value.
-        } else {
-            expressionBuilder.append(fieldName);
-        }
-        return expressionBuilder.toString();
+    /**
+     * Returns this visitor if it is bound to a resolution,
+     * otherwise a visitor bound to the fields of the given
+     * sub tree, e.g. when a node is visited on its own.
+     */
+    private JpaSpecificationExpressionVisitor<T> bind(Expression expression) {
+        return fieldResolution != null ? this
+                : new JpaSpecificationExpressionVisitor<>(fieldMap, fieldValueTransformer, resolve(expression));
     }
 
-    private ExpressionValue getTransformedValue(ExpressionValue<? extends Comparable> value) {
-        if (!fieldStack.isEmpty() && fieldValueTransformer != null) {
-            String field  = fieldStack.pop(); // pop the field associated with this value.
-            FieldValuePair fieldValuePair = fieldValueTransformer.transformValue(field,value.value());
-            if (fieldValuePair != null && fieldValuePair.getValue() != null) {
-                value = new ExpressionValue(fieldValuePair.getValue());
-            }
+    private FieldResolution resolve(Expression expression) {
+        return FieldResolution.of(expression, fieldMap, fieldValueTransformer);
+    }
+
+    private ExpressionValue getTransformedValue(int field, ExpressionValue<? extends Comparable> value) {
+        if (!fieldResolution.isValueTransformed(field)) {
+            return value;
         }
-        return value;
+        return new ExpressionValue(fieldResolution.transformValue(field, value.value()));
     }
 }
@@ -21,12 +21,9 @@ import com.intuit.graphql.filter.ast.Expression;
 import com.intuit.graphql.filter.ast.ExpressionField;
 import com.intuit.graphql.filter.ast.ExpressionValue;
 import com.intuit.graphql.filter.ast.UnaryExpression;
-import com.intuit.graphql.filter.client.FieldValuePair;
 import com.intuit.graphql.filter.client.FieldValueTransformer;
 import org.springframework.data.mongodb.core.query.Criteria;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 
@@ -43,13 +40,19 @@ public class MongoCriteriaExpressionVisitor<T> implements ExpressionVisitor<Crit
     private static final String END_ANCHOR = "$";
 
     private final Map<String, String> fieldMap;
-    private final Deque<String> fieldStack;
     private final FieldValueTransformer fieldValueTransformer;
+    /* Resolution of the fields of the expression being visited, null until bound, see bind().*/
+    private final FieldResolution fieldResolution;
 
     public MongoCriteriaExpressionVisitor(final Map<String, String> fieldMap, final FieldValueTransformer fieldValueTransformer) {
+        this(fieldMap, fieldValueTransformer, null);
+    }
+
+    private MongoCriteriaExpressionVisitor(final Map<String, String> fieldMap, final FieldValueTransformer fieldValueTransformer,
+            final FieldResolution fieldResolution) {
         this.fieldMap = fieldMap;
-        this.fieldStack = new ArrayDeque<>();
         this.fieldValueTransformer = fieldValueTransformer;
+        this.fieldResolution = fieldResolution;
     }
 
     /**
@@ -60,9 +63,23 @@ public class MongoCriteriaExpressionVisitor<T> implements ExpressionVisitor<Crit
      */
     @Override
     public Criteria expression(final Expression expression) {
+        return expression(expression, resolve(expression));
+    }
+
+    /**
+     * Returns the criteria from the expression tree,
+     * its fields resolved by the given resolution.
+     *
+     * @param expression      The {@link Expression} instance.
+     * @param fieldResolution The resolution of the fields of the expression.
+     * @return A criteria built from the expression.
+     */
+    @Override
+    public Criteria expression(final Expression expression, final FieldResolution fieldResolution) {
         Criteria criteria = null;
         if (expression != null) {
-            criteria = expression.accept(this, null);
+            criteria = expression.accept(new MongoCriteriaExpressionVisitor<>(fieldMap, fieldValueTransformer, fieldResolution),
+                    null);
         }
         return criteria;
     }
@@ -76,20 +93,31 @@ public class MongoCriteriaExpressionVisitor<T> implements ExpressionVisitor<Crit
      */
     @Override
     public Criteria visitCompoundExpression(final CompoundExpression compoundExpression, final Criteria data) {
+        return ExpressionWalker.walk(compoundExpression, bind(compoundExpression)::combine);
+    }
+
+    /**
+     * Combines the criteria of the operands of a logical
+     * expression, or accepts the expression if it is a leaf.
+     */
+    private Criteria combine(final Expression expression, final List<Criteria> operands) {
         Criteria result = null;
-        switch (compoundExpression.getOperator()) {
-            /* Logical operations.*/
-            case AND:
-                Criteria left = compoundExpression.getLeftOperand().accept(this, null);
-                Criteria right = compoundExpression.getRightOperand().accept(this, null);
-                result = new Criteria().andOperator(left, right);
-                break;
+        if (expression instanceof CompoundExpression) {
+            Criteria[] criteria = operands.toArray(new Criteria[0]);
+            switch (((CompoundExpression) expression).getOperator()) {
+                /* Logical operations.*/
+                case AND:
+                    result = new Criteria().andOperator(criteria);
+                    break;
 
-            case OR:
-                left = compoundExpression.getLeftOperand().accept(this, null);
-                right = compoundExpression.getRightOperand().accept(this, null);
-                result = new Criteria().orOperator(left, right);
-                break;
+                case OR:
+                    result = new Criteria().orOperator(criteria);
+                    break;
+            }
+        } else if (expression instanceof UnaryExpression) {
+            result = new Criteria().norOperator(operands.get(0));
+        } else {
+            result = expression.accept(this, null);
         }
         return result;
     }
@@ -103,10 +131,14 @@ public class MongoCriteriaExpressionVisitor<T> implements ExpressionVisitor<Crit
      */
     @Override
     public Criteria visitBinaryExpression(final BinaryExpression binaryExpression, final Criteria data) {
+        if (fieldResolution == null) {
+            return bind(binaryExpression).visitBinaryExpression(binaryExpression, data);
+        }
         Criteria criteria = null;
-        final String fieldName = mappedFieldName(binaryExpression.getLeftOperand().infix());
+        final int field = fieldResolution.indexOf(binaryExpression.getLeftOperand().infix());
+        final String fieldName = fieldResolution.targetName(field);
         ExpressionValue<? extends Comparable> operandValue = (ExpressionValue<? extends Comparable>) binaryExpression.getRightOperand();
-        operandValue = getTransformedValue(operandValue);
+        operandValue = getTransformedValue(field, operandValue);
 
         switch (binaryExpression.getOperator()) {
             /* String operations.*/
@@ -126,6 +158,10 @@ public class MongoCriteriaExpressionVisitor<T> implements ExpressionVisitor<Crit
                 criteria = Criteria.where(fieldName).is(operandValue.value());
                 break;
 
+            case NOT_EQUALS:
+                criteria = Criteria.where(fieldName).ne(operandValue.value());
+                break;
+
             /* Numeric operations.*/
             case LT:
                 criteria = Criteria.where(fieldName).lt(operandValue.value());
@@ -139,6 +175,10 @@ public class MongoCriteriaExpressionVisitor<T> implements ExpressionVisitor<Crit
                 criteria = Criteria.where(fieldName).is(operandValue.value());
                 break;
 
+            case NE:
+                criteria = Criteria.where(fieldName).ne(operandValue.value());
+                break;
+
             case GT:
                 criteria = Criteria.where(fieldName).gt(operandValue.value());
                 break;
@@ -152,6 +192,11 @@ public class MongoCriteriaExpressionVisitor<T> implements ExpressionVisitor<Crit
                 criteria = Criteria.where(fieldName).in(expressionInValues);
                 break;
 
+            case NOT_IN:
+                List<Comparable> expressionNotInValues = (List<Comparable>) operandValue.value();
+                criteria = Criteria.where(fieldName).nin(expressionNotInValues);
+                break;
+
             case BETWEEN:
                 List<Comparable> expressionBetweenValues = (List<Comparable>) operandValue.value();
                 criteria = Criteria.where(fieldName).gte(expressionBetweenValues.get(0)).lte(expressionBetweenValues.get(1));
@@ -169,8 +214,7 @@ public class MongoCriteriaExpressionVisitor<T> implements ExpressionVisitor<Crit
      */
     @Override
     public Criteria visitUnaryExpression(final UnaryExpression unaryExpression, final Criteria data) {
-        final Criteria left = unaryExpression.getLeftOperand().accept(this, null);
-        return new Criteria().norOperator(left);
+        return ExpressionWalker.walk(unaryExpression, bind(unaryExpression)::combine);
     }
 
     /**
@@ -199,28 +243,25 @@ public class MongoCriteriaExpressionVisitor<T> implements ExpressionVisitor<Crit
         return null;
     }
 
-    private String mappedFieldName(final String fieldName) {
-        String mappedFieldName;
-        if (fieldMap != null && fieldMap.get(fieldName) != null) {
-            mappedFieldName = fieldMap.get(fieldName);
-        } else if (fieldValueTransformer != null && fieldValueTransformer.transformField(fieldName) != null) {
-            mappedFieldName = fieldValueTransformer.transformField(fieldName);
-            fieldStack.push(fieldName); //pushing the field for lookup while visiting value.
-        } else {
-            mappedFieldName = fieldName;
-        }
-        return mappedFieldName;
+    /**
+     * Returns this visitor if it is bound to a resolution,
+     * otherwise a visitor bound to the fields of the given
+     * sub tree, e.g. when a node is visited on its own.
+     */
+    private MongoCriteriaExpressionVisitor<T> bind(final Expression expression) {
+        return fieldResolution != null ? this
+                : new MongoCriteriaExpressionVisitor<>(fieldMap, fieldValueTransformer, resolve(expression));
     }
 
-    private ExpressionValue getTransformedValue(final ExpressionValue<? extends Comparable> value) {
-        if (!fieldStack.isEmpty() && fieldValueTransformer != null) {
-            final String field = fieldStack.pop(); // pop the field associated with this value.
-            final FieldValuePair fieldValuePair = fieldValueTransformer.transformValue(field, value.value());
-            if (fieldValuePair != null && fieldValuePair.getValue() != null) {
-                return new ExpressionValue(fieldValuePair.getValue());
-            }
+    private FieldResolution resolve(final Expression expression) {
+        return FieldResolution.of(expression, fieldMap, fieldValueTransformer);
+    }
+
+    private ExpressionValue getTransformedValue(final int field, final ExpressionValue<? extends Comparable> value) {
+        if (!fieldResolution.isValueTransformed(field)) {
+            return value;
         }
-        return value;
+        return new ExpressionValue(fieldResolution.transformValue(field, value.value()));
     }
 
 }
@@ -0,0 +1,88 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.visitors;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL WHERE clause with placeholders along with
+ * the ordered list of values to bind to them.
+ * Filters of the same shape always produce the
+ * same WHERE clause.
+ */
+public class ParameterizedSQL {
+
+    private final String expression;
+    private final List<SQLParameter> parameters;
+
+    ParameterizedSQL(String expression, List<SQLParameter> parameters) {
+        this.expression = expression;
+        this.parameters = Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * Returns the SQL WHERE clause with placeholders.
+     * @return
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Returns the bind parameters in placeholder order.
+     * @return
+     */
+    public List<SQLParameter> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the bind values in placeholder order,
+     * e.g. for {@code JdbcTemplate.query(sql, values, mapper)}.
+     * @return
+     */
+    public Object[] getValues() {
+        Object[] values = new Object[parameters.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = parameters.get(i).getValue();
+        }
+        return values;
+    }
+
+    /**
+     * Returns the bind values keyed by placeholder name,
+     * e.g. for {@code NamedParameterJdbcTemplate}. Empty
+     * for positional placeholders.
+     * @return
+     */
+    public Map<String, Object> getNamedValues() {
+        Map<String, Object> namedValues = new LinkedHashMap<>();
+        for (SQLParameter parameter : parameters) {
+            if (parameter.getName() != null) {
+                namedValues.put(parameter.getName(), parameter.getValue());
+            }
+        }
+        return namedValues;
+    }
+
+    @Override
+    public String toString() {
+        return expression + " " + parameters;
+    }
+}
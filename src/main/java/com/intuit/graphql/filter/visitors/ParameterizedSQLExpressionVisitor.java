@@ -0,0 +1,162 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.visitors;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.client.FieldValueTransformer;
+
+import java.util.Map;
+
+/**
+ * This class is responsible for traversing
+ * the expression tree and generating an SQL
+ * WHERE clause with placeholders in place of
+ * values, along with the values to bind.
+ */
+public class ParameterizedSQLExpressionVisitor implements ExpressionVisitor<ParameterizedSQL> {
+
+    private final SQLExpressionVisitor sqlExpressionVisitor;
+
+    public ParameterizedSQLExpressionVisitor(Map<String,String> fieldMap, FieldValueTransformer fieldValueTransformer,
+                                             SQLExpressionVisitor.ParameterStyle parameterStyle) {
+        this.sqlExpressionVisitor = new SQLExpressionVisitor(fieldMap, fieldValueTransformer, parameterStyle);
+    }
+
+    /**
+     * Returns the parameterized SQL WHERE
+     * clause from the expression tree.
+     * @return
+     * @param expression
+     */
+    @Override
+    public ParameterizedSQL expression(Expression expression) {
+        return expression(expression, sqlExpressionVisitor.resolve(expression));
+    }
+
+    /**
+     * Returns the parameterized SQL WHERE clause from the
+     * expression tree, its fields resolved by the given
+     * resolution.
+     * @param expression
+     * @param fieldResolution
+     * @return
+     */
+    @Override
+    public ParameterizedSQL expression(Expression expression, FieldResolution fieldResolution) {
+        StringBuilder expressionBuilder = new StringBuilder(64);
+        SQLExpressionVisitor.SQLRendering rendering = sqlExpressionVisitor.newRendering(expressionBuilder, fieldResolution);
+        sqlExpressionVisitor.write(expression, rendering);
+        return new ParameterizedSQL(expressionBuilder.toString(), rendering.getParameters());
+    }
+
+    /**
+     * Handles the processing of compound
+     * expression node.
+     * @param compoundExpression
+     *          Contains compound expression.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public ParameterizedSQL visitCompoundExpression(CompoundExpression compoundExpression, ParameterizedSQL data) {
+        return render(compoundExpression, data);
+    }
+
+    /**
+     * Handles the processing of binary
+     * expression node.
+     * @param binaryExpression
+     *          Contains binary expression.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public ParameterizedSQL visitBinaryExpression(BinaryExpression binaryExpression, ParameterizedSQL data) {
+        return render(binaryExpression, data);
+    }
+
+    /**
+     * Handles the processing of unary
+     * expression node.
+     * @param unaryExpression
+     *          Contains unary expression.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public ParameterizedSQL visitUnaryExpression(UnaryExpression unaryExpression, ParameterizedSQL data) {
+        return render(unaryExpression, data);
+    }
+
+    /**
+     * Handles the processing of expression
+     * field node.
+     * @param field
+     *          Contains expression field.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public ParameterizedSQL visitExpressionField(ExpressionField field, ParameterizedSQL data) {
+        return render(field, data);
+    }
+
+    /**
+     * Handles the processing of expression
+     * value node.
+     * @param value
+     *          Contains expression value.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public ParameterizedSQL visitExpressionValue(ExpressionValue<? extends Comparable> value, ParameterizedSQL data) {
+        return render(value, data);
+    }
+
+    /**
+     * Returns the given data followed by the
+     * parameterized SQL of the given sub tree.
+     * The parameters of the sub tree follow those
+     * of the data, their indexes continuing on.
+     */
+    private ParameterizedSQL render(Expression expression, ParameterizedSQL data) {
+        String prefix = data == null ? "" : data.getExpression();
+        StringBuilder expressionBuilder = new StringBuilder(prefix);
+        SQLExpressionVisitor.SQLRendering rendering = sqlExpressionVisitor.newRendering(expressionBuilder,
+                sqlExpressionVisitor.resolve(expression));
+        if (data != null) {
+            rendering.getParameters().addAll(data.getParameters());
+        }
+        expression.accept(rendering, prefix);
+        return new ParameterizedSQL(expressionBuilder.toString(), rendering.getParameters());
+    }
+}
@@ -0,0 +1,717 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.visitors;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.client.FieldValueTransformer;
+import com.intuit.graphql.filter.client.InvalidFilterException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * This class is responsible for traversing
+ * the expression tree and compiling it into a
+ * java.util.function.Predicate for filtering
+ * in-memory rows. A row can be either a Map
+ * keyed by field name or a POJO exposing a
+ * getter or public field per filter field.
+ *
+ * The tree is visited once. Field names, values
+ * and the field value transformer are resolved
+ * while compiling, so testing a row only reads
+ * the field and compares it. When created for a
+ * row class, fields are bound to accessors generated
+ * for that class, see BeanAccessors.
+ */
+public class PredicateExpressionVisitor<T> implements ExpressionVisitor<Predicate<T>> {
+
+    private static final int INCOMPARABLE = Integer.MIN_VALUE;
+
+    private final Class<T> rowClass;
+    private final Map<String, String> fieldMap;
+    private final FieldValueTransformer fieldValueTransformer;
+    /* Resolution of the fields of the expression being compiled, null until bound, see bind().*/
+    private final FieldResolution fieldResolution;
+
+    public PredicateExpressionVisitor(Map<String, String> fieldMap, FieldValueTransformer fieldValueTransformer) {
+        this(null, fieldMap, fieldValueTransformer);
+    }
+
+    /**
+     * Creates a visitor compiling predicates for rows of the
+     * given class. Fields are bound to generated accessors of
+     * the class while compiling and numeric comparisons on
+     * primitive getters are done without boxing.
+     * @param rowClass
+     * @param fieldMap
+     * @param fieldValueTransformer
+     */
+    public PredicateExpressionVisitor(Class<T> rowClass, Map<String, String> fieldMap,
+                                      FieldValueTransformer fieldValueTransformer) {
+        this(rowClass, fieldMap, fieldValueTransformer, null);
+    }
+
+    private PredicateExpressionVisitor(Class<T> rowClass, Map<String, String> fieldMap,
+                                       FieldValueTransformer fieldValueTransformer, FieldResolution fieldResolution) {
+        this.rowClass = rowClass;
+        this.fieldMap = fieldMap;
+        this.fieldValueTransformer = fieldValueTransformer;
+        this.fieldResolution = fieldResolution;
+    }
+
+    /**
+     * Returns the predicate compiled from
+     * the expression tree.
+     * @return
+     * @param expression
+     */
+    @Override
+    public Predicate<T> expression(Expression expression) {
+        return expression(expression, resolve(expression));
+    }
+
+    /**
+     * Returns the predicate compiled from the expression
+     * tree, its fields resolved by the given resolution.
+     * @param expression
+     * @param fieldResolution
+     * @return
+     */
+    @Override
+    public Predicate<T> expression(Expression expression, FieldResolution fieldResolution) {
+        Predicate<T> predicate = null;
+        if (expression != null) {
+            predicate = expression.accept(
+                    new PredicateExpressionVisitor<>(rowClass, fieldMap, fieldValueTransformer, fieldResolution), null);
+        }
+        return predicate;
+    }
+
+    /**
+     * Handles the processing of compound
+     * expression node.
+     * @param compoundExpression
+     *          Contains compound expression.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public Predicate<T> visitCompoundExpression(CompoundExpression compoundExpression, Predicate<T> data) {
+        return ExpressionWalker.walk(compoundExpression, bind(compoundExpression)::combine);
+    }
+
+    /**
+     * Combines the predicates of the operands of a logical
+     * expression, or accepts the expression if it is a leaf.
+     */
+    private Predicate<T> combine(Expression expression, List<Predicate<T>> operands) {
+        Predicate<T> result = null;
+        if (expression instanceof CompoundExpression) {
+            Predicate<T>[] predicates = operands.toArray(new Predicate[0]);
+            switch (((CompoundExpression) expression).getOperator()) {
+                /* Logical operations.*/
+                case AND:
+                    result = and(predicates);
+                    break;
+
+                case OR:
+                    result = or(predicates);
+                    break;
+            }
+        } else if (expression instanceof UnaryExpression) {
+            result = operands.get(0).negate();
+        } else {
+            result = expression.accept(this, null);
+        }
+        return result;
+    }
+
+    /**
+     * Short lists are joined by a lambda per operand count
+     * rather than a loop, so each call site sees a single
+     * operand class and the JIT can inline the operands.
+     */
+    private Predicate<T> and(Predicate<T>[] predicates) {
+        if (predicates.length == 2) {
+            Predicate<T> first = predicates[0];
+            Predicate<T> second = predicates[1];
+            return row -> first.test(row) && second.test(row);
+        }
+        if (predicates.length == 3) {
+            Predicate<T> first = predicates[0];
+            Predicate<T> second = predicates[1];
+            Predicate<T> third = predicates[2];
+            return row -> first.test(row) && second.test(row) && third.test(row);
+        }
+        return row -> {
+            for (Predicate<T> predicate : predicates) {
+                if (!predicate.test(row)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private Predicate<T> or(Predicate<T>[] predicates) {
+        if (predicates.length == 2) {
+            Predicate<T> first = predicates[0];
+            Predicate<T> second = predicates[1];
+            return row -> first.test(row) || second.test(row);
+        }
+        if (predicates.length == 3) {
+            Predicate<T> first = predicates[0];
+            Predicate<T> second = predicates[1];
+            Predicate<T> third = predicates[2];
+            return row -> first.test(row) || second.test(row) || third.test(row);
+        }
+        return row -> {
+            for (Predicate<T> predicate : predicates) {
+                if (predicate.test(row)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Handles the processing of binary
+     * expression node.
+     * @param binaryExpression
+     *          Contains binary expression.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public Predicate<T> visitBinaryExpression(BinaryExpression binaryExpression, Predicate<T> data) {
+        if (fieldResolution == null) {
+            return bind(binaryExpression).visitBinaryExpression(binaryExpression, data);
+        }
+        int field = fieldResolution.indexOf(binaryExpression.getLeftOperand().infix());
+        Object value = fieldResolution.transformValue(field,
+                ((ExpressionValue<? extends Comparable>) binaryExpression.getRightOperand()).value());
+        String mappedFieldName = fieldResolution.targetName(field);
+        if (rowClass == null || Map.class.isAssignableFrom(rowClass)) {
+            return compile(binaryExpression.getOperator(), new RowAccessor(mappedFieldName), value);
+        }
+        Object accessor = BeanAccessors.get(rowClass, mappedFieldName);
+        if (accessor == null) {
+            throw new InvalidFilterException("Unknown field " + mappedFieldName + " for " + rowClass.getName());
+        }
+        Operator operator = binaryExpression.getOperator();
+        Operator positive = negated(operator);
+        Predicate<T> predicate = compilePrimitive(positive == null ? operator : positive, accessor, value);
+        if (predicate != null && positive != null) {
+            /* A primitive field is never null, so the negation is the complement.*/
+            predicate = predicate.negate();
+        }
+        if (predicate == null) {
+            predicate = compile(binaryExpression.getOperator(), BeanAccessors.getBoxed(rowClass, mappedFieldName), value);
+        }
+        return predicate;
+    }
+
+    /**
+     * Returns the operator which the given negated
+     * operator is the negation of, or null if the
+     * operator is not negated.
+     */
+    private static Operator negated(Operator operator) {
+        switch (operator) {
+            case NE:
+                return Operator.EQ;
+            case NOT_EQUALS:
+                return Operator.EQUALS;
+            case NOT_IN:
+                return Operator.IN;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Handles the processing of unary
+     * expression node.
+     * @param unaryExpression
+     *          Contains unary expression.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public Predicate<T> visitUnaryExpression(UnaryExpression unaryExpression, Predicate<T> data) {
+        return ExpressionWalker.walk(unaryExpression, bind(unaryExpression)::combine);
+    }
+
+    /**
+     * Handles the processing of expression
+     * field node.
+     * @param field
+     *          Contains expression field.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public Predicate<T> visitExpressionField(ExpressionField field, Predicate<T> data) {
+        /* ExpressionField has been taken care in the Binary expression visitor. */
+        return null;
+    }
+
+    /**
+     * Handles the processing of expression
+     * value node.
+     * @param value
+     *          Contains expression value.
+     * @param data
+     *          Buffer for storing processed data.
+     * @return
+     *          Data of processed node.
+     */
+    @Override
+    public Predicate<T> visitExpressionValue(ExpressionValue<? extends Comparable> value, Predicate<T> data) {
+        /* ExpressionValue has been taken care in the Binary expression visitor. */
+        return null;
+    }
+
+    /**
+     * Returns this visitor if it is bound to a resolution,
+     * otherwise a visitor bound to the fields of the given
+     * sub tree, e.g. when a node is visited on its own.
+     */
+    private PredicateExpressionVisitor<T> bind(Expression expression) {
+        return fieldResolution != null ? this
+                : new PredicateExpressionVisitor<>(rowClass, fieldMap, fieldValueTransformer, resolve(expression));
+    }
+
+    private FieldResolution resolve(Expression expression) {
+        return FieldResolution.of(expression, fieldMap, fieldValueTransformer);
+    }
+
+    private Predicate<T> compile(Operator operator, Function<Object, Object> accessor, Object value) {
+        Predicate<T> predicate = null;
+        switch (operator) {
+            /* String operations.*/
+            case STARTS:
+                String prefix = String.valueOf(value);
+                predicate = row -> {
+                    Object fieldValue = accessor.apply(row);
+                    return fieldValue != null && fieldValue.toString().startsWith(prefix);
+                };
+                break;
+
+            case ENDS:
+                String suffix = String.valueOf(value);
+                predicate = row -> {
+                    Object fieldValue = accessor.apply(row);
+                    return fieldValue != null && fieldValue.toString().endsWith(suffix);
+                };
+                break;
+
+            case CONTAINS:
+                String infix = String.valueOf(value);
+                predicate = row -> {
+                    Object fieldValue = accessor.apply(row);
+                    return fieldValue != null && fieldValue.toString().contains(infix);
+                };
+                break;
+
+            case EQUALS:
+            case EQ:
+            case IN:
+                Predicate<Object> matches = matcher(operator, value);
+                predicate = row -> matches.test(normalize(accessor.apply(row)));
+                break;
+
+            /* Negated operations, a null field matches neither the comparison nor its negation as in SQL.*/
+            case NOT_EQUALS:
+            case NE:
+            case NOT_IN:
+                Predicate<Object> excluded = matcher(negated(operator), value);
+                predicate = row -> {
+                    Object fieldValue = normalize(accessor.apply(row));
+                    return fieldValue != null && !excluded.test(fieldValue);
+                };
+                break;
+
+            /* Numeric operations.*/
+            case LT:
+                Object upper = normalize(value);
+                predicate = row -> {
+                    int result = compare(normalize(accessor.apply(row)), upper);
+                    return result != INCOMPARABLE && result < 0;
+                };
+                break;
+
+            case LTE:
+                Object upperInclusive = normalize(value);
+                predicate = row -> {
+                    int result = compare(normalize(accessor.apply(row)), upperInclusive);
+                    return result != INCOMPARABLE && result <= 0;
+                };
+                break;
+
+            case GT:
+                Object lower = normalize(value);
+                predicate = row -> {
+                    int result = compare(normalize(accessor.apply(row)), lower);
+                    return result != INCOMPARABLE && result > 0;
+                };
+                break;
+
+            case GTE:
+                Object lowerInclusive = normalize(value);
+                predicate = row -> {
+                    int result = compare(normalize(accessor.apply(row)), lowerInclusive);
+                    return result != INCOMPARABLE && result >= 0;
+                };
+                break;
+
+            /* Range operations.*/
+            case BETWEEN:
+                List betweenValues = (List) value;
+                Object from = normalize(betweenValues.get(0));
+                Object to = normalize(betweenValues.get(1));
+                predicate = row -> {
+                    Object fieldValue = normalize(accessor.apply(row));
+                    int lowerResult = compare(fieldValue, from);
+                    int upperResult = compare(fieldValue, to);
+                    return lowerResult != INCOMPARABLE && upperResult != INCOMPARABLE
+                            && lowerResult >= 0 && upperResult <= 0;
+                };
+                break;
+        }
+        return predicate;
+    }
+
+    /**
+     * Returns the test of a normalized field value for
+     * an equality or IN comparison with the given value.
+     */
+    private static Predicate<Object> matcher(Operator operator, Object value) {
+        if (operator == Operator.IN) {
+            Set<Object> expectedValues = new HashSet<>();
+            for (Object inValue : (Collection) value) {
+                expectedValues.add(normalize(inValue));
+            }
+            return expectedValues::contains;
+        }
+        Object expected = normalize(value);
+        if (expected == null) {
+            return fieldValue -> fieldValue == null;
+        }
+        return fieldValue -> compare(fieldValue, expected) == 0;
+    }
+
+    /**
+     * Compiles a numeric comparison against a primitive getter,
+     * returning null if the getter or the values are not numeric.
+     */
+    private Predicate<T> compilePrimitive(Operator operator, Object accessor, Object value) {
+        ToLongFunction<Object> longAccessor = null;
+        ToDoubleFunction<Object> doubleAccessor = null;
+        if (accessor instanceof ToIntFunction) {
+            ToIntFunction<Object> intAccessor = (ToIntFunction<Object>) accessor;
+            longAccessor = row -> intAccessor.applyAsInt(row);
+        } else if (accessor instanceof ToLongFunction) {
+            longAccessor = (ToLongFunction<Object>) accessor;
+        } else if (accessor instanceof ToDoubleFunction) {
+            doubleAccessor = (ToDoubleFunction<Object>) accessor;
+        } else {
+            return null;
+        }
+        Collection<?> values = value instanceof Collection ? (Collection<?>) value : Collections.singletonList(value);
+        boolean integral = true;
+        for (Object constant : values) {
+            Object normalized = normalize(constant);
+            if (!(normalized instanceof Number)) {
+                return null;
+            }
+            integral &= normalized instanceof Long;
+        }
+        if (longAccessor != null && integral) {
+            long[] constants = new long[values.size()];
+            int i = 0;
+            for (Object constant : values) {
+                constants[i++] = ((Number) normalize(constant)).longValue();
+            }
+            return compileLong(operator, longAccessor, constants);
+        }
+        if (doubleAccessor == null) {
+            ToLongFunction<Object> integralAccessor = longAccessor;
+            doubleAccessor = row -> integralAccessor.applyAsLong(row);
+        }
+        double[] constants = new double[values.size()];
+        int i = 0;
+        for (Object constant : values) {
+            constants[i++] = ((Number) constant).doubleValue();
+        }
+        return compileDouble(operator, doubleAccessor, constants);
+    }
+
+    private Predicate<T> compileLong(Operator operator, ToLongFunction<Object> accessor, long[] constants) {
+        Predicate<T> predicate = null;
+        switch (operator) {
+            case EQUALS:
+            case EQ:
+                long expected = constants[0];
+                predicate = row -> accessor.applyAsLong(row) == expected;
+                break;
+
+            case LT:
+                long upper = constants[0];
+                predicate = row -> accessor.applyAsLong(row) < upper;
+                break;
+
+            case LTE:
+                long upperInclusive = constants[0];
+                predicate = row -> accessor.applyAsLong(row) <= upperInclusive;
+                break;
+
+            case GT:
+                long lower = constants[0];
+                predicate = row -> accessor.applyAsLong(row) > lower;
+                break;
+
+            case GTE:
+                long lowerInclusive = constants[0];
+                predicate = row -> accessor.applyAsLong(row) >= lowerInclusive;
+                break;
+
+            case IN:
+                long[] sorted = constants.clone();
+                Arrays.sort(sorted);
+                predicate = row -> Arrays.binarySearch(sorted, accessor.applyAsLong(row)) >= 0;
+                break;
+
+            case BETWEEN:
+                long from = constants[0];
+                long to = constants[1];
+                predicate = row -> {
+                    long fieldValue = accessor.applyAsLong(row);
+                    return fieldValue >= from && fieldValue <= to;
+                };
+                break;
+        }
+        return predicate;
+    }
+
+    private Predicate<T> compileDouble(Operator operator, ToDoubleFunction<Object> accessor, double[] constants) {
+        Predicate<T> predicate = null;
+        switch (operator) {
+            case EQUALS:
+            case EQ:
+                double expected = constants[0];
+                predicate = row -> accessor.applyAsDouble(row) == expected;
+                break;
+
+            case LT:
+                double upper = constants[0];
+                predicate = row -> accessor.applyAsDouble(row) < upper;
+                break;
+
+            case LTE:
+                double upperInclusive = constants[0];
+                predicate = row -> accessor.applyAsDouble(row) <= upperInclusive;
+                break;
+
+            case GT:
+                double lower = constants[0];
+                predicate = row -> accessor.applyAsDouble(row) > lower;
+                break;
+
+            case GTE:
+                double lowerInclusive = constants[0];
+                predicate = row -> accessor.applyAsDouble(row) >= lowerInclusive;
+                break;
+
+            case IN:
+                double[] sorted = constants.clone();
+                Arrays.sort(sorted);
+                predicate = row -> Arrays.binarySearch(sorted, accessor.applyAsDouble(row)) >= 0;
+                break;
+
+            case BETWEEN:
+                double from = constants[0];
+                double to = constants[1];
+                predicate = row -> {
+                    double fieldValue = accessor.applyAsDouble(row);
+                    return fieldValue >= from && fieldValue <= to;
+                };
+                break;
+        }
+        return predicate;
+    }
+
+    /**
+     * Converts the given value into a canonical form so that
+     * values of the same quantity but different types compare
+     * and hash equal: integral numbers become Long, decimal
+     * numbers become Double unless they are whole, dates become
+     * Instant and enums become their name.
+     */
+    static Object normalize(Object value) {
+        if (value == null || value instanceof String || value instanceof Long) {
+            return value;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double doubleValue = ((Number) value).doubleValue();
+            long longValue = (long) doubleValue;
+            return longValue == doubleValue ? (Object) longValue : (Object) doubleValue;
+        }
+        if (value instanceof BigDecimal || value instanceof BigInteger) {
+            BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal((BigInteger) value);
+            try {
+                return decimal.longValueExact();
+            } catch (ArithmeticException e) {
+                return decimal.doubleValue();
+            }
+        }
+        if (value instanceof Number) {
+            return normalize(((Number) value).doubleValue());
+        }
+        if (value instanceof Date) {
+            return ((Date) value).toInstant();
+        }
+        if (value instanceof LocalDate) {
+            return ((LocalDate) value).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).atZone(ZoneId.systemDefault()).toInstant();
+        }
+        if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).toInstant();
+        }
+        if (value instanceof ZonedDateTime) {
+            return ((ZonedDateTime) value).toInstant();
+        }
+        if (value instanceof Enum) {
+            return ((Enum) value).name();
+        }
+        if (value instanceof Character) {
+            return value.toString();
+        }
+        return value;
+    }
+
+    /**
+     * Compares two normalized values, returning
+     * INCOMPARABLE if either is null or their
+     * types cannot be compared.
+     */
+    static int compare(Object left, Object right) {
+        if (left == null || right == null) {
+            return INCOMPARABLE;
+        }
+        if (left instanceof Long && right instanceof Long) {
+            return Long.compare((Long) left, (Long) right);
+        }
+        if (left instanceof Number && right instanceof Number) {
+            return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        if (left instanceof Comparable && left.getClass() == right.getClass()) {
+            return Integer.signum(((Comparable) left).compareTo(right));
+        }
+        return INCOMPARABLE;
+    }
+
+    /**
+     * Reads a field from a Map or POJO row. The
+     * reader is looked up once and reused while
+     * rows keep the same class, which also avoids
+     * an interface type check per row. Member is
+     * immutable, so a racy read of the field sees
+     * either a complete member or a stale one.
+     */
+    private static final class RowAccessor implements Function<Object, Object> {
+
+        private static final Function<Object, Object> MISSING = row -> null;
+
+        private final String fieldName;
+        private Member member;
+
+        RowAccessor(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        public Object apply(Object row) {
+            if (row == null) {
+                return null;
+            }
+            Member member = this.member;
+            if (member == null || member.rowClass != row.getClass()) {
+                member = new Member(row.getClass(), resolve(row));
+                this.member = member;
+            }
+            return member.reader.apply(row);
+        }
+
+        private Function<Object, Object> resolve(Object row) {
+            if (row instanceof Map) {
+                return mapRow -> ((Map) mapRow).get(fieldName);
+            }
+            Function<Object, Object> reader = BeanAccessors.getBoxed(row.getClass(), fieldName);
+            return reader == null ? MISSING : reader;
+        }
+    }
+
+    private static final class Member {
+
+        private final Class<?> rowClass;
+        private final Function<Object, Object> reader;
+
+        Member(Class<?> rowClass, Function<Object, Object> reader) {
+            this.rowClass = rowClass;
+            this.reader = reader;
+        }
+    }
+}
@@ -16,17 +16,14 @@
 package com.intuit.graphql.filter.visitors;
 
 import com.intuit.graphql.filter.ast.BinaryExpression;
-import com.intuit.graphql.filter.ast.CompoundExpression;
-import com.intuit.graphql.filter.ast.UnaryExpression;
-import com.intuit.graphql.filter.ast.Expression;
 import com.intuit.graphql.filter.ast.ExpressionField;
 import com.intuit.graphql.filter.ast.ExpressionValue;
 import com.intuit.graphql.filter.ast.Operator;
-import com.intuit.graphql.filter.client.FieldValuePair;
 import com.intuit.graphql.filter.client.FieldValueTransformer;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -38,174 +35,193 @@ import java.util.Map;
  *
  * @author sjaiswal
  */
-public class SQLExpressionVisitor implements ExpressionVisitor<String> {
+public class SQLExpressionVisitor extends AbstractStringExpressionVisitor {
 
-    private Deque<Operator> operatorStack;
-    private Map<String, String> fieldMap;
-    private Deque<ExpressionField> fieldStack;
-    private FieldValueTransformer fieldValueTransformer;
+    /**
+     * Supported ways of writing values
+     * into the WHERE clause.
+     */
+    public enum ParameterStyle {
+        /* Values are quoted and written in place, e.g. firstName = 'Saurabh'.*/
+        INLINE,
+        /* Values are replaced by JDBC placeholders, e.g. firstName = ?.*/
+        POSITIONAL,
+        /* Values are replaced by named placeholders, e.g. firstName = :firstName_1.*/
+        NAMED
+    }
+
+    private final ParameterStyle parameterStyle;
 
     public SQLExpressionVisitor(Map<String,String> fieldMap, FieldValueTransformer fieldValueTransformer) {
-        this.operatorStack = new ArrayDeque<>();
-        this.fieldMap = fieldMap;
-        this.fieldStack = new ArrayDeque<>();
-        this.fieldValueTransformer = fieldValueTransformer;
+        this(fieldMap, fieldValueTransformer, ParameterStyle.INLINE);
     }
 
-    /**
-     * Returns the SQL WHERE clause string
-     * from the expression tree.
-     * @return
-     * @param expression
-     */
-    @Override
-    public String expression(Expression expression) {
-        String expressionString = "WHERE ";
-        if (expression != null) {
-            expressionString = expression.accept(this, expressionString);
-        }
-        return expressionString;
+    public SQLExpressionVisitor(Map<String,String> fieldMap, FieldValueTransformer fieldValueTransformer,
+                                ParameterStyle parameterStyle) {
+        super(fieldMap, fieldValueTransformer);
+        this.parameterStyle = parameterStyle;
     }
 
     /**
-     * Handles the processing of compound
-     * expression node.
-     * @param compoundExpression
-     *          Contains compound expression.
-     * @param data
-     *          Buffer for storing processed data.
-     * @return
-     *          Data of processed node.
+     * Writes the WHERE keyword preceding
+     * the expression.
+     * @param rendering
      */
     @Override
-    public String visitCompoundExpression(CompoundExpression compoundExpression, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        expressionBuilder.append("(")
-                .append(compoundExpression.getLeftOperand().accept(this, ""))
-                .append(" ").append(compoundExpression.getOperator().getName().toUpperCase()).append(" ")
-                .append(compoundExpression.getRightOperand().accept(this, ""))
-                .append(")");
-        return expressionBuilder.toString();
-
+    protected void begin(Rendering rendering) {
+        rendering.append("WHERE ");
     }
 
     /**
-     * Handles the processing of binary
-     * expression node.
-     * @param binaryExpression
-     *          Contains binary expression.
-     * @param data
-     *          Buffer for storing processed data.
+     * Creates a rendering collecting
+     * the bind parameters.
+     * @param out
+     * @param fieldResolution
      * @return
-     *          Data of processed node.
      */
     @Override
-    public String visitBinaryExpression(BinaryExpression binaryExpression, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        expressionBuilder.append("(")
-                .append(binaryExpression.getLeftOperand().accept(this, ""))
-                .append(" ").append(resolveOperator(binaryExpression.getOperator())).append(" ");
-        operatorStack.push(binaryExpression.getOperator());
-        expressionBuilder.append(binaryExpression.getRightOperand().accept(this, ""))
-                .append(")");
-        return expressionBuilder.toString();
+    protected SQLRendering newRendering(Appendable out, FieldResolution fieldResolution) {
+        return new SQLRendering(out, fieldResolution);
     }
 
     /**
-     * Handles the processing of unary
-     * expression node.
-     * @param unaryExpression
-     *          Contains unary expression.
-     * @param data
-     *          Buffer for storing processed data.
-     * @return
-     *          Data of processed node.
+     * Writes (column OP value) for a comparison, the
+     * value being quoted or replaced by placeholders.
+     * @param binaryExpression
+     * @param rendering
      */
     @Override
-    public String visitUnaryExpression(UnaryExpression unaryExpression, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        expressionBuilder.append("(")
-                .append(" ").append(resolveOperator(unaryExpression.getOperator())).append(" ")
-                .append(unaryExpression.getLeftOperand().accept(this, ""))
-                .append(")");
-        return expressionBuilder.toString();
+    protected void writeBinaryExpression(BinaryExpression binaryExpression, Rendering rendering) {
+        Operator operator = binaryExpression.getOperator();
+        FieldResolution fieldResolution = rendering.getFieldResolution();
+        int field = fieldResolution.indexOf(binaryExpression.getLeftOperand().infix());
+        String column = fieldResolution.targetName(field);
+        ExpressionValue<? extends Comparable> value = getTransformedValue(fieldResolution, field,
+                (ExpressionValue<? extends Comparable>) binaryExpression.getRightOperand());
+
+        rendering.append("(").append(column).append(" ").append(resolveOperator(operator)).append(" ");
+        if (parameterStyle != ParameterStyle.INLINE) {
+            appendPlaceholders((SQLRendering) rendering, operator, column, value);
+        } else if (operator == Operator.STARTS) {
+            rendering.append("'").append(value.infix()).append("%").append("'");
+        } else if (operator == Operator.ENDS) {
+            rendering.append("'").append("%").append(value.infix()).append("'");
+        } else if (operator == Operator.CONTAINS) {
+            rendering.append("'").append("%").append(value.infix()).append("%").append("'");
+        } else if(operator == Operator.BETWEEN)  {
+            List<Comparable> expressionValues = (List<Comparable>)value.value();
+            rendering.append("'").append(expressionValues.get(0)).append("'")
+                    .append(" AND ")
+                    .append("'").append(expressionValues.get(1)).append("'");
+        } else if (operator == Operator.IN || operator == Operator.NOT_IN) {
+            List<Comparable> expressionValues = (List<Comparable>)value.value();
+            rendering.append("(");
+            for (int i = 0; i < expressionValues.size(); i++) {
+                rendering.append("'").append(expressionValues.get(i)).append("'");
+                if (i < expressionValues.size() - 1) {
+                    rendering.append(", ");
+                }
+            }
+            rendering.append(")");
+        } else {
+            rendering.append("'").append(value.infix()).append("'");
+        }
+        rendering.append(")");
     }
 
     /**
-     * Handles the processing of expression
-     * field node.
+     * Writes the column of a field.
      * @param field
-     *          Contains expression field.
-     * @param data
-     *          Buffer for storing processed data.
-     * @return
-     *          Data of processed node.
+     * @param rendering
      */
     @Override
-    public String visitExpressionField(ExpressionField field, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        if (fieldMap != null && fieldMap.get(field.infix()) != null) {
-            expressionBuilder.append(fieldMap.get(field.infix()));
-        } else if (fieldValueTransformer != null && fieldValueTransformer.transformField(field.infix()) != null) {
-            expressionBuilder.append(fieldValueTransformer.transformField(field.infix()));
-            fieldStack.push(field); //pushing the field for lookup while visiting value.
-        } else {
-            expressionBuilder.append(field.infix());
-        }
-        return expressionBuilder.toString();
+    protected void writeExpressionField(ExpressionField field, Rendering rendering) {
+        FieldResolution fieldResolution = rendering.getFieldResolution();
+        rendering.append(fieldResolution.targetName(fieldResolution.indexOf(field.infix())));
     }
 
     /**
-     * Handles the processing of expression
-     * value node.
+     * Writes a value rendered on its own, quoted as
+     * by an equality comparison, or a list of quoted
+     * values as by IN.
      * @param value
-     *          Contains expression value.
-     * @param data
-     *          Buffer for storing processed data.
-     * @return
-     *          Data of processed node.
+     * @param rendering
      */
     @Override
-    public String visitExpressionValue(ExpressionValue<? extends Comparable> value, String data) {
-        StringBuilder expressionBuilder = new StringBuilder(data);
-        Operator operator = operatorStack.pop();
-
-        if (!fieldStack.isEmpty() && fieldValueTransformer != null) {
-            ExpressionField field  = fieldStack.pop(); // pop the field associated with this value.
-            FieldValuePair fieldValuePair = fieldValueTransformer.transformValue(field.infix(),value.value());
-            if (fieldValuePair != null && fieldValuePair.getValue() != null) {
-                value = new ExpressionValue(fieldValuePair.getValue());
+    protected void writeExpressionValue(ExpressionValue<? extends Comparable> value, Rendering rendering) {
+        Operator operator = value.value() instanceof List ? Operator.IN : Operator.EQUALS;
+        if (parameterStyle != ParameterStyle.INLINE) {
+            appendPlaceholders((SQLRendering) rendering, operator, "value", value);
+        } else if (operator == Operator.IN) {
+            List<Comparable> expressionValues = (List<Comparable>)value.value();
+            rendering.append("(");
+            for (int i = 0; i < expressionValues.size(); i++) {
+                rendering.append("'").append(expressionValues.get(i)).append("'");
+                if (i < expressionValues.size() - 1) {
+                    rendering.append(", ");
+                }
             }
+            rendering.append(")");
+        } else {
+            rendering.append("'").append(value.infix()).append("'");
         }
+    }
 
+    private void appendPlaceholders(SQLRendering rendering, Operator operator, String column,
+                                    ExpressionValue<? extends Comparable> value) {
         if (operator == Operator.STARTS) {
-            expressionBuilder.append("'").append(value.infix()).append("%").append("'");
+            appendPlaceholder(rendering, column, value.infix() + "%");
         } else if (operator == Operator.ENDS) {
-            expressionBuilder.append("'").append("%").append(value.infix()).append("'");
+            appendPlaceholder(rendering, column, "%" + value.infix());
         } else if (operator == Operator.CONTAINS) {
-            expressionBuilder.append("'").append("%").append(value.infix()).append("%").append("'");
-        } else if(operator == Operator.BETWEEN)  {
+            appendPlaceholder(rendering, column, "%" + value.infix() + "%");
+        } else if (operator == Operator.BETWEEN) {
             List<Comparable> expressionValues = (List<Comparable>)value.value();
-            expressionBuilder.append("'").append(expressionValues.get(0)).append("'")
-                    .append(" AND ")
-                    .append("'").append(expressionValues.get(1)).append("'");
-        } else if (operator == Operator.IN) {
+            appendPlaceholder(rendering, column, expressionValues.get(0));
+            rendering.append(" AND ");
+            appendPlaceholder(rendering, column, expressionValues.get(1));
+        } else if (operator == Operator.IN || operator == Operator.NOT_IN) {
             List<Comparable> expressionValues = (List<Comparable>)value.value();
-            expressionBuilder.append("(");
+            rendering.append("(");
             for (int i = 0; i < expressionValues.size(); i++) {
-                expressionBuilder.append("'").append(expressionValues.get(i)).append("'");
+                appendPlaceholder(rendering, column, expressionValues.get(i));
                 if (i < expressionValues.size() - 1) {
-                    expressionBuilder.append(", ");
+                    rendering.append(", ");
                 }
             }
-            expressionBuilder.append(")");
+            rendering.append(")");
+        } else {
+            appendPlaceholder(rendering, column, value.value());
+        }
+    }
+
+    private void appendPlaceholder(SQLRendering rendering, String column, Object value) {
+        List<SQLParameter> parameters = rendering.parameters;
+        int index = parameters.size() + 1;
+        if (value instanceof Date && !(value instanceof Timestamp) && !(value instanceof java.sql.Date)) {
+            value = new Timestamp(((Date) value).getTime());
+        }
+        if (parameterStyle == ParameterStyle.NAMED) {
+            /* Column names may be qualified or quoted, keep only valid identifier characters.*/
+            String name = column.replaceAll("[^A-Za-z0-9_]", "_") + "_" + index;
+            parameters.add(new SQLParameter(index, name, value));
+            rendering.append(":").append(name);
         } else {
-            expressionBuilder.append("'").append(value.infix()).append("'");
+            parameters.add(new SQLParameter(index, null, value));
+            rendering.append("?");
         }
-        return expressionBuilder.toString();
     }
 
-    private String resolveOperator(Operator operator) {
+    private ExpressionValue<? extends Comparable> getTransformedValue(FieldResolution fieldResolution, int field,
+                                                                      ExpressionValue<? extends Comparable> value) {
+        if (!fieldResolution.isValueTransformed(field)) {
+            return value;
+        }
+        return new ExpressionValue(fieldResolution.transformValue(field, value.value()));
+    }
+
+    @Override
+    protected String resolveOperator(Operator operator) {
         String op = "";
         switch (operator) {
             /* Logical operators */
@@ -219,6 +235,9 @@ public class SQLExpressionVisitor implements ExpressionVisitor<String> {
             case EQUALS:
                 op = "=";
                 break;
+            case NOT_EQUALS:
+                op = "<>";
+                break;
             case CONTAINS:
             case STARTS:
             case ENDS:
@@ -235,6 +254,9 @@ public class SQLExpressionVisitor implements ExpressionVisitor<String> {
             case EQ:
                 op = "=";
                 break;
+            case NE:
+                op = "<>";
+                break;
             case GTE:
                 op = ">=";
                 break;
@@ -246,10 +268,31 @@ public class SQLExpressionVisitor implements ExpressionVisitor<String> {
             case IN:
                 op = "IN";
                 break;
+            case NOT_IN:
+                op = "NOT IN";
+                break;
             case BETWEEN:
                 op = "BETWEEN";
                 break;
         }
         return op;
     }
+
+    /**
+     * Rendering collecting the bind parameters
+     * of the placeholders in order, empty for
+     * {@link ParameterStyle#INLINE}.
+     */
+    final class SQLRendering extends Rendering {
+
+        private final List<SQLParameter> parameters = new ArrayList<>();
+
+        SQLRendering(Appendable out, FieldResolution fieldResolution) {
+            super(out, fieldResolution);
+        }
+
+        List<SQLParameter> getParameters() {
+            return parameters;
+        }
+    }
 }
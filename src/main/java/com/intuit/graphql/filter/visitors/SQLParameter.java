@@ -0,0 +1,116 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.visitors;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * A bind parameter of a parameterized
+ * SQL WHERE clause.
+ */
+public class SQLParameter {
+
+    private final int index;
+    private final String name;
+    private final Object value;
+
+    SQLParameter(int index, String name, Object value) {
+        this.index = index;
+        this.name = name;
+        this.value = value;
+    }
+
+    /**
+     * Returns the 1-based position of the
+     * parameter in the WHERE clause.
+     * @return
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the placeholder name without the
+     * leading colon, or null for positional
+     * placeholders.
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the value to bind.
+     * @return
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the java type of the value
+     * or null for a null value.
+     * @return
+     */
+    public Class<?> getType() {
+        return value == null ? null : value.getClass();
+    }
+
+    /**
+     * Returns the {@link java.sql.Types} constant
+     * matching the java type of the value.
+     * @return
+     */
+    public int getSqlType() {
+        int sqlType;
+        if (value == null) {
+            sqlType = Types.NULL;
+        } else if (value instanceof String || value instanceof Character) {
+            sqlType = Types.VARCHAR;
+        } else if (value instanceof Integer) {
+            sqlType = Types.INTEGER;
+        } else if (value instanceof Long || value instanceof BigInteger) {
+            sqlType = Types.BIGINT;
+        } else if (value instanceof Short) {
+            sqlType = Types.SMALLINT;
+        } else if (value instanceof Byte) {
+            sqlType = Types.TINYINT;
+        } else if (value instanceof Double) {
+            sqlType = Types.DOUBLE;
+        } else if (value instanceof Float) {
+            sqlType = Types.REAL;
+        } else if (value instanceof BigDecimal) {
+            sqlType = Types.DECIMAL;
+        } else if (value instanceof Boolean) {
+            sqlType = Types.BOOLEAN;
+        } else if (value instanceof Timestamp) {
+            sqlType = Types.TIMESTAMP;
+        } else if (value instanceof java.sql.Date) {
+            sqlType = Types.DATE;
+        } else {
+            sqlType = Types.OTHER;
+        }
+        return sqlType;
+    }
+
+    @Override
+    public String toString() {
+        return (name == null ? "?" + index : ":" + name) + "=" + value;
+    }
+}
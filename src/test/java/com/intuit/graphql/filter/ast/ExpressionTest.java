@@ -0,0 +1,101 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.ast;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ExpressionTest {
+
+    @Test
+    public void equalTreesHaveEqualHashCodes() {
+        Expression left = createExpression("Saurabh", 25);
+        Expression right = createExpression("Saurabh", 25);
+
+        Assert.assertNotSame(left, right);
+        Assert.assertEquals(left, right);
+        Assert.assertEquals(left.hashCode(), right.hashCode());
+    }
+
+    @Test
+    public void differentTreesAreNotEqual() {
+        Assert.assertNotEquals(createExpression("Saurabh", 25), createExpression("Saurabh", 26));
+        Assert.assertNotEquals(createExpression("Saurabh", 25),
+                new CompoundExpression(Operator.OR, Arrays.asList(binary("firstName", Operator.CONTAINS, "Saurabh"))));
+        Assert.assertNotEquals(binary("age", Operator.GT, 25), binary("age", Operator.GTE, 25));
+    }
+
+    @Test
+    public void treesCanBeUsedAsKeys() {
+        Map<Expression, String> cache = new HashMap<>();
+        cache.put(createExpression("Saurabh", 25), "cached");
+
+        Assert.assertEquals("cached", cache.get(createExpression("Saurabh", 25)));
+    }
+
+    @Test
+    public void deeplyNestedTreesAreCompared() {
+        Expression left = binary("age", Operator.EQ, 1);
+        Expression right = binary("age", Operator.EQ, 1);
+        for (int i = 0; i < 20000; i++) {
+            left = new UnaryExpression(left, Operator.NOT, null);
+            right = new UnaryExpression(right, Operator.NOT, null);
+        }
+
+        Assert.assertEquals(left, right);
+    }
+
+    @Test
+    public void equalSubtreesAreInterned() {
+        ExpressionInterner interner = new ExpressionInterner();
+
+        Expression first = interner.intern(createExpression("Saurabh", 25));
+        Expression second = interner.intern(new CompoundExpression(binary("age", Operator.GTE, 25),
+                Operator.AND, binary("lastName", Operator.EQUALS, "Jaiswal")));
+
+        Expression firstAge = ((CompoundExpression) first).getOperands().get(1);
+        Expression secondAge = ((CompoundExpression) second).getOperands().get(0);
+        Assert.assertSame(firstAge, secondAge);
+        Assert.assertSame(first, interner.intern(createExpression("Saurabh", 25)));
+    }
+
+    @Test
+    public void rightOperandIsAViewOfTheRemainingOperands() {
+        CompoundExpression expression = new CompoundExpression(Operator.AND, Arrays.asList(
+                binary("age", Operator.GT, 20), binary("age", Operator.LT, 30), binary("firstName", Operator.EQUALS, "Saurabh")));
+
+        Expression right = expression.getRightOperand();
+
+        Assert.assertSame(right, expression.getRightOperand());
+        Assert.assertEquals(new CompoundExpression(Operator.AND, expression.getOperands().subList(1, 3)), right);
+        Assert.assertEquals(new CompoundExpression(Operator.AND, expression.getOperands().subList(1, 3)).hashCode(),
+                right.hashCode());
+        Assert.assertSame(expression.getOperands().get(2), ((CompoundExpression) right).getRightOperand());
+    }
+
+    private Expression createExpression(String firstName, int age) {
+        return new CompoundExpression(binary("firstName", Operator.CONTAINS, firstName),
+                Operator.OR, binary("age", Operator.GTE, age));
+    }
+
+    private Expression binary(String field, Operator operator, Comparable value) {
+        return new BinaryExpression(new ExpressionField(field), operator, new ExpressionValue<>(value));
+    }
+}
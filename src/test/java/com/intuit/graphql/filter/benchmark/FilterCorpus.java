@@ -0,0 +1,132 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filter arguments shared by the benchmarks, shaped
+ * after the filters data fetchers commonly receive.
+ */
+public enum FilterCorpus {
+
+    /* A single comparison. */
+    SIMPLE {
+        @Override
+        Map<String, Object> filter() {
+            return term("firstName", "equals", "Saurabh");
+        }
+    },
+
+    /* An and of 100 comparisons over a few fields. */
+    WIDE_AND {
+        @Override
+        Map<String, Object> filter() {
+            List<Map<String, Object>> conjuncts = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                switch (i % 4) {
+                    case 0:
+                        conjuncts.add(term("firstName", "contains", "name" + i));
+                        break;
+                    case 1:
+                        conjuncts.add(term("lastName", "equals", "Jaiswal" + i));
+                        break;
+                    case 2:
+                        conjuncts.add(term("age", "gte", i));
+                        break;
+                    default:
+                        conjuncts.add(term("age", "lt", 100 + i));
+                }
+            }
+            return Collections.singletonMap("and", conjuncts);
+        }
+    },
+
+    /* An in list of 10000 values, e.g. ids of a previous query. */
+    LARGE_IN {
+        @Override
+        Map<String, Object> filter() {
+            List<Integer> values = new ArrayList<>(10000);
+            for (int i = 0; i < 10000; i++) {
+                values.add(i);
+            }
+            return term("age", "in", values);
+        }
+    },
+
+    /* Alternating and, or and not 30 levels deep. */
+    DEEP_NESTING {
+        @Override
+        Map<String, Object> filter() {
+            Map<String, Object> filter = term("firstName", "starts", "Sau");
+            for (int i = 0; i < 30; i++) {
+                if (i % 3 == 0) {
+                    filter = Collections.singletonMap("not", filter);
+                } else {
+                    filter = Collections.singletonMap(i % 3 == 1 ? "and" : "or",
+                            Arrays.asList(filter, term("age", "gt", i)));
+                }
+            }
+            return filter;
+        }
+    },
+
+    /* An or of 10 date ranges, half of them between. */
+    DATE_RANGES {
+        @Override
+        Map<String, Object> filter() {
+            List<Map<String, Object>> disjuncts = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                LocalDate from = LocalDate.of(1980 + i, 1, 1);
+                LocalDate to = from.plusMonths(6);
+                if (i % 2 == 0) {
+                    disjuncts.add(term("birthDate", "between", Arrays.asList(from, to)));
+                } else {
+                    disjuncts.add(Collections.singletonMap("and", Arrays.asList(
+                            term("birthDate", "gte", from), term("birthDate", "lt", to))));
+                }
+            }
+            return Collections.singletonMap("or", disjuncts);
+        }
+    };
+
+    /**
+     * Returns the value of the filter argument.
+     * @return
+     */
+    abstract Map<String, Object> filter();
+
+    /**
+     * Returns the arguments of a data fetcher
+     * receiving the filter.
+     * @return
+     */
+    Map<String, Object> args() {
+        Map<String, Object> args = new HashMap<>();
+        args.put("filter", filter());
+        return args;
+    }
+
+    private static Map<String, Object> term(String fieldName, String operator, Object value) {
+        return Collections.singletonMap(fieldName, Collections.singletonMap(operator, value));
+    }
+}
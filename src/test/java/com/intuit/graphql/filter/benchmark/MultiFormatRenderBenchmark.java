@@ -0,0 +1,88 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.benchmark;
+
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.client.ExpressionFormat;
+import com.intuit.graphql.filter.client.FilterExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rendering the string formats one by one
+ * with rendering them in a single traversal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss64m")
+public class MultiFormatRenderBenchmark {
+
+    @Param({"100", "1000"})
+    private int terms;
+
+    private Expression expressionTree;
+
+    @Setup
+    public void setup() {
+        List<Map> conjuncts = new ArrayList<>();
+        for (int i = 0; i < terms; i++) {
+            conjuncts.add(Collections.singletonMap(i % 2 == 0 ? "firstName" : "age",
+                    Collections.singletonMap("equals", "value" + i)));
+        }
+        expressionTree = FilterExpression.newFilterExpressionBuilder()
+                .args(Collections.singletonMap("filter", Collections.singletonMap("and", conjuncts)))
+                .build()
+                .getExpressionTree();
+    }
+
+    @Benchmark
+    public void renderEachFormat(Blackhole blackhole) {
+        FilterExpression filterExpression = newFilterExpression();
+        blackhole.consume(filterExpression.<String>getExpression(ExpressionFormat.SQL));
+        blackhole.consume(filterExpression.<String>getExpression(ExpressionFormat.INFIX));
+        blackhole.consume(filterExpression.<String>getExpression(ExpressionFormat.DYNAMODB));
+    }
+
+    @Benchmark
+    public Object renderAllFormats() {
+        return newFilterExpression().getExpressions(ExpressionFormat.SQL, ExpressionFormat.INFIX, ExpressionFormat.DYNAMODB);
+    }
+
+    private FilterExpression newFilterExpression() {
+        return FilterExpression.newFilterExpressionBuilder()
+                .expression(expressionTree)
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.benchmark;
+
+import com.intuit.graphql.filter.ast.Operator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the classification of filter keys into
+ * fields and operator kinds, as done by the parser
+ * for every key of every filter. The lookup should
+ * not allocate, which shows as a gc.alloc.rate.norm
+ * close to 0 B/op when run with -prof gc, e.g.
+ * mvn test-compile exec:exec -Pbenchmark -Dbenchmark=OperatorLookup -Dbenchmark.args="-prof gc"
+ *
+ * The scan benchmark keeps the former classification,
+ * which scanned Operator.values() and caught an
+ * exception for every field name, as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperatorLookupBenchmark {
+
+    private static final String[] KEYS = {"and", "firstName", "contains", "age", "gte", "not", "birthDate", "in"};
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void lookup(Blackhole blackhole) {
+        for (String key : KEYS) {
+            Operator operator = Operator.lookup(key);
+            blackhole.consume(operator == null ? null : operator.getKind());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void scan(Blackhole blackhole) {
+        for (String key : KEYS) {
+            Operator operator = null;
+            try {
+                operator = scanOperator(key);
+            } catch (IllegalArgumentException e) {
+                /* Field name.*/
+            }
+            blackhole.consume(operator == null ? null : Operator.getOperatorKind(key));
+        }
+    }
+
+    private static Operator scanOperator(String name) {
+        for (Operator operator : Operator.values()) {
+            if (operator.getName().equals(name)) {
+                return operator;
+            }
+        }
+        throw new IllegalArgumentException(String.valueOf(name));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.benchmark;
+
+import com.intuit.graphql.filter.client.ExpressionFormat;
+import com.intuit.graphql.filter.client.FilterExpression;
+import com.intuit.graphql.filter.common.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Measures filtering an in-memory list of beans with
+ * the interpreted predicate, the predicate bound to
+ * the bean class and a hand-written loop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredicateBenchmark {
+
+    private static final String[] LAST_NAMES = {"Jaiswal", "Gupta", "Kumar", "Sharma"};
+
+    @Param({"100000"})
+    private int rows;
+
+    private List<Employee> employees;
+    private Predicate<Object> interpreted;
+    private Predicate<Employee> typed;
+
+    @Setup
+    public void setup() {
+        employees = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            employees.add(new Employee("Employee" + i, LAST_NAMES[i % LAST_NAMES.length], 20 + i % 40,
+                    LocalDate.of(1980 + i % 30, 1 + i % 12, 1 + i % 28)));
+        }
+        Map<String, Object> filter = new HashMap<>();
+        filter.put("and", Arrays.asList(
+                Collections.singletonMap("age", Collections.singletonMap("gte", 30)),
+                Collections.singletonMap("age", Collections.singletonMap("lt", 50)),
+                Collections.singletonMap("lastName", Collections.singletonMap("equals", "Jaiswal"))));
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder()
+                .args(Collections.singletonMap("filter", filter))
+                .build();
+        interpreted = filterExpression.getExpression(ExpressionFormat.PREDICATE);
+        typed = filterExpression.getPredicate(Employee.class);
+    }
+
+    @Benchmark
+    public int interpreted() {
+        int count = 0;
+        for (Employee employee : employees) {
+            if (interpreted.test(employee)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int typed() {
+        int count = 0;
+        for (Employee employee : employees) {
+            if (typed.test(employee)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int handWritten() {
+        int count = 0;
+        for (Employee employee : employees) {
+            if (employee.getAge() >= 30 && employee.getAge() < 50 && "Jaiswal".equals(employee.getLastName())) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
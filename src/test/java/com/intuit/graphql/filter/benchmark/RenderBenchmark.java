@@ -0,0 +1,93 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.benchmark;
+
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.client.ExpressionFormat;
+import com.intuit.graphql.filter.client.FilterExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rendering time of the string formats
+ * for filters with a growing number of terms. The
+ * time per term should stay flat as terms grow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss64m")
+public class RenderBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int terms;
+
+    @Param({"OR", "IN"})
+    private String shape;
+
+    @Param({"INFIX", "SQL", "DYNAMODB"})
+    private ExpressionFormat format;
+
+    private Expression expressionTree;
+
+    @Setup
+    public void setup() {
+        Map filter;
+        if ("IN".equals(shape)) {
+            List<Integer> values = new ArrayList<>();
+            for (int i = 0; i < terms; i++) {
+                values.add(i);
+            }
+            filter = Collections.singletonMap("age", Collections.singletonMap("in", values));
+        } else {
+            List<Map> disjuncts = new ArrayList<>();
+            for (int i = 0; i < terms; i++) {
+                disjuncts.add(Collections.singletonMap("age", Collections.singletonMap("eq", i)));
+            }
+            filter = Collections.singletonMap("or", disjuncts);
+        }
+        expressionTree = FilterExpression.newFilterExpressionBuilder()
+                .args(Collections.singletonMap("filter", filter))
+                .build()
+                .getExpressionTree();
+    }
+
+    /* A new FilterExpression per call, expressions are memoized per FilterExpression.*/
+    @Benchmark
+    public Object render() {
+        return FilterExpression.newFilterExpressionBuilder()
+                .expression(expressionTree)
+                .build()
+                .getExpression(format);
+    }
+}
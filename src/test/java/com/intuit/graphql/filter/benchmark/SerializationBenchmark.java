@@ -0,0 +1,95 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.benchmark;
+
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.client.FilterExpression;
+import com.intuit.graphql.filter.encoding.CompactExpression;
+import com.intuit.graphql.filter.encoding.ExpressionSerializer;
+import com.intuit.graphql.filter.encoding.FieldTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing a filter from its argument map
+ * with deserializing the parsed tree, as done when
+ * filters are shared through a distributed cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000"})
+    private int terms;
+
+    private Map<String, Object> args;
+    private Expression parsed;
+    private byte[] serialized;
+    private final FieldTable fieldTable = new FieldTable();
+
+    @Setup
+    public void setup() {
+        List<Map> disjuncts = new ArrayList<>();
+        for (int i = 0; i < terms; i++) {
+            disjuncts.add(Collections.singletonMap("and", Arrays.asList(
+                    Collections.singletonMap("firstName", Collections.singletonMap("starts", "Employee" + i)),
+                    Collections.singletonMap("age", Collections.singletonMap("gte", i)))));
+        }
+        args = Collections.singletonMap("filter", Collections.singletonMap("or", disjuncts));
+        parsed = parse();
+        serialized = ExpressionSerializer.serialize(parsed);
+    }
+
+    @Benchmark
+    public Expression parse() {
+        return FilterExpression.newFilterExpressionBuilder().args(args).build().getExpressionTree();
+    }
+
+    @Benchmark
+    public Expression deserialize() {
+        return ExpressionSerializer.deserialize(serialized);
+    }
+
+    @Benchmark
+    public CompactExpression deserializeCompact() {
+        return ExpressionSerializer.deserialize(serialized, fieldTable);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return ExpressionSerializer.serialize(parsed);
+    }
+}
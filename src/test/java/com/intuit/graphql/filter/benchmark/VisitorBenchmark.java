@@ -0,0 +1,113 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.benchmark;
+
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.client.ExpressionFormat;
+import com.intuit.graphql.filter.client.FilterExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering the expression tree of each
+ * corpus with the visitor of each format. The JPA
+ * Specification is turned into a Predicate against
+ * a stub CriteriaBuilder, so the time of the visitor
+ * is measured without that of a JPA provider.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisitorBenchmark {
+
+    @Param
+    private FilterCorpus corpus;
+
+    @Param({"INFIX", "SQL", "JPA", "MONGO", "ELASTICSEARCH", "DYNAMODB"})
+    private ExpressionFormat format;
+
+    /* One stub per criteria API interface, each call returns the stub of its result type.*/
+    private static final Map<Class<?>, Object> STUBS = new ConcurrentHashMap<>();
+
+    private static final InvocationHandler STUB_HANDLER = (proxy, method, args) -> {
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return method.getReturnType().getSimpleName();
+            }
+        }
+        Class<?> returnType = method.getReturnType();
+        if (returnType == boolean.class) {
+            return false;
+        }
+        return returnType.isInterface() ? stub(returnType) : null;
+    };
+
+    private Expression expressionTree;
+
+    @Setup
+    public void setup() {
+        expressionTree = FilterExpression.newFilterExpressionBuilder()
+                .args(corpus.args())
+                .build()
+                .getExpressionTree();
+    }
+
+    /* A new FilterExpression per call, expressions are memoized per FilterExpression.*/
+    @Benchmark
+    public Object render() {
+        Object expression = FilterExpression.newFilterExpressionBuilder()
+                .expression(expressionTree)
+                .build()
+                .getExpression(format);
+        if (format == ExpressionFormat.JPA) {
+            return ((Specification<Object>) expression).toPredicate(stub(Root.class), stub(CriteriaQuery.class),
+                    stub(CriteriaBuilder.class));
+        }
+        return expression;
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return type.cast(STUBS.computeIfAbsent(type, key ->
+                Proxy.newProxyInstance(VisitorBenchmark.class.getClassLoader(), new Class<?>[]{key}, STUB_HANDLER)));
+    }
+}
@@ -0,0 +1,151 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.client;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.common.BatchingLastNameTransformer;
+import com.intuit.graphql.filter.common.LastNameTransformer;
+import com.intuit.graphql.filter.optimizer.UnsatisfiableExpression;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class AsyncFieldValueTransformerTest {
+
+    @Test
+    public void valuesAreTransformedInOneBatch() {
+        BatchingLastNameTransformer transformer = new BatchingLastNameTransformer();
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder()
+                .args(LastNameTransformer.createFilterArgs())
+                .transform(transformer)
+                .build();
+
+        String sql = filterExpression.<String>getExpressionAsync(ExpressionFormat.SQL).join();
+
+        Assert.assertEquals("WHERE ((last_name IN ('JAISWAL', 'GUPTA')) AND ((last_name = 'JAISWAL') OR (age > '25')))", sql);
+        Assert.assertEquals(1, transformer.getBatches().size());
+        Assert.assertEquals(Arrays.asList("Jaiswal", "Gupta"), transformer.getBatches().get(0));
+    }
+
+    @Test
+    public void valuesUnderUnsatisfiableSubTreesAreTransformed() {
+        Expression unsatisfiable = new UnsatisfiableExpression(new CompoundExpression(
+                new BinaryExpression(new ExpressionField("lastName"), Operator.EQUALS, new ExpressionValue<>("Gupta")),
+                Operator.AND,
+                new BinaryExpression(new ExpressionField("lastName"), Operator.EQUALS, new ExpressionValue<>("Jaiswal"))));
+        Expression expression = new CompoundExpression(new BinaryExpression(new ExpressionField("age"), Operator.GT,
+                new ExpressionValue<>(25)), Operator.OR, unsatisfiable);
+        BatchingLastNameTransformer transformer = new BatchingLastNameTransformer();
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder()
+                .expression(expression)
+                .transform(transformer)
+                .build();
+
+        String sql = filterExpression.<String>getExpressionAsync(ExpressionFormat.SQL).join();
+
+        Assert.assertEquals("WHERE ((age > '25') OR ((last_name = 'GUPTA') AND (last_name = 'JAISWAL')))", sql);
+        Assert.assertEquals(Arrays.asList("Gupta", "Jaiswal"), transformer.getBatches().get(0));
+    }
+
+    @Test
+    public void syncRenderTransformsEachValue() {
+        BatchingLastNameTransformer transformer = new BatchingLastNameTransformer();
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder()
+                .args(LastNameTransformer.createFilterArgs())
+                .transform(transformer)
+                .build();
+
+        String sql = filterExpression.getExpression(ExpressionFormat.SQL);
+
+        Assert.assertEquals(sql, filterExpression.<String>getExpressionAsync(ExpressionFormat.SQL).join());
+        Assert.assertEquals(3, transformer.getBatches().size());
+        Assert.assertEquals(Arrays.asList("Jaiswal", "Gupta"), transformer.getBatches().get(0));
+    }
+
+    @Test
+    public void syncTransformerCompletesImmediately() {
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder()
+                .args(LastNameTransformer.createFilterArgs())
+                .map("lastName", "last_name")
+                .build();
+
+        CompletableFuture<String> sql = filterExpression.getExpressionAsync(ExpressionFormat.SQL);
+
+        Assert.assertTrue(sql.isDone());
+        Assert.assertEquals(filterExpression.getExpression(ExpressionFormat.SQL), sql.join());
+    }
+
+    @Test(expected = CompletionException.class)
+    public void failedBatchFailsTheExpression() {
+        AsyncFieldValueTransformer transformer = new BatchingLastNameTransformer() {
+            @Override
+            public CompletableFuture<List<FieldValuePair<? extends Object>>> transformValues(
+                    List<FieldValuePair<? extends Object>> fieldValuePairs) {
+                CompletableFuture<List<FieldValuePair<? extends Object>>> future = new CompletableFuture<>();
+                future.completeExceptionally(new IllegalStateException("lookup failed"));
+                return future;
+            }
+        };
+        FilterExpression.newFilterExpressionBuilder()
+                .args(LastNameTransformer.createFilterArgs())
+                .transform(transformer)
+                .build()
+                .getExpressionAsync(ExpressionFormat.SQL)
+                .join();
+    }
+
+    @Test
+    public void missingValueFailsTheExpression() {
+        AsyncFieldValueTransformer transformer = new BatchingLastNameTransformer() {
+            @Override
+            public CompletableFuture<List<FieldValuePair<? extends Object>>> transformValues(
+                    List<FieldValuePair<? extends Object>> fieldValuePairs) {
+                List<FieldValuePair<? extends Object>> transformed = new ArrayList<>();
+                for (FieldValuePair<? extends Object> fieldValuePair : fieldValuePairs) {
+                    transformed.add("Gupta".equals(fieldValuePair.getValue()) ? null : fieldValuePair);
+                }
+                return CompletableFuture.completedFuture(transformed);
+            }
+        };
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder()
+                .args(LastNameTransformer.createFilterArgs())
+                .transform(transformer)
+                .build();
+
+        try {
+            filterExpression.getExpressionAsync(ExpressionFormat.SQL).join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        try {
+            filterExpression.getExpression(ExpressionFormat.SQL);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("No transformed value for lastName value Gupta", e.getMessage());
+        }
+    }
+}
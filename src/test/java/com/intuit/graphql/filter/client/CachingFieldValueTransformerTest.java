@@ -0,0 +1,119 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.client;
+
+import com.intuit.graphql.filter.common.LastNameTransformer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachingFieldValueTransformerTest {
+
+    @Test
+    public void repeatedValuesAreServedFromCache() {
+        LastNameTransformer delegate = new LastNameTransformer();
+        CachingFieldValueTransformer transformer = CachingFieldValueTransformer
+                .newCachingFieldValueTransformerBuilder(delegate)
+                .build();
+
+        String first = FilterExpression.newFilterExpressionBuilder()
+                .args(LastNameTransformer.createFilterArgs())
+                .transform(transformer)
+                .build()
+                .getExpression(ExpressionFormat.SQL);
+        String second = FilterExpression.newFilterExpressionBuilder()
+                .args(LastNameTransformer.createFilterArgs())
+                .transform(transformer)
+                .build()
+                .getExpression(ExpressionFormat.SQL);
+
+        Assert.assertEquals("WHERE ((last_name IN ('JAISWAL', 'GUPTA')) AND ((last_name = 'JAISWAL') OR (age > '25')))", first);
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(2, delegate.getValueCalls());
+        Assert.assertEquals(2, transformer.getMissCount());
+        Assert.assertEquals(2, transformer.getHitCount());
+        Assert.assertEquals(2, transformer.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedValueIsEvicted() {
+        LastNameTransformer delegate = new LastNameTransformer();
+        CachingFieldValueTransformer transformer = CachingFieldValueTransformer
+                .newCachingFieldValueTransformerBuilder(delegate)
+                .maximumSize(2)
+                .build();
+
+        transformer.transformValue("lastName", "a");
+        transformer.transformValue("lastName", "b");
+        transformer.transformValue("lastName", "a");
+        transformer.transformValue("lastName", "c");
+        transformer.transformValue("lastName", "a");
+        transformer.transformValue("lastName", "b");
+
+        Assert.assertEquals(4, delegate.getValueCalls());
+        Assert.assertEquals(2, transformer.getHitCount());
+        Assert.assertEquals(2, transformer.getEvictionCount());
+        Assert.assertEquals(2, transformer.size());
+    }
+
+    @Test
+    public void valuesExpireAfterWrite() {
+        LastNameTransformer delegate = new LastNameTransformer();
+        AtomicLong now = new AtomicLong();
+        CachingFieldValueTransformer transformer = CachingFieldValueTransformer
+                .newCachingFieldValueTransformerBuilder(delegate)
+                .expireAfterWrite(1, TimeUnit.MINUTES)
+                .ticker(now::get)
+                .build();
+
+        transformer.transformValue("lastName", "a");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        transformer.transformValue("lastName", "a");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Object value = transformer.transformValue("lastName", "a").getValue();
+
+        Assert.assertEquals("A", value);
+        Assert.assertEquals(2, delegate.getValueCalls());
+        Assert.assertEquals(1, transformer.getHitCount());
+        Assert.assertEquals(1, transformer.getEvictionCount());
+    }
+
+    @Test
+    public void onlyEnabledFieldsAreCached() {
+        LastNameTransformer delegate = new LastNameTransformer();
+        CachingFieldValueTransformer transformer = CachingFieldValueTransformer
+                .newCachingFieldValueTransformerBuilder(delegate)
+                .fields("lastName")
+                .build();
+
+        transformer.transformValue("lastName", "a");
+        transformer.transformValue("lastName", "a");
+        transformer.transformValue("firstName", "a");
+        transformer.transformValue("firstName", "a");
+
+        Assert.assertEquals(3, delegate.getValueCalls());
+        Assert.assertEquals(1, transformer.getHitCount());
+        Assert.assertEquals(1, transformer.getMissCount());
+        Assert.assertEquals(1, transformer.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maximumSizeMustBePositive() {
+        CachingFieldValueTransformer.newCachingFieldValueTransformerBuilder(new LastNameTransformer()).maximumSize(0);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.client;
+
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.visitors.InfixExpressionVisitor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class FilterExpressionCacheTest {
+
+    @Test
+    public void sameShapeRebindsValues() {
+        FilterExpressionCache cache = FilterExpressionCache.newFilterExpressionCacheBuilder().build();
+        FilterExpressionParser expressionParser = new FilterExpressionParser(cache);
+
+        Expression first = expressionParser.parseFilterExpression(createCompoundFilterArgMap("ABC", "XYZ"));
+        Expression second = expressionParser.parseFilterExpression(createCompoundFilterArgMap("DEF", "UVW"));
+
+        Assert.assertEquals("((firstName contains ABC) or (lastName equals XYZ))", first.infix());
+        Assert.assertEquals("((firstName contains DEF) or (lastName equals UVW))", second.infix());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void listValuesAreRebound() {
+        FilterExpressionCache cache = FilterExpressionCache.newFilterExpressionCacheBuilder().build();
+        FilterExpressionParser expressionParser = new FilterExpressionParser(cache);
+
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("age", "in", Arrays.asList(25, 30)));
+        Expression expression = expressionParser.parseFilterExpression(createBinaryFilterArgMap("age", "in", Arrays.asList(40, 45, 50)));
+
+        Assert.assertEquals("(age in [40, 45, 50])", new InfixExpressionVisitor(null, null).expression(expression));
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void visitorsAreSharedPerFormat() {
+        Object first = ExpressionVisitorFactory.getExpressionVisitor(ExpressionFormat.SQL);
+        Object second = ExpressionVisitorFactory.getExpressionVisitor(ExpressionFormat.SQL);
+
+        Assert.assertSame(first, second);
+        Assert.assertNotSame(first, ExpressionVisitorFactory.getExpressionVisitor(ExpressionFormat.INFIX));
+        Assert.assertSame(ExpressionVisitorFactory.getExpressionVisitor(ExpressionFormat.INFIX),
+                ExpressionVisitorFactory.getExpressionVisitor(null));
+    }
+
+    @Test
+    public void differentShapesAreCachedSeparately() {
+        FilterExpressionCache cache = FilterExpressionCache.newFilterExpressionCacheBuilder().build();
+        FilterExpressionParser expressionParser = new FilterExpressionParser(cache);
+
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("firstName", "contains", "ABC"));
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("firstName", "equals", "ABC"));
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("lastName", "contains", "ABC"));
+
+        Assert.assertEquals(0, cache.getHitCount());
+        Assert.assertEquals(3, cache.getMissCount());
+        Assert.assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedShapeIsEvicted() {
+        FilterExpressionCache cache = FilterExpressionCache.newFilterExpressionCacheBuilder()
+                .maximumSize(2)
+                .evictionPolicy(FilterExpressionCache.EvictionPolicy.LRU)
+                .build();
+        FilterExpressionParser expressionParser = new FilterExpressionParser(cache);
+
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("firstName", "contains", "A"));
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("lastName", "contains", "B"));
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("firstName", "contains", "C"));
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("age", "gt", 25));
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("firstName", "contains", "D"));
+
+        Assert.assertEquals(2, cache.getHitCount());
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void oldestShapeIsEvicted() {
+        FilterExpressionCache cache = FilterExpressionCache.newFilterExpressionCacheBuilder()
+                .maximumSize(2)
+                .evictionPolicy(FilterExpressionCache.EvictionPolicy.FIFO)
+                .build();
+        FilterExpressionParser expressionParser = new FilterExpressionParser(cache);
+
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("firstName", "contains", "A"));
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("lastName", "contains", "B"));
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("firstName", "contains", "C"));
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("age", "gt", 25));
+        expressionParser.parseFilterExpression(createBinaryFilterArgMap("firstName", "contains", "D"));
+
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(2, cache.getEvictionCount());
+    }
+
+    @Test
+    public void invalidFilterIsNotCached() {
+        FilterExpressionCache cache = FilterExpressionCache.newFilterExpressionCacheBuilder().build();
+        FilterExpressionParser expressionParser = new FilterExpressionParser(cache);
+        Map<String, Object> argMaps = createBinaryFilterArgMap("firstName", "contains", "ABC");
+        argMaps.putAll(createBinaryFilterArgMap("lastName", "contains", "XYZ"));
+
+        Expression expression = expressionParser.parseFilterExpression(argMaps);
+
+        Assert.assertNull(expression);
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void filterExpressionBuilderUsesCache() {
+        FilterExpressionCache cache = FilterExpressionCache.newFilterExpressionCacheBuilder().build();
+        for (String name : Arrays.asList("ABC", "DEF")) {
+            Map<String, Object> args = new HashMap<>();
+            args.put("filter", createCompoundFilterArgMap(name, "XYZ"));
+            FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder()
+                    .args(args)
+                    .cache(cache)
+                    .build();
+            String sql = filterExpression.getExpression(ExpressionFormat.SQL);
+            Assert.assertEquals("WHERE ((firstName LIKE '%" + name + "%') OR (lastName = 'XYZ'))", sql);
+        }
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    private Map<String, Object> createBinaryFilterArgMap(String left, String op, Object right) {
+        Map<String, Object> argsMap = new LinkedHashMap<>();
+        Map<String, Object> nestedMap = new LinkedHashMap<>();
+        nestedMap.put(op,right);
+        argsMap.put(left,nestedMap);
+        return argsMap;
+    }
+
+    private Map<String, Object> createCompoundFilterArgMap(String firstName, String lastName) {
+        Map<String, Object> argsMap = new HashMap<>();
+        List<Map> mapList = new ArrayList<>();
+        mapList.add(createBinaryFilterArgMap("firstName", "contains", firstName));
+        mapList.add(createBinaryFilterArgMap("lastName", "equals", lastName));
+        argsMap.put("or",mapList);
+        return argsMap;
+    }
+}
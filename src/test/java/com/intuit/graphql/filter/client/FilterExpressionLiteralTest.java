@@ -0,0 +1,197 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.client;
+
+import graphql.ExecutionInput;
+import graphql.GraphQL;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.parser.Parser;
+import graphql.scalars.ExtendedScalars;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static graphql.schema.idl.TypeRuntimeWiring.newTypeWiring;
+
+public class FilterExpressionLiteralTest {
+
+    private GraphQLSchema graphQLSchema;
+    private GraphQL graphQL;
+    private String literalExpression;
+    private String argsExpression;
+
+    @Before
+    public void init() throws IOException {
+        String filePath = getClass().getClassLoader().getResource("schema.graphql").getPath();
+        String sdl = new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8);
+        RuntimeWiring runtimeWiring = RuntimeWiring.newRuntimeWiring()
+                .scalar(ExtendedScalars.DateTime)
+                .type(newTypeWiring("Query").dataFetcher("searchEmployees", environment -> {
+                    literalExpression = FilterExpression.newFilterExpressionBuilder()
+                            .environment(environment)
+                            .build()
+                            .getExpression(ExpressionFormat.INFIX);
+                    argsExpression = FilterExpression.newFilterExpressionBuilder()
+                            .args(environment.getArguments())
+                            .build()
+                            .getExpression(ExpressionFormat.INFIX);
+                    return null;
+                }))
+                .build();
+        graphQLSchema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), runtimeWiring);
+        graphQL = GraphQL.newGraphQL(graphQLSchema).build();
+    }
+
+    @Test
+    public void literalsMatchCoercedArguments() {
+        graphQL.execute("{ searchEmployees (filter : { and : ["
+                + " { firstName : { in : [\"Saurabh\", \"Dan\"] } },"
+                + " { age : { gte : 25 } },"
+                + " { not : { birthDate : { lt : \"2000-01-01T00:00:00Z\" } } } ] }) { firstName } }");
+
+        Assert.assertNotNull(literalExpression);
+        Assert.assertEquals(argsExpression, literalExpression);
+    }
+
+    @Test
+    public void variablesAreResolved() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("age", 30);
+        variables.put("names", "Saurabh");
+        graphQL.execute(ExecutionInput.newExecutionInput()
+                .query("query ($age : Int, $names : [String!]) { searchEmployees (filter : { or : ["
+                        + " { age : { lt : $age } }, { firstName : { in : $names } } ] }) { firstName } }")
+                .variables(variables));
+
+        Assert.assertEquals("((age lt 30) or (firstName in [Saurabh]))", literalExpression);
+        Assert.assertEquals(argsExpression, literalExpression);
+    }
+
+    @Test
+    public void filterVariableIsResolved() {
+        Map<String, Object> filter = Collections.singletonMap("firstName", Collections.singletonMap("equals", "Saurabh"));
+        graphQL.execute(ExecutionInput.newExecutionInput()
+                .query("query ($filter : EmployeeFilter) { searchEmployees (filter : $filter) { firstName } }")
+                .variables(Collections.singletonMap("filter", filter)));
+
+        Assert.assertEquals("(firstName equals Saurabh)", literalExpression);
+    }
+
+    @Test
+    public void nestedVariablesAreResolved() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", Collections.singletonMap("contains", "Saurabh"));
+        variables.put("filters", Arrays.asList(
+                Collections.singletonMap("age", Collections.singletonMap("gte", 25)),
+                Collections.singletonMap("birthDate", Collections.singletonMap("lt", "2000-01-01T00:00:00Z"))));
+        variables.put("filter", Collections.singletonMap("lastName", Collections.singletonMap("equals", "Jaiswal")));
+        graphQL.execute(ExecutionInput.newExecutionInput()
+                .query("query ($name : StringExpression, $filters : [EmployeeFilter!], $filter : EmployeeFilter) {"
+                        + " searchEmployees (filter : { and : [ { firstName : $name }, { or : $filters },"
+                        + " { not : $filter } ] }) { firstName } }")
+                .variables(variables));
+
+        Assert.assertNotNull(literalExpression);
+        Assert.assertTrue(literalExpression.startsWith("((firstName contains Saurabh) and ((age gte 25) or (birthDate lt "));
+        Assert.assertEquals(argsExpression, literalExpression);
+    }
+
+    @Test
+    public void literalIsCachedByDocumentNode() {
+        Document document = new Parser().parseDocument(
+                "{ searchEmployees (filter : { age : { eq : 25 } }) { firstName } }");
+        Field field = firstField(document);
+        GraphQLFieldDefinition fieldDefinition = graphQLSchema.getQueryType().getFieldDefinition("searchEmployees");
+        FilterExpressionCache cache = FilterExpressionCache.newFilterExpressionCacheBuilder().build();
+
+        for (int i = 0; i < 3; i++) {
+            FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder()
+                    .field(field)
+                    .fieldDefinition(fieldDefinition)
+                    .cache(cache)
+                    .build();
+            Assert.assertEquals("(age eq 25)", filterExpression.getExpression(ExpressionFormat.INFIX));
+        }
+
+        Assert.assertEquals(1, cache.getLiteralMissCount());
+        Assert.assertEquals(2, cache.getLiteralHitCount());
+        Assert.assertEquals(1, cache.literalSize());
+        Assert.assertEquals(0, cache.getMissCount());
+        Assert.assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void cachedLiteralsAreBounded() {
+        GraphQLFieldDefinition fieldDefinition = graphQLSchema.getQueryType().getFieldDefinition("searchEmployees");
+        FilterExpressionCache cache = FilterExpressionCache.newFilterExpressionCacheBuilder()
+                .maximumSize(2)
+                .build();
+
+        for (int age = 20; age < 23; age++) {
+            Document document = new Parser().parseDocument(
+                    "{ searchEmployees (filter : { age : { eq : " + age + " } }) { firstName } }");
+            FilterExpression.newFilterExpressionBuilder()
+                    .field(firstField(document))
+                    .fieldDefinition(fieldDefinition)
+                    .cache(cache)
+                    .build();
+        }
+
+        Assert.assertEquals(2, cache.literalSize());
+        Assert.assertEquals(1, cache.getLiteralEvictionCount());
+        Assert.assertEquals(3, cache.getLiteralMissCount());
+    }
+
+    @Test
+    public void literalWithVariablesIsNotCached() {
+        Document document = new Parser().parseDocument(
+                "query ($age : Int) { searchEmployees (filter : { age : { eq : $age } }) { firstName } }");
+        Field field = firstField(document);
+        FilterExpressionCache cache = FilterExpressionCache.newFilterExpressionCacheBuilder().build();
+
+        for (int age = 20; age < 22; age++) {
+            FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder()
+                    .field(field)
+                    .variables(Collections.singletonMap("age", age))
+                    .cache(cache)
+                    .build();
+            Assert.assertEquals("(age eq " + age + ")", filterExpression.getExpression(ExpressionFormat.INFIX));
+        }
+
+        Assert.assertEquals(0, cache.getLiteralHitCount());
+    }
+
+    private Field firstField(Document document) {
+        OperationDefinition operation = (OperationDefinition) document.getDefinitions().get(0);
+        return (Field) operation.getSelectionSet().getSelections().get(0);
+    }
+}
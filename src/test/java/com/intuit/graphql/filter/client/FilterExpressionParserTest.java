@@ -15,7 +15,11 @@
  */
 package com.intuit.graphql.filter.client;
 
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
 import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.visitors.MongoCriteriaExpressionVisitor;
+import com.intuit.graphql.filter.visitors.SQLExpressionVisitor;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -54,6 +58,69 @@ public class FilterExpressionParserTest {
         Assert.assertEquals("((firstName contains ABC) or (lastName equals XYZ))", expression.infix());
     }
 
+    @Test
+    public void compoundExpressionIsFlatTest() {
+        // Create the mock data.
+        List<Map> mapList = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            mapList.add(createBinaryFilterArgMap("age", "eq", String.valueOf(i)));
+        }
+        Map<String, Object> argMaps = Collections.singletonMap("or", mapList);
+
+        // Invoke method under test.
+        FilterExpressionParser expressionParser = new FilterExpressionParser();
+        Expression expression = expressionParser.parseFilterExpression(argMaps);
+
+        // Verify assertions.
+        Assert.assertTrue(expression instanceof CompoundExpression);
+        List<Expression> operands = ((CompoundExpression) expression).getOperands();
+        Assert.assertEquals(5000, operands.size());
+        Assert.assertTrue(operands.get(4999) instanceof BinaryExpression);
+        Assert.assertTrue(new SQLExpressionVisitor(null, null).expression(expression)
+                .endsWith("(age = '4998') OR (age = '4999'))"));
+    }
+
+    @Test
+    public void deeplyNestedExpressionTest() {
+        // Create the mock data, nesting and / or / not 20000 levels deep.
+        Map<String, Object> argMaps = createBinaryFilterArgMap("age", "eq", "0");
+        for (int i = 1; i < 20000; i++) {
+            String operator = i % 3 == 0 ? "not" : i % 3 == 1 ? "and" : "or";
+            argMaps = "not".equals(operator) ? Collections.singletonMap(operator, argMaps)
+                    : Collections.singletonMap(operator, Arrays.asList(createBinaryFilterArgMap("age", "eq", String.valueOf(i)), argMaps));
+        }
+        FilterExpressionCache expressionCache = FilterExpressionCache.newFilterExpressionCacheBuilder().build();
+
+        // Invoke method under test.
+        Expression expression = new FilterExpressionParser().parseFilterExpression(argMaps);
+        new FilterExpressionParser(expressionCache).parseFilterExpression(argMaps);
+        Expression cachedExpression = new FilterExpressionParser(expressionCache).parseFilterExpression(argMaps);
+
+        // Verify assertions.
+        Assert.assertEquals(1, expressionCache.getHitCount());
+        String sql = new SQLExpressionVisitor(null, null).expression(expression);
+        Assert.assertTrue(sql.startsWith("WHERE ((age = '19999') AND ( NOT ((age = '19997') OR ((age = '19996') AND"));
+        Assert.assertTrue(sql.endsWith("(age = '0')" + String.join("", Collections.nCopies(19999, ")"))));
+        Assert.assertEquals(sql, new SQLExpressionVisitor(null, null).expression(cachedExpression));
+        Assert.assertNotNull(new MongoCriteriaExpressionVisitor(null, null).expression(expression));
+    }
+
+    @Test
+    public void compoundExpressionWithInvalidOperandTest() {
+        // Create the mock data.
+        Map<String, Object> invalidMap = new LinkedHashMap<>();
+        invalidMap.putAll(createBinaryFilterArgMap("firstName", "contains", "ABC"));
+        invalidMap.putAll(createBinaryFilterArgMap("lastName", "equals", "XYZ"));
+        Map<String, Object> argMaps = Collections.singletonMap("and",
+                Arrays.asList(createBinaryFilterArgMap("age", "eq", "30"), invalidMap));
+
+        // Invoke method under test.
+        FilterExpressionParser expressionParser = new FilterExpressionParser();
+        Expression expression = expressionParser.parseFilterExpression(argMaps);
+
+        // Verify assertions.
+        Assert.assertNull(expression);
+    }
 
     private Map<String, Object> createBinaryFilterArgMap(String left, String op, String right) {
         Map<String, Object> argsMap = new LinkedHashMap<>();
@@ -0,0 +1,130 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.client;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class FilterJsonParserTest {
+
+    @Test
+    public void jsonMatchesMapFilter() {
+        String json = "{ \"and\" : [ { \"firstName\" : { \"in\" : [\"Saurabh\", \"Dan\"] } },"
+                + " { \"or\" : [ { \"age\" : { \"gte\" : 25 } }, { \"not\" : { \"lastName\" : { \"equals\" : \"Jaiswal\" } } } ] } ] }";
+        Map<String, Object> filter = Collections.singletonMap("and", Arrays.asList(
+                Collections.singletonMap("firstName", Collections.singletonMap("in", Arrays.asList("Saurabh", "Dan"))),
+                Collections.singletonMap("or", Arrays.asList(
+                        Collections.singletonMap("age", Collections.singletonMap("gte", 25)),
+                        Collections.singletonMap("not", Collections.singletonMap("lastName",
+                                Collections.singletonMap("equals", "Jaiswal")))))));
+
+        String fromJson = FilterExpression.newFilterExpressionBuilder()
+                .json(json.getBytes(StandardCharsets.UTF_8))
+                .build()
+                .getExpression(ExpressionFormat.SQL);
+        String fromMap = FilterExpression.newFilterExpressionBuilder()
+                .args(Collections.singletonMap("filter", filter))
+                .build()
+                .getExpression(ExpressionFormat.SQL);
+
+        Assert.assertEquals(fromMap, fromJson);
+    }
+
+    @Test
+    public void numbersKeepTheirJsonType() {
+        Expression expression = parse("{ \"age\" : { \"in\" : [25, 3000000000, 2.5] } }");
+
+        List values = (List) ((ExpressionValue) ((BinaryExpression) expression).getRightOperand()).value();
+        Assert.assertEquals(Arrays.asList(25, 3000000000L, 2.5), values);
+    }
+
+    @Test
+    public void deeplyNestedJsonIsParsed() {
+        int depth = 20000;
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            json.append("{ \"not\" : ");
+        }
+        json.append("{ \"age\" : { \"eq\" : 1 } }");
+        for (int i = 0; i < depth; i++) {
+            json.append(" }");
+        }
+
+        Expression expression = parse(json.toString());
+
+        Assert.assertTrue(expression instanceof UnaryExpression);
+    }
+
+    @Test
+    public void streamIsLeftOpen() throws IOException {
+        ByteArrayInputStream stream = new ByteArrayInputStream(
+                "{ \"age\" : { \"eq\" : 1 } } trailing".getBytes(StandardCharsets.UTF_8));
+
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder().json(stream).build();
+
+        Assert.assertEquals("(age eq 1)", filterExpression.getExpression(ExpressionFormat.INFIX));
+    }
+
+    @Test
+    public void nullFilterHasNoExpression() {
+        Assert.assertNull(parse("null"));
+    }
+
+    @Test(expected = InvalidFilterException.class)
+    public void filterWithTwoKeysIsRejected() {
+        parse("{ \"age\" : { \"eq\" : 1 }, \"firstName\" : { \"equals\" : \"Saurabh\" } }");
+    }
+
+    @Test(expected = InvalidFilterException.class)
+    public void malformedJsonIsRejected() {
+        parse("{ \"age\" : { \"eq\" : ");
+    }
+
+    @Test
+    public void inValuesAreLimitedWhileStreaming() {
+        FilterLimits limits = FilterLimits.newFilterLimitsBuilder().maxInValues(2).build();
+        try {
+            FilterExpression.newFilterExpressionBuilder()
+                    .json("{ \"age\" : { \"in\" : [1, 2, 3] } }".getBytes(StandardCharsets.UTF_8))
+                    .limits(limits)
+                    .build();
+            Assert.fail("Expected the in values to be limited");
+        } catch (InvalidFilterException e) {
+            Assert.assertEquals("Filter exceeds the maximum of 2 values for in", e.getMessage());
+        }
+    }
+
+    private Expression parse(String json) {
+        try {
+            return new FilterExpressionParser().parseFilterJson(
+                    FilterJsonParser.JSON_FACTORY.createParser(json.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.client;
+
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.visitors.SQLExpressionVisitor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class FilterLimitsTest {
+
+    private final FilterLimits limits = FilterLimits.newFilterLimitsBuilder()
+            .maxDepth(3)
+            .maxNodes(5)
+            .maxInValues(3)
+            .maxStringLength(8)
+            .build();
+
+    @Test
+    public void filterWithinLimitsIsParsed() {
+        Map<String, Object> filter = and(field("firstName", "contains", "Saurabh"),
+                Collections.singletonMap("not", field("age", "in", Arrays.asList(30, 31, 32))));
+
+        Expression expression = new FilterExpressionParser(null, limits).parseFilterExpression(filter);
+
+        Assert.assertEquals("WHERE ((firstName LIKE '%Saurabh%') AND ( NOT (age IN ('30', '31', '32'))))",
+                new SQLExpressionVisitor(null, null).expression(expression));
+    }
+
+    @Test(expected = InvalidFilterException.class)
+    public void deepFilterIsRejected() {
+        Map<String, Object> filter = and(field("age", "eq", 30),
+                Collections.singletonMap("not", or(field("age", "eq", 31), field("age", "eq", 32))));
+
+        new FilterExpressionParser(null, limits).parseFilterExpression(filter);
+    }
+
+    @Test(expected = InvalidFilterException.class)
+    public void wideFilterIsRejected() {
+        List<Map<String, Object>> operands = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            operands.add(field("age", "eq", i));
+        }
+
+        new FilterExpressionParser(null, limits).parseFilterExpression(Collections.singletonMap("or", operands));
+    }
+
+    @Test(expected = InvalidFilterException.class)
+    public void longInListIsRejected() {
+        new FilterExpressionParser(null, limits).parseFilterExpression(field("age", "in", Arrays.asList(1, 2, 3, 4)));
+    }
+
+    @Test(expected = InvalidFilterException.class)
+    public void longStringIsRejected() {
+        new FilterExpressionParser(null, limits).parseFilterExpression(field("firstName", "equals", "Saurabhi Sharma"));
+    }
+
+    @Test
+    public void limitsAreEnforcedOnCachedShapes() {
+        FilterExpressionCache expressionCache = FilterExpressionCache.newFilterExpressionCacheBuilder().build();
+        FilterExpressionParser expressionParser = new FilterExpressionParser(expressionCache, limits);
+        expressionParser.parseFilterExpression(field("firstName", "equals", "Saurabh"));
+
+        try {
+            expressionParser.parseFilterExpression(field("firstName", "equals", "Saurabhi Sharma"));
+            Assert.fail();
+        } catch (InvalidFilterException e) {
+            Assert.assertEquals("Filter exceeds the maximum string length of 8", e.getMessage());
+        }
+        Assert.assertEquals(0, expressionCache.getHitCount());
+    }
+
+    @Test
+    public void costIsExposedAndLimited() {
+        Map<String, Object> filter = or(field("firstName", "contains", "Saurabh"),
+                field("age", "in", Arrays.asList(30, 31, 32)), field("age", "gt", 40));
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder()
+                .args(Collections.singletonMap("filter", filter))
+                .build();
+
+        Assert.assertEquals(1 + 5 + 3 + 1, filterExpression.getCost());
+        try {
+            FilterExpression.newFilterExpressionBuilder()
+                    .args(Collections.singletonMap("filter", filter))
+                    .limits(FilterLimits.newFilterLimitsBuilder().maxCost(9).build())
+                    .build();
+            Assert.fail();
+        } catch (InvalidFilterException e) {
+            Assert.assertEquals("Filter exceeds the maximum cost of 9", e.getMessage());
+        }
+    }
+
+    private static Map<String, Object> field(String field, String operator, Object value) {
+        return Collections.singletonMap(field, Collections.singletonMap(operator, value));
+    }
+
+    @SafeVarargs
+    private static Map<String, Object> and(Map<String, Object>... operands) {
+        return Collections.singletonMap("and", Arrays.asList(operands));
+    }
+
+    @SafeVarargs
+    private static Map<String, Object> or(Map<String, Object>... operands) {
+        return Collections.singletonMap("or", Arrays.asList(operands));
+    }
+}
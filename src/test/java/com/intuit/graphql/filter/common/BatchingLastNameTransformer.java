@@ -0,0 +1,60 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.common;
+
+import com.intuit.graphql.filter.client.AsyncFieldValueTransformer;
+import com.intuit.graphql.filter.client.FieldValuePair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * LastNameTransformer whose values are transformed
+ * in batches on another thread, recording the batches.
+ */
+public class BatchingLastNameTransformer implements AsyncFieldValueTransformer {
+
+    private final List<List<Object>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public String transformField(String fieldName) {
+        return LastNameTransformer.transformLastName(fieldName);
+    }
+
+    @Override
+    public CompletableFuture<List<FieldValuePair<? extends Object>>> transformValues(
+            List<FieldValuePair<? extends Object>> fieldValuePairs) {
+        List<Object> batch = new ArrayList<>();
+        for (FieldValuePair<? extends Object> fieldValuePair : fieldValuePairs) {
+            batch.add(fieldValuePair.getValue());
+        }
+        batches.add(batch);
+        return CompletableFuture.supplyAsync(() -> {
+            List<FieldValuePair<? extends Object>> transformed = new ArrayList<>();
+            for (FieldValuePair<? extends Object> fieldValuePair : fieldValuePairs) {
+                transformed.add(new FieldValuePair<>(fieldValuePair.getFieldName(),
+                        LastNameTransformer.transformLastNameValue(fieldValuePair.getValue())));
+            }
+            return transformed;
+        });
+    }
+
+    public List<List<Object>> getBatches() {
+        return batches;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.common;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Employee {
+
+    public static final List<Employee> EMPLOYEES = Arrays.asList(
+            new Employee("Saurabh", "Jaiswal", 32, LocalDate.of(1990, 1, 15)),
+            new Employee("Vinod", "Gupta", 30, LocalDate.of(1992, 5, 2)),
+            new Employee("Amit", "Kumar", 35, LocalDate.of(1997, 3, 10)),
+            new Employee("Saurabhi", "Sharma", 22, LocalDate.of(1999, 8, 20)),
+            new Employee("Priya", "Jaiswal", 27, LocalDate.of(1996, 2, 10)));
+
+    private String firstName;
+    private String lastName;
+    private int age;
+    private LocalDate birthDate;
+
+    public Employee(String firstName, String lastName, int age, LocalDate birthDate) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.age = age;
+        this.birthDate = birthDate;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public LocalDate getBirthDate() {
+        return birthDate;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> row = new HashMap<>();
+        row.put("firstName", firstName);
+        row.put("lastName", lastName);
+        row.put("age", age);
+        row.put("birthDate", birthDate);
+        return row;
+    }
+}
@@ -17,13 +17,17 @@ package com.intuit.graphql.filter.common;
 
 import com.intuit.graphql.filter.client.ExpressionFormat;
 import com.intuit.graphql.filter.client.FilterExpression;
+import com.intuit.graphql.filter.visitors.ParameterizedSQL;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.mongodb.core.query.Criteria;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * @author sjaiswal
@@ -36,6 +40,11 @@ public class EmployeeDataFetcher {
     private Criteria mongoCriteria;
     private org.springframework.data.elasticsearch.core.query.Criteria elasticsearchCriteria;
     private String dynamoDBExpression;
+    private ParameterizedSQL parameterizedSQL;
+    private ParameterizedSQL namedParameterizedSQL;
+    private List<String> filteredEmployees;
+    private List<String> filteredEmployeeRows;
+    private List<String> filteredTypedEmployees;
 
     public EmployeeDataFetcher() {
 
@@ -155,4 +164,68 @@ public class EmployeeDataFetcher {
         return dynamoDBExpression;
     }
 
+    public DataFetcher searchEmployeesParameterizedSQL() {
+        return new DataFetcher() {
+            @Override
+            public Object get(DataFetchingEnvironment dataFetchingEnvironment) throws Exception {
+                FilterExpression.FilterExpressionBuilder builder = FilterExpression.newFilterExpressionBuilder();
+                Map<String, String> fieldMap = new HashMap<>();
+                fieldMap.put("firstName","empFirstName");
+                FilterExpression filterExpression = builder.field(dataFetchingEnvironment.getField())
+                        .map(fieldMap)
+                        .args(dataFetchingEnvironment.getArguments())
+                        .build();
+                parameterizedSQL = filterExpression.getExpression(ExpressionFormat.SQL_PARAMETERIZED);
+                namedParameterizedSQL = filterExpression.getExpression(ExpressionFormat.SQL_NAMED_PARAMETERIZED);
+                return null;
+            }
+        };
+    }
+
+    public ParameterizedSQL getParameterizedSQL() {
+        return parameterizedSQL;
+    }
+
+    public ParameterizedSQL getNamedParameterizedSQL() {
+        return namedParameterizedSQL;
+    }
+
+    public DataFetcher searchEmployeesPredicate() {
+        return new DataFetcher() {
+            @Override
+            public Object get(DataFetchingEnvironment dataFetchingEnvironment) throws Exception {
+                FilterExpression.FilterExpressionBuilder builder = FilterExpression.newFilterExpressionBuilder();
+                FilterExpression filterExpression = builder.field(dataFetchingEnvironment.getField())
+                        .args(dataFetchingEnvironment.getArguments())
+                        .build();
+                Predicate<Object> predicate = filterExpression.getExpression(ExpressionFormat.PREDICATE);
+                filteredEmployees = Employee.EMPLOYEES.stream()
+                        .filter(predicate)
+                        .map(Employee::getFirstName)
+                        .collect(Collectors.toList());
+                filteredEmployeeRows = Employee.EMPLOYEES.stream()
+                        .map(Employee::toMap)
+                        .filter(predicate)
+                        .map(row -> (String) row.get("firstName"))
+                        .collect(Collectors.toList());
+                filteredTypedEmployees = Employee.EMPLOYEES.stream()
+                        .filter(filterExpression.getPredicate(Employee.class))
+                        .map(Employee::getFirstName)
+                        .collect(Collectors.toList());
+                return null;
+            }
+        };
+    }
+
+    public List<String> getFilteredEmployees() {
+        return filteredEmployees;
+    }
+
+    public List<String> getFilteredEmployeeRows() {
+        return filteredEmployeeRows;
+    }
+
+    public List<String> getFilteredTypedEmployees() {
+        return filteredTypedEmployees;
+    }
 }
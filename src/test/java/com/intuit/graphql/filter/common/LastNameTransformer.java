@@ -0,0 +1,89 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.common;
+
+import com.intuit.graphql.filter.client.FieldValuePair;
+import com.intuit.graphql.filter.client.FieldValueTransformer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renames lastName to last_name and upper cases
+ * its values, counting the calls.
+ */
+public class LastNameTransformer implements FieldValueTransformer {
+
+    private final AtomicInteger fieldCalls = new AtomicInteger();
+    private final AtomicInteger valueCalls = new AtomicInteger();
+
+    /**
+     * Returns the arguments of the filter
+     * ((lastName in [Jaiswal, Gupta]) and
+     * ((lastName equals Jaiswal) or (age gt 25))).
+     * @return
+     */
+    public static Map<String, Object> createFilterArgs() {
+        Map<String, Object> in = Collections.singletonMap("lastName",
+                Collections.singletonMap("in", Arrays.asList("Jaiswal", "Gupta")));
+        Map<String, Object> or = Collections.singletonMap("or", Arrays.asList(
+                Collections.singletonMap("lastName", Collections.singletonMap("equals", "Jaiswal")),
+                Collections.singletonMap("age", Collections.singletonMap("gt", 25))));
+        Map<String, Object> args = new HashMap<>();
+        args.put("filter", Collections.singletonMap("and", Arrays.asList(in, or)));
+        return args;
+    }
+
+    static String transformLastName(String fieldName) {
+        return "lastName".equals(fieldName) ? "last_name" : null;
+    }
+
+    static Object transformLastNameValue(Object value) {
+        if (value instanceof List) {
+            List<Object> values = new ArrayList<>();
+            for (Object element : (List<?>) value) {
+                values.add(transformLastNameValue(element));
+            }
+            return values;
+        }
+        return value.toString().toUpperCase();
+    }
+
+    @Override
+    public String transformField(String fieldName) {
+        fieldCalls.incrementAndGet();
+        return transformLastName(fieldName);
+    }
+
+    @Override
+    public FieldValuePair<? extends Object> transformValue(String fieldName, Object value) {
+        valueCalls.incrementAndGet();
+        return new FieldValuePair<>(fieldName, transformLastNameValue(value));
+    }
+
+    public int getFieldCalls() {
+        return fieldCalls.get();
+    }
+
+    public int getValueCalls() {
+        return valueCalls.get();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.encoding;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.client.ExpressionFormat;
+import com.intuit.graphql.filter.client.FilterExpression;
+import com.intuit.graphql.filter.optimizer.UnsatisfiableExpression;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+public class CompactExpressionTest {
+
+    @Test
+    public void treeIsRoundTripped() {
+        Expression expression = new CompoundExpression(Operator.AND, Arrays.asList(
+                binary("firstName", Operator.IN, Arrays.asList("Saurabh", "Dan", "Saurabh")),
+                binary("age", Operator.GTE, -25),
+                binary("id", Operator.EQ, 3000000000L),
+                binary("salary", Operator.LT, 2.5),
+                binary("active", Operator.EQ, true),
+                binary("balance", Operator.EQ, new BigDecimal("10.25")),
+                binary("birthDate", Operator.GT, new Date(0)),
+                binary("lastName", Operator.EQUALS, null),
+                new UnaryExpression(binary("age", Operator.BETWEEN, Arrays.asList(1, 2)), Operator.NOT, null)));
+
+        CompactExpression compactExpression = CompactExpression.encode(expression, new FieldTable());
+
+        Assert.assertEquals(expression, compactExpression.decode());
+        Assert.assertEquals(4, compactExpression.getConstantCount());
+    }
+
+    @Test
+    public void comparisonTakesTwoWords() {
+        CompactExpression compactExpression = CompactExpression.encode(binary("age", Operator.GTE, 25), new FieldTable());
+
+        Assert.assertEquals(2, compactExpression.getCodeLength());
+        Assert.assertEquals(0, compactExpression.getConstantCount());
+    }
+
+    @Test
+    public void readerReadsInPlace() {
+        FieldTable fieldTable = new FieldTable();
+        CompactExpression compactExpression = CompactExpression.encode(new CompoundExpression(
+                binary("age", Operator.GTE, 25), Operator.OR, binary("salary", Operator.LT, 2.5)), fieldTable);
+
+        CompactExpression.Reader reader = compactExpression.reader();
+        Assert.assertTrue(reader.next());
+        Assert.assertEquals(CompactExpression.COMPOUND, reader.kind());
+        Assert.assertEquals(Operator.OR, reader.operator());
+        Assert.assertEquals(2, reader.operandCount());
+        Assert.assertTrue(reader.next());
+        Assert.assertEquals("age", reader.fieldName());
+        Assert.assertEquals(CompactExpression.INT, reader.valueType());
+        Assert.assertEquals(25, reader.longValue());
+        Assert.assertTrue(reader.next());
+        Assert.assertEquals(Operator.LT, reader.operator());
+        Assert.assertEquals(2.5, reader.doubleValue(), 0);
+        Assert.assertFalse(reader.next());
+        Assert.assertEquals(2, fieldTable.size());
+    }
+
+    @Test
+    public void unsatisfiableExpressionIsRoundTripped() {
+        Expression expression = new UnsatisfiableExpression(new CompoundExpression(
+                binary("age", Operator.GT, 50), Operator.AND, binary("age", Operator.LT, 10)));
+
+        Expression decoded = CompactExpression.encode(expression, new FieldTable()).decode();
+
+        Assert.assertTrue(decoded instanceof UnsatisfiableExpression);
+        Assert.assertEquals(expression, decoded);
+    }
+
+    @Test
+    public void deeplyNestedTreeIsDecoded() {
+        Expression expression = binary("age", Operator.EQ, 1);
+        for (int i = 0; i < 20000; i++) {
+            expression = new UnaryExpression(expression, Operator.NOT, null);
+        }
+
+        Assert.assertEquals(expression, CompactExpression.encode(expression, new FieldTable()).decode());
+    }
+
+    @Test
+    public void compactExpressionIsRendered() {
+        Map<String, Object> filter = Collections.singletonMap("or", Arrays.asList(
+                Collections.singletonMap("firstName", Collections.singletonMap("contains", "Saurabh")),
+                Collections.singletonMap("age", Collections.singletonMap("gte", 25))));
+        FilterExpression parsed = FilterExpression.newFilterExpressionBuilder()
+                .args(Collections.singletonMap("filter", filter))
+                .build();
+        CompactExpression compactExpression = CompactExpression.encode(parsed.getExpressionTree(), new FieldTable());
+
+        FilterExpression stored = FilterExpression.newFilterExpressionBuilder()
+                .expression(compactExpression)
+                .build();
+
+        Assert.assertEquals(parsed.<String>getExpression(ExpressionFormat.SQL), stored.getExpression(ExpressionFormat.SQL));
+    }
+
+    private Expression binary(String field, Operator operator, Object value) {
+        return new BinaryExpression(new ExpressionField(field), operator, new ExpressionValue<>(value));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.encoding;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.client.ExpressionFormat;
+import com.intuit.graphql.filter.client.FilterExpression;
+import com.intuit.graphql.filter.optimizer.ExpressionOptimizer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+public class ExpressionSerializerTest {
+
+    @Test
+    public void treeIsRoundTripped() {
+        Expression expression = new CompoundExpression(Operator.OR, Arrays.asList(
+                binary("firstName", Operator.IN, Arrays.asList("Saurabh", "Dan")),
+                binary("age", Operator.GTE, -25),
+                binary("id", Operator.NE, Long.MIN_VALUE),
+                binary("salary", Operator.LT, 2.5),
+                binary("active", Operator.EQ, false),
+                binary("balance", Operator.EQ, new BigDecimal("10.25")),
+                binary("count", Operator.EQ, new BigInteger("123456789012345678901234567890")),
+                binary("lastName", Operator.NOT_EQUALS, null),
+                new UnaryExpression(binary("birthDate", Operator.BETWEEN,
+                        Arrays.asList(new Date(0), new Date(86400000L))), Operator.NOT, null)));
+
+        byte[] bytes = ExpressionSerializer.serialize(expression);
+
+        Assert.assertEquals(expression, ExpressionSerializer.deserialize(bytes));
+    }
+
+    @Test
+    public void comparisonIsCompact() {
+        byte[] bytes = ExpressionSerializer.serialize(binary("age", Operator.GTE, 25));
+
+        /* Header, field table, node, field index, value type and value.*/
+        Assert.assertEquals(4 + 5 + 1 + 1 + 1 + 1, bytes.length);
+    }
+
+    @Test
+    public void optimizedFilterIsShared() {
+        Map<String, Object> filter = Collections.singletonMap("and", Arrays.asList(
+                Collections.singletonMap("age", Collections.singletonMap("gt", 50)),
+                Collections.singletonMap("age", Collections.singletonMap("lt", 10))));
+        FilterExpression parsed = FilterExpression.newFilterExpressionBuilder()
+                .args(Collections.singletonMap("filter", filter))
+                .optimizer(ExpressionOptimizer.newExpressionOptimizerBuilder().build())
+                .build();
+
+        byte[] bytes = ExpressionSerializer.serialize(parsed.getExpressionTree());
+        FilterExpression shared = FilterExpression.newFilterExpressionBuilder()
+                .expression(ExpressionSerializer.deserialize(bytes, new FieldTable()))
+                .build();
+
+        Assert.assertTrue(shared.isUnsatisfiable());
+        Assert.assertEquals(parsed.getCost(), shared.getCost());
+        Assert.assertEquals(parsed.<String>getExpression(ExpressionFormat.SQL), shared.getExpression(ExpressionFormat.SQL));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newerVersionIsRejected() {
+        byte[] bytes = ExpressionSerializer.serialize(binary("age", Operator.GTE, 25));
+        bytes[3] = (byte) (ExpressionSerializer.VERSION + 1);
+
+        ExpressionSerializer.deserialize(bytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedBytesAreRejected() {
+        byte[] bytes = ExpressionSerializer.serialize(new CompoundExpression(
+                binary("age", Operator.GTE, 25), Operator.AND, binary("age", Operator.LT, 50)));
+
+        ExpressionSerializer.deserialize(Arrays.copyOf(bytes, bytes.length - 4));
+    }
+
+    @Test
+    public void corruptCountsAreRejected() {
+        byte[][] payloads = {
+                /* A field table of Integer.MAX_VALUE names.*/
+                {'G', 'Q', 'F', 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07},
+                /* No fields and an AND, header 0, of Integer.MAX_VALUE operands.*/
+                {'G', 'Q', 'F', 1, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}
+        };
+        for (byte[] payload : payloads) {
+            try {
+                ExpressionSerializer.deserialize(payload);
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+                Assert.assertEquals("Truncated filter expression", e.getMessage());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedValueIsRejected() {
+        ExpressionSerializer.serialize(binary("id", Operator.EQ, java.util.UUID.randomUUID()));
+    }
+
+    private Expression binary(String field, Operator operator, Object value) {
+        return new BinaryExpression(new ExpressionField(field), operator, new ExpressionValue<>(value));
+    }
+}
@@ -0,0 +1,424 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.optimizer;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.client.ExpressionFormat;
+import com.intuit.graphql.filter.client.FilterExpression;
+import com.intuit.graphql.filter.common.Employee;
+import com.intuit.graphql.filter.visitors.MongoCriteriaExpressionVisitor;
+import com.intuit.graphql.filter.visitors.SQLExpressionVisitor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+public class ExpressionOptimizerTest {
+
+    private final ExpressionOptimizer optimizer = ExpressionOptimizer.newExpressionOptimizerBuilder().build();
+
+    @Test
+    public void nestedCompoundIsFlattened() {
+        Expression expression = or(eq("age", 30), or(equals("firstName", "Saurabh"), equals("lastName", "Jaiswal")));
+        OptimizationReport report = new OptimizationReport();
+
+        Expression optimized = optimizer.optimize(expression, report);
+
+        Assert.assertEquals("((age eq 30) or (firstName equals Saurabh) or (lastName equals Jaiswal))", optimized.infix());
+        Assert.assertEquals(1, report.getApplications(FlattenRule.NAME));
+        Assert.assertEquals(5, report.getNodesBefore());
+        Assert.assertEquals(4, report.getNodesAfter());
+    }
+
+    @Test
+    public void duplicateOperandsAreRemoved() {
+        Expression expression = and(equals("lastName", "Jaiswal"), or(eq("age", 30), eq("age", 30)),
+                equals("lastName", "Jaiswal"));
+
+        Expression optimized = optimizer.optimize(expression);
+
+        Assert.assertEquals("((lastName equals Jaiswal) and (age eq 30))", optimized.infix());
+    }
+
+    @Test
+    public void valuesOfDifferentTypesAreNotDuplicates() {
+        Expression expression = and(eq("age", 30), eq("age", "30"));
+
+        Expression optimized = optimizer.optimize(expression);
+
+        Assert.assertSame(expression, optimized);
+    }
+
+    @Test
+    public void doubleNegationIsRemoved() {
+        Expression expression = not(not(equals("firstName", "Saurabh")));
+
+        Expression optimized = optimizer.optimize(expression);
+
+        Assert.assertEquals("(firstName equals Saurabh)", optimized.infix());
+    }
+
+    @Test
+    public void constantsAreFolded() {
+        Expression expression = and(
+                binary("age", Operator.IN, Arrays.asList(30, 30)),
+                binary("lastName", Operator.IN, Arrays.asList("Jaiswal", "Gupta", "Jaiswal")),
+                binary("age", Operator.BETWEEN, Arrays.asList(40, 40)));
+        OptimizationReport report = new OptimizationReport();
+
+        Expression optimized = optimizer.optimize(expression, report);
+
+        Assert.assertEquals("WHERE ((age = '30') AND (lastName IN ('Jaiswal', 'Gupta')) AND (age = '40'))",
+                new SQLExpressionVisitor(null, null).expression(optimized));
+        Assert.assertEquals(3, report.getApplications(ConstantFoldingRule.NAME));
+    }
+
+    @Test
+    public void equalitiesOnOneFieldAreMergedIntoIn() {
+        Expression expression = or(equals("status", "A"), eq("age", 30), equals("status", "B"),
+                binary("status", Operator.IN, Arrays.asList("C", "A")), equals("lastName", "Jaiswal"));
+        OptimizationReport report = new OptimizationReport();
+
+        Expression optimized = optimizer.optimize(expression, report);
+
+        Assert.assertEquals("WHERE ((status IN ('A', 'B', 'C')) OR (age = '30') OR (lastName = 'Jaiswal'))",
+                new SQLExpressionVisitor(null, null).expression(optimized));
+        Assert.assertEquals(1, report.getApplications(EqualityToInRule.NAME));
+    }
+
+    @Test
+    public void equalitiesOnOneFieldBecomeSingleIn() {
+        Expression expression = or(eq("age", 30), eq("age", 31), eq("age", 32));
+
+        Expression optimized = optimizer.optimize(expression);
+
+        Assert.assertEquals("{ \"age\" : { \"$in\" : [30, 31, 32] } }",
+                new MongoCriteriaExpressionVisitor(null, null).expression(optimized).getCriteriaObject().toJson());
+    }
+
+    @Test
+    public void equalitiesUnderAndAreNotMerged() {
+        ExpressionOptimizer optimizer = ExpressionOptimizer.newExpressionOptimizerBuilder()
+                .disable(RangeMergeRule.NAME)
+                .build();
+        Expression expression = and(eq("age", 30), eq("age", 31));
+
+        Expression optimized = optimizer.optimize(expression);
+
+        Assert.assertSame(expression, optimized);
+    }
+
+    @Test
+    public void disabledRuleIsNotApplied() {
+        ExpressionOptimizer optimizer = ExpressionOptimizer.newExpressionOptimizerBuilder()
+                .disable(DuplicateRule.NAME)
+                .disable(RangeMergeRule.NAME)
+                .build();
+        Expression expression = and(eq("age", 30), eq("age", 30));
+        OptimizationReport report = new OptimizationReport();
+
+        Expression optimized = optimizer.optimize(expression, report);
+
+        Assert.assertSame(expression, optimized);
+        Assert.assertFalse(report.isChanged());
+        Assert.assertFalse(optimizer.getRuleNames().contains(DuplicateRule.NAME));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownRuleIsRejected() {
+        ExpressionOptimizer.newExpressionOptimizerBuilder().disable("unknown");
+    }
+
+    @Test
+    public void inputTreeIsNotModified() {
+        Expression expression = or(eq("age", 30), or(eq("age", 31), eq("age", 30)));
+        String infix = expression.infix();
+
+        optimizer.optimize(expression);
+
+        Assert.assertEquals(infix, expression.infix());
+    }
+
+    @Test
+    public void rangeOnOneFieldIsTightened() {
+        Expression expression = and(binary("age", Operator.GT, 20), binary("age", Operator.LT, 40),
+                eq("firstName", "Saurabh"), binary("age", Operator.LT, 30), binary("age", Operator.GTE, 18));
+
+        Expression optimized = optimizer.optimize(expression);
+
+        Assert.assertEquals("WHERE ((age > '20') AND (age < '30') AND (firstName = 'Saurabh'))",
+                new SQLExpressionVisitor(null, null).expression(optimized));
+    }
+
+    @Test
+    public void inclusiveBoundsAreMergedIntoBetween() {
+        Expression expression = and(binary("age", Operator.GTE, 20), binary("age", Operator.LTE, 30),
+                binary("age", Operator.BETWEEN, Arrays.asList(10, 35)));
+
+        Expression optimized = optimizer.optimize(expression);
+
+        Assert.assertEquals("WHERE (age BETWEEN '20' AND '30')", new SQLExpressionVisitor(null, null).expression(optimized));
+    }
+
+    @Test
+    public void boundsMeetingAtOneValueBecomeEquality() {
+        Expression expression = and(binary("age", Operator.GTE, 30), binary("age", Operator.LTE, 30L));
+
+        Expression optimized = optimizer.optimize(expression);
+
+        Assert.assertEquals("WHERE (age = '30')", new SQLExpressionVisitor(null, null).expression(optimized));
+    }
+
+    @Test
+    public void equalityWithinRangeIsKept() {
+        Expression expression = and(eq("age", 25), binary("age", Operator.GT, 20), binary("age", Operator.LT, 30.5));
+
+        Expression optimized = optimizer.optimize(expression);
+
+        Assert.assertEquals("WHERE (age = '25')", new SQLExpressionVisitor(null, null).expression(optimized));
+    }
+
+    @Test
+    public void emptyRangeIsUnsatisfiable() {
+        Expression expression = and(eq("firstName", "Saurabh"), binary("age", Operator.GT, 50), binary("age", Operator.LT, 10));
+
+        OptimizationReport report = new OptimizationReport();
+        Expression optimized = optimizer.optimize(expression, report);
+
+        Assert.assertTrue(optimized instanceof UnsatisfiableExpression);
+        Assert.assertEquals(1, report.getApplications(RangeMergeRule.NAME));
+        Assert.assertTrue(optimizer.optimize(and(binary("age", Operator.GT, 30), binary("age", Operator.LTE, 30)))
+                instanceof UnsatisfiableExpression);
+        Assert.assertTrue(optimizer.optimize(and(eq("age", 35), binary("age", Operator.BETWEEN, Arrays.asList(20, 30))))
+                instanceof UnsatisfiableExpression);
+    }
+
+    @Test
+    public void unsatisfiableOperandsOfOrAreRemoved() {
+        Expression contradiction = and(binary("age", Operator.GT, 50), binary("age", Operator.LT, 10));
+
+        Expression optimized = optimizer.optimize(or(equals("firstName", "Saurabh"), contradiction));
+        Expression unsatisfiable = optimizer.optimize(or(contradiction, and(contradiction, equals("lastName", "Jaiswal"))));
+
+        Assert.assertEquals("WHERE (firstName = 'Saurabh')", new SQLExpressionVisitor(null, null).expression(optimized));
+        Assert.assertTrue(unsatisfiable instanceof UnsatisfiableExpression);
+    }
+
+    @Test
+    public void valuesOfDifferentTypesAreNotMerged() {
+        Expression expression = and(binary("age", Operator.GT, 20), binary("age", Operator.LT, "30"));
+
+        Assert.assertSame(expression, optimizer.optimize(expression));
+    }
+
+    @Test
+    public void stringComparisonsAreNotMerged() {
+        Expression equal = and(equals("firstName", "Saurabh"), equals("firstName", "Vinod"));
+        Expression range = and(binary("firstName", Operator.GT, "A"), binary("firstName", Operator.LT, "B"),
+                binary("firstName", Operator.LT, "C"));
+
+        Assert.assertSame(equal, optimizer.optimize(equal));
+        Assert.assertSame(range, optimizer.optimize(range));
+    }
+
+    @Test
+    public void dateRangesAreMerged() {
+        Date early = new Date(0);
+        Date late = new Date(1000);
+
+        Assert.assertTrue(optimizer.optimize(and(binary("birthDate", Operator.GT, late),
+                binary("birthDate", Operator.LT, early))) instanceof UnsatisfiableExpression);
+    }
+
+    @Test
+    public void filterExpressionReportsUnsatisfiableFilter() {
+        Map<String, Object> filter = Collections.singletonMap("and", Arrays.asList(
+                Collections.singletonMap("age", Collections.singletonMap("gt", 50)),
+                Collections.singletonMap("age", Collections.singletonMap("lt", 10))));
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder()
+                .args(Collections.singletonMap("filter", filter))
+                .optimizer(optimizer)
+                .build();
+
+        String sql = filterExpression.getExpression(ExpressionFormat.SQL);
+
+        Assert.assertTrue(filterExpression.isUnsatisfiable());
+        Assert.assertEquals("WHERE ((age > '50') AND (age < '10'))", sql);
+    }
+
+    @Test
+    public void notIsPushedDownToComparisons() {
+        ExpressionOptimizer optimizer = ExpressionOptimizer.newExpressionOptimizerBuilder()
+                .enable(NotPushDownRule.NAME)
+                .build();
+        Expression expression = not(and(binary("age", Operator.GT, 30),
+                or(binary("lastName", Operator.IN, Arrays.asList("Jaiswal", "Gupta")), not(equals("firstName", "Amit")))));
+
+        Expression optimized = optimizer.optimize(expression);
+
+        Assert.assertEquals("WHERE ((age <= '30') OR ((lastName NOT IN ('Jaiswal', 'Gupta')) AND (firstName = 'Amit')))",
+                new SQLExpressionVisitor(null, null).expression(optimized));
+        Assert.assertEquals("{ \"$or\" : [{ \"age\" : { \"$lte\" : 30 } }, { \"$and\" : [{ \"lastName\" : { \"$nin\" : [\"Jaiswal\", \"Gupta\"] } }, "
+                        + "{ \"firstName\" : \"Amit\" }] }] }",
+                new MongoCriteriaExpressionVisitor(null, null).expression(optimized).getCriteriaObject().toJson());
+    }
+
+    @Test
+    public void negatedBetweenBecomesOutsideRange() {
+        ExpressionOptimizer optimizer = ExpressionOptimizer.newExpressionOptimizerBuilder()
+                .enable(NotPushDownRule.NAME)
+                .build();
+
+        Expression optimized = optimizer.optimize(not(binary("age", Operator.BETWEEN, Arrays.asList(20, 30))));
+
+        Assert.assertEquals("WHERE ((age < '20') OR (age > '30'))", new SQLExpressionVisitor(null, null).expression(optimized));
+    }
+
+    @Test
+    public void notIsKeptForStringMatches() {
+        ExpressionOptimizer optimizer = ExpressionOptimizer.newExpressionOptimizerBuilder()
+                .enable(NotPushDownRule.NAME)
+                .build();
+        Expression expression = not(binary("firstName", Operator.CONTAINS, "Saurabh"));
+
+        Assert.assertSame(expression, optimizer.optimize(expression));
+        Assert.assertFalse(ExpressionOptimizer.newExpressionOptimizerBuilder().build().getRuleNames()
+                .contains(NotPushDownRule.NAME));
+    }
+
+    @Test
+    public void selectiveAndCheapComparisonsComeFirst() {
+        ExpressionOptimizer optimizer = ExpressionOptimizer.newExpressionOptimizerBuilder()
+                .enable(SelectivityRule.NAME)
+                .build();
+        Expression expression = and(binary("firstName", Operator.CONTAINS, "Saurabh"),
+                binary("birthDate", Operator.GT, 1990), eq("age", 32));
+
+        Expression optimized = optimizer.optimize(expression);
+
+        Assert.assertEquals("WHERE ((age = '32') AND (birthDate > '1990') AND (firstName LIKE '%Saurabh%'))",
+                new SQLExpressionVisitor(null, null).expression(optimized));
+        Assert.assertSame(optimized, optimizer.optimize(optimized));
+    }
+
+    @Test
+    public void sampledStatisticsDriveTheOrder() {
+        SampledStatistics.SampledStatisticsBuilder statisticsBuilder = SampledStatistics.newSampledStatisticsBuilder();
+        for (Employee employee : Employee.EMPLOYEES) {
+            statisticsBuilder.sample(employee.toMap());
+        }
+        SampledStatistics statistics = statisticsBuilder.build();
+        ExpressionOptimizer optimizer = ExpressionOptimizer.newExpressionOptimizerBuilder()
+                .rule(new SelectivityRule(statistics))
+                .build();
+
+        /* Every employee is older than 20, but only one is called Kumar. */
+        Expression and = optimizer.optimize(and(binary("age", Operator.GT, 20), equals("lastName", "Kumar")));
+        Expression or = optimizer.optimize(or(equals("lastName", "Kumar"), binary("age", Operator.GT, 20)));
+
+        Assert.assertEquals("WHERE ((lastName = 'Kumar') AND (age > '20'))", new SQLExpressionVisitor(null, null).expression(and));
+        Assert.assertEquals("WHERE ((age > '20') OR (lastName = 'Kumar'))", new SQLExpressionVisitor(null, null).expression(or));
+    }
+
+    @Test
+    public void fieldStatisticsEstimateSelectivity() {
+        FieldStatistics ages = SampledStatistics.newSampledStatisticsBuilder()
+                .sample("age", 20).sample("age", 30).sample("age", 40).sample("age", 50).sample("age", null)
+                .build()
+                .getFieldStatistics("age");
+
+        Assert.assertEquals(4, ages.getDistinctValues());
+        Assert.assertEquals(0.2, ages.getNullFraction(), 1e-9);
+        Assert.assertEquals(Arrays.asList(20, 30, 40, 50), ages.getHistogram());
+        Assert.assertEquals(0.2, ages.selectivity(Operator.EQ, 30), 1e-9);
+        Assert.assertEquals(0.2, ages.selectivity(Operator.EQ, null), 1e-9);
+        Assert.assertEquals(0.4, ages.selectivity(Operator.GT, 30), 1e-9);
+        Assert.assertEquals(0.4, ages.selectivity(Operator.BETWEEN, Arrays.asList(30, 40)), 1e-9);
+        Assert.assertEquals(0.4, ages.selectivity(Operator.NOT_IN, Arrays.asList(20, 30)), 1e-9);
+        Assert.assertTrue(ages.selectivity(Operator.CONTAINS, "3") < 0);
+    }
+
+    @Test
+    public void filterExpressionIsOptimized() {
+        Map<String, Object> filter = Collections.singletonMap("or", Arrays.asList(
+                Collections.singletonMap("firstName", Collections.singletonMap("equals", "Saurabh")),
+                Collections.singletonMap("or", Arrays.asList(
+                        Collections.singletonMap("firstName", Collections.singletonMap("equals", "Saurabh")),
+                        Collections.singletonMap("age", Collections.singletonMap("in", Arrays.asList(30)))))));
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder()
+                .args(Collections.singletonMap("filter", filter))
+                .optimizer(optimizer)
+                .build();
+
+        String sql = filterExpression.getExpression(ExpressionFormat.SQL);
+
+        Assert.assertEquals("WHERE ((firstName = 'Saurabh') OR (age = '30'))", sql);
+        Assert.assertTrue(filterExpression.getOptimizationReport().isChanged());
+    }
+
+    @Test
+    public void deeplyNestedTreeIsOptimized() {
+        Expression expression = eq("age", 0);
+        for (int i = 1; i < 20000; i++) {
+            expression = i % 3 == 0 ? not(expression)
+                    : i % 3 == 1 ? and(eq("age", i), expression) : or(eq("age", i), expression);
+        }
+        OptimizationReport report = new OptimizationReport();
+
+        Expression optimized = optimizer.optimize(expression, report);
+
+        Assert.assertEquals(33333, report.getNodesBefore());
+        Assert.assertEquals(33329, report.getNodesAfter());
+        Assert.assertTrue(optimized.infix().startsWith("((age eq 19999) and (not ((age eq 19997) or ((age eq 19996) and"));
+        /* ((age eq 1) and (age eq 0)) can never match, so ((age eq 2) or ...) folds to (age eq 2). */
+        Assert.assertTrue(optimized.infix().endsWith("(not (age eq 2" + String.join("", Collections.nCopies(19998, ")"))));
+        Assert.assertEquals(0.5, new SelectivityRule().selectivity(expression), 0.5);
+        Assert.assertEquals(13334, new SelectivityRule().cost(expression), 1e-9);
+    }
+
+    static Expression and(Expression... operands) {
+        return new CompoundExpression(Operator.AND, Arrays.asList(operands));
+    }
+
+    static Expression or(Expression... operands) {
+        return new CompoundExpression(Operator.OR, Arrays.asList(operands));
+    }
+
+    static Expression not(Expression operand) {
+        return new UnaryExpression(operand, Operator.NOT, null);
+    }
+
+    static Expression eq(String field, Object value) {
+        return binary(field, Operator.EQ, value);
+    }
+
+    static Expression equals(String field, Object value) {
+        return binary(field, Operator.EQUALS, value);
+    }
+
+    static Expression binary(String field, Operator operator, Object value) {
+        return new BinaryExpression(new ExpressionField(field), operator, new ExpressionValue(value));
+    }
+}
@@ -87,7 +87,7 @@ public class DynamoDBExpressionTest extends BaseFilterExpressionTest {
     public void filterExpressionANDWithMultipleOR() {
         getGraphQL().execute(TestConstants.COMPOUND_FILER_WITH_OR_OR_AND);
 
-        String expectedExpression = "(((contains(firstName, :firstName)) OR (lastName = :lastName)) OR ((firstName = :firstName) AND (age >= :min_age)))";
+        String expectedExpression = "((contains(firstName, :firstName)) OR (lastName = :lastName) OR ((firstName = :firstName) AND (age >= :min_age)))";
 
         Assert.assertEquals(expectedExpression, getEmployeeDataFetcher().getDynamoDBExpression());
     }
@@ -96,7 +96,7 @@ public class DynamoDBExpressionTest extends BaseFilterExpressionTest {
     public void filterExpressionORWithMultipleAND() {
         getGraphQL().execute(TestConstants.COMPOUND_FILER_WITH_AND_AND_OR);
 
-        String expectedExpression = "(((contains(firstName, :firstName)) AND (lastName = :lastName)) AND ((firstName = :firstName) OR (age >= :min_age)))";
+        String expectedExpression = "((contains(firstName, :firstName)) AND (lastName = :lastName) AND ((firstName = :firstName) OR (age >= :min_age)))";
 
         Assert.assertEquals(expectedExpression, getEmployeeDataFetcher().getDynamoDBExpression());
     }
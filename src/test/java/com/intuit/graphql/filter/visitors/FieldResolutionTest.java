@@ -0,0 +1,85 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.visitors;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.client.ExpressionFormat;
+import com.intuit.graphql.filter.client.FilterExpression;
+import com.intuit.graphql.filter.common.LastNameTransformer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class FieldResolutionTest {
+
+    @Test
+    public void mappedFieldKeepsItsValue() {
+        LastNameTransformer transformer = new LastNameTransformer();
+        FieldResolution fieldResolution = FieldResolution.of(createExpression(),
+                Collections.singletonMap("firstName", "first_name"), transformer);
+
+        int firstName = fieldResolution.indexOf("firstName");
+        int lastName = fieldResolution.indexOf("lastName");
+        int age = fieldResolution.indexOf("age");
+
+        Assert.assertEquals("first_name", fieldResolution.targetName(firstName));
+        Assert.assertFalse(fieldResolution.isValueTransformed(firstName));
+        Assert.assertEquals("last_name", fieldResolution.targetName(lastName));
+        Assert.assertEquals("JAISWAL", fieldResolution.transformValue(lastName, "Jaiswal"));
+        Assert.assertEquals("age", fieldResolution.targetName(age));
+        Assert.assertEquals(25, fieldResolution.transformValue(age, 25));
+        Assert.assertEquals(3, fieldResolution.size());
+        Assert.assertEquals(2, transformer.getFieldCalls());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fieldOutsideTheExpressionIsRejected() {
+        FieldResolution.of(createExpression(), null, null).indexOf("email");
+    }
+
+    @Test
+    public void fieldsAreResolvedOncePerFilter() {
+        LastNameTransformer transformer = new LastNameTransformer();
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder()
+                .args(LastNameTransformer.createFilterArgs())
+                .transform(transformer)
+                .build();
+        int resolved = transformer.getFieldCalls();
+
+        String sql = filterExpression.getExpression(ExpressionFormat.SQL);
+        filterExpression.getExpression(ExpressionFormat.INFIX);
+        filterExpression.getExpression(ExpressionFormat.MONGO);
+
+        Assert.assertEquals(2, resolved);
+        Assert.assertEquals(resolved, transformer.getFieldCalls());
+        Assert.assertEquals("WHERE ((last_name IN ('JAISWAL', 'GUPTA')) AND ((last_name = 'JAISWAL') OR (age > '25')))", sql);
+    }
+
+    private Expression createExpression() {
+        return new CompoundExpression(Operator.AND, Arrays.asList(
+                new BinaryExpression(new ExpressionField("firstName"), Operator.EQUALS, new ExpressionValue<>("Saurabh")),
+                new BinaryExpression(new ExpressionField("lastName"), Operator.EQUALS, new ExpressionValue<>("Jaiswal")),
+                new BinaryExpression(new ExpressionField("age"), Operator.GT, new ExpressionValue<>(25)),
+                new BinaryExpression(new ExpressionField("lastName"), Operator.EQUALS, new ExpressionValue<>("Gupta"))));
+    }
+}
@@ -96,7 +96,7 @@ public class InfixExpressionTest extends BaseFilterExpressionTest{
     public void filterExpressionANDWithMultipleOR() {
         ExecutionResult result = getGraphQL().execute(TestConstants.COMPOUND_FILER_WITH_OR_OR_AND);
 
-        String expectedExpression = "(((firstName contains Saurabh) or (lastName equals Jaiswal)) or ((firstName equals Vinod) and (age gte 30)))";
+        String expectedExpression = "((firstName contains Saurabh) or (lastName equals Jaiswal) or ((firstName equals Vinod) and (age gte 30)))";
 
         Assert.assertEquals(expectedExpression, getEmployeeDataFetcher().getExpression());
     }
@@ -105,7 +105,7 @@ public class InfixExpressionTest extends BaseFilterExpressionTest{
     public void filterExpressionORWithMultipleAND() {
         ExecutionResult result = getGraphQL().execute(TestConstants.COMPOUND_FILER_WITH_AND_AND_OR);
 
-        String expectedExpression = "(((firstName contains Saurabh) and (lastName equals Jaiswal)) and ((firstName equals Vinod) or (age gte 30)))";
+        String expectedExpression = "((firstName contains Saurabh) and (lastName equals Jaiswal) and ((firstName equals Vinod) or (age gte 30)))";
 
         Assert.assertEquals(expectedExpression, getEmployeeDataFetcher().getExpression());
     }
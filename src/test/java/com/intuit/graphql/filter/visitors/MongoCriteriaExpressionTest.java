@@ -117,9 +117,8 @@ public class MongoCriteriaExpressionTest extends BaseFilterExpressionTest {
 
         final Criteria actualCriteria = getEmployeeDataFetcher().getMongoCriteria();
         final Criteria expectedCriteria = new Criteria().orOperator(
-                new Criteria().orOperator(
-                        Criteria.where("firstName").regex(".*Saurabh.*"),
-                        Criteria.where("lastName").is("Jaiswal")),
+                Criteria.where("firstName").regex(".*Saurabh.*"),
+                Criteria.where("lastName").is("Jaiswal"),
                 new Criteria().andOperator(
                         Criteria.where("firstName").is("Vinod"),
                         Criteria.where("age").gte(30)));
@@ -133,9 +132,8 @@ public class MongoCriteriaExpressionTest extends BaseFilterExpressionTest {
 
         final Criteria actualCriteria = getEmployeeDataFetcher().getMongoCriteria();
         final Criteria expectedCriteria = new Criteria().andOperator(
-                new Criteria().andOperator(
-                        Criteria.where("firstName").regex(".*Saurabh.*"),
-                        Criteria.where("lastName").is("Jaiswal")),
+                Criteria.where("firstName").regex(".*Saurabh.*"),
+                Criteria.where("lastName").is("Jaiswal"),
                 new Criteria().orOperator(
                         Criteria.where("firstName").is("Vinod"),
                         Criteria.where("age").gte(30)));
@@ -0,0 +1,148 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.visitors;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.common.TestConstants;
+import graphql.scalars.ExtendedScalars;
+import graphql.schema.idl.RuntimeWiring;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+
+import static graphql.schema.idl.TypeRuntimeWiring.newTypeWiring;
+
+public class ParameterizedSQLExpressionTest extends BaseFilterExpressionTest {
+
+    @Override
+    public RuntimeWiring buildWiring() {
+        return RuntimeWiring.newRuntimeWiring()
+                .scalar(ExtendedScalars.DateTime)
+                .type(newTypeWiring("Query")
+                        .dataFetcher("searchEmployees", getEmployeeDataFetcher().searchEmployeesParameterizedSQL()))
+                .build();
+    }
+
+    @Test
+    public void filterExpressionSimple() {
+        getGraphQL().execute(TestConstants.BINARY_FILER);
+
+        ParameterizedSQL parameterizedSQL = getEmployeeDataFetcher().getParameterizedSQL();
+
+        Assert.assertEquals("WHERE (empFirstName LIKE ?)", parameterizedSQL.getExpression());
+        Assert.assertArrayEquals(new Object[]{"%Saurabh%"}, parameterizedSQL.getValues());
+        Assert.assertEquals(Types.VARCHAR, parameterizedSQL.getParameters().get(0).getSqlType());
+    }
+
+    @Test
+    public void filterExpressionORWithAND() {
+        getGraphQL().execute(TestConstants.COMPOUND_FILER_WITH_OR_AND);
+
+        ParameterizedSQL parameterizedSQL = getEmployeeDataFetcher().getParameterizedSQL();
+
+        Assert.assertEquals("WHERE ((empFirstName LIKE ?) OR ((lastName = ?) AND (age >= ?)))", parameterizedSQL.getExpression());
+        Assert.assertArrayEquals(new Object[]{"%Saurabh%", "Jaiswal", 25}, parameterizedSQL.getValues());
+        Assert.assertEquals(Types.INTEGER, parameterizedSQL.getParameters().get(2).getSqlType());
+        Assert.assertEquals(3, parameterizedSQL.getParameters().get(2).getIndex());
+    }
+
+    @Test
+    public void sameShapeProducesSameExpression() {
+        getGraphQL().execute(TestConstants.COMPOUND_FILER_WITH_OR_OR_AND);
+        ParameterizedSQL first = getEmployeeDataFetcher().getParameterizedSQL();
+
+        getGraphQL().execute(TestConstants.COMPOUND_FILER_WITH_OR_OR_AND
+                .replace("Saurabh", "Vinod").replace("30", "45"));
+        ParameterizedSQL second = getEmployeeDataFetcher().getParameterizedSQL();
+
+        Assert.assertEquals(first.getExpression(), second.getExpression());
+        Assert.assertNotEquals(Arrays.asList(first.getValues()), Arrays.asList(second.getValues()));
+    }
+
+    @Test
+    public void filterExpressionWithLastNameIn() {
+        getGraphQL().execute(TestConstants.LAST_NAME_IN);
+
+        ParameterizedSQL parameterizedSQL = getEmployeeDataFetcher().getParameterizedSQL();
+
+        Assert.assertEquals("WHERE (lastName IN (?, ?, ?))", parameterizedSQL.getExpression());
+        Assert.assertArrayEquals(new Object[]{"Jaiswal", "Gupta", "Kumar"}, parameterizedSQL.getValues());
+    }
+
+    @Test
+    public void filterExpressionWithDate() {
+        getGraphQL().execute(TestConstants.COMPOUND_DATE_FILTER);
+
+        ParameterizedSQL parameterizedSQL = getEmployeeDataFetcher().getParameterizedSQL();
+
+        Assert.assertEquals("WHERE ((lastName = ?) OR (birthDate > ?))", parameterizedSQL.getExpression());
+        Assert.assertTrue(parameterizedSQL.getValues()[1] instanceof Timestamp);
+        Assert.assertEquals(Types.TIMESTAMP, parameterizedSQL.getParameters().get(1).getSqlType());
+    }
+
+    @Test
+    public void notCompoundFilterExpression() {
+        getGraphQL().execute(TestConstants.NOT_COMPOUND_FILTER);
+
+        ParameterizedSQL parameterizedSQL = getEmployeeDataFetcher().getParameterizedSQL();
+
+        Assert.assertEquals("WHERE ( NOT ((empFirstName = ?) AND (lastName LIKE ?)))", parameterizedSQL.getExpression());
+        Assert.assertArrayEquals(new Object[]{"Saurabh", "%Jaiswal%"}, parameterizedSQL.getValues());
+    }
+
+    @Test
+    public void namedFilterExpression() {
+        getGraphQL().execute(TestConstants.COMPOUND_FILER_WITH_OR_OR_AND);
+
+        ParameterizedSQL parameterizedSQL = getEmployeeDataFetcher().getNamedParameterizedSQL();
+
+        Assert.assertEquals("WHERE ((empFirstName LIKE :empFirstName_1) OR (lastName = :lastName_2) " +
+                "OR ((empFirstName = :empFirstName_3) AND (age >= :age_4)))", parameterizedSQL.getExpression());
+        Assert.assertEquals("Vinod", parameterizedSQL.getNamedValues().get("empFirstName_3"));
+        Assert.assertEquals(30, parameterizedSQL.getNamedValues().get("age_4"));
+    }
+
+    @Test
+    public void namedFilterExpressionWithAgeIn() {
+        getGraphQL().execute(TestConstants.AGE_IN);
+
+        ParameterizedSQL parameterizedSQL = getEmployeeDataFetcher().getNamedParameterizedSQL();
+
+        Assert.assertEquals("WHERE (age IN (:age_1, :age_2, :age_3))", parameterizedSQL.getExpression());
+        Assert.assertEquals(3, parameterizedSQL.getNamedValues().size());
+    }
+
+    @Test
+    public void parametersOfTheDataAreKept() {
+        ParameterizedSQLExpressionVisitor visitor = new ParameterizedSQLExpressionVisitor(null, null,
+                SQLExpressionVisitor.ParameterStyle.NAMED);
+
+        ParameterizedSQL lastName = visitor.visitBinaryExpression(new BinaryExpression(new ExpressionField("lastName"),
+                Operator.EQUALS, new ExpressionValue<>("Jaiswal")), null);
+        ParameterizedSQL parameterizedSQL = visitor.visitBinaryExpression(new BinaryExpression(
+                new ExpressionField("age"), Operator.GTE, new ExpressionValue<>(25)), lastName);
+
+        Assert.assertEquals("(lastName = :lastName_1)(age >= :age_2)", parameterizedSQL.getExpression());
+        Assert.assertArrayEquals(new Object[]{"Jaiswal", 25}, parameterizedSQL.getValues());
+        Assert.assertEquals(2, parameterizedSQL.getParameters().get(1).getIndex());
+    }
+}
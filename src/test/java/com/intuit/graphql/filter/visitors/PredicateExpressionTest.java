@@ -0,0 +1,213 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.visitors;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.client.InvalidFilterException;
+import com.intuit.graphql.filter.common.Employee;
+import com.intuit.graphql.filter.common.TestConstants;
+import graphql.scalars.ExtendedScalars;
+import graphql.schema.idl.RuntimeWiring;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+import static graphql.schema.idl.TypeRuntimeWiring.newTypeWiring;
+
+public class PredicateExpressionTest extends BaseFilterExpressionTest {
+
+    @Override
+    public RuntimeWiring buildWiring() {
+        return RuntimeWiring.newRuntimeWiring()
+                .scalar(ExtendedScalars.DateTime)
+                .type(newTypeWiring("Query")
+                        .dataFetcher("searchEmployees", getEmployeeDataFetcher().searchEmployeesPredicate()))
+                .build();
+    }
+
+    @Test
+    public void filterExpressionSimple() {
+        getGraphQL().execute(TestConstants.BINARY_FILER);
+
+        assertFiltered("Saurabh", "Saurabhi");
+    }
+
+    @Test
+    public void filterExpressionORWithAND() {
+        getGraphQL().execute(TestConstants.COMPOUND_FILER_WITH_OR_AND);
+
+        assertFiltered("Saurabh", "Saurabhi", "Priya");
+    }
+
+    @Test
+    public void filterExpressionANDWithMultipleOR() {
+        getGraphQL().execute(TestConstants.COMPOUND_FILER_WITH_OR_OR_AND);
+
+        assertFiltered("Saurabh", "Vinod", "Saurabhi", "Priya");
+    }
+
+    @Test
+    public void filterExpressionORWithMultipleAND() {
+        getGraphQL().execute(TestConstants.COMPOUND_FILER_WITH_AND_AND_OR);
+
+        assertFiltered("Saurabh");
+    }
+
+    @Test
+    public void filterExpressionWithAgeIn() {
+        getGraphQL().execute(TestConstants.AGE_IN);
+
+        assertFiltered("Saurabh", "Amit");
+    }
+
+    @Test
+    public void filterExpressionWithDate() {
+        getGraphQL().execute(TestConstants.COMPOUND_DATE_FILTER);
+
+        assertFiltered("Saurabh", "Amit", "Saurabhi", "Priya");
+    }
+
+    @Test
+    public void notCompoundFilterExpression() {
+        getGraphQL().execute(TestConstants.NOT_COMPOUND_FILTER);
+
+        assertFiltered("Vinod", "Amit", "Saurabhi", "Priya");
+    }
+
+    @Test
+    public void fieldMapIsResolvedAndNumbersAreNormalized() {
+        BinaryExpression expression = new BinaryExpression(new ExpressionField("age"), Operator.BETWEEN,
+                new ExpressionValue<>(Arrays.asList(30, 40)));
+        Predicate<Map<String, Object>> predicate = new PredicateExpressionVisitor<Map<String, Object>>(
+                Collections.singletonMap("age", "years"), null).expression(expression);
+
+        Assert.assertTrue(predicate.test(Collections.singletonMap("years", 35L)));
+        Assert.assertTrue(predicate.test(Collections.singletonMap("years", new BigDecimal("30.0"))));
+        Assert.assertFalse(predicate.test(Collections.singletonMap("years", 29.5d)));
+        Assert.assertFalse(predicate.test(Collections.singletonMap("age", 35)));
+    }
+
+    @Test
+    public void primitiveGetterIsReadWithoutBoxing() {
+        Assert.assertTrue(BeanAccessors.get(Employee.class, "age") instanceof ToIntFunction);
+        Assert.assertSame(BeanAccessors.get(Employee.class, "age"), BeanAccessors.get(Employee.class, "age"));
+        Assert.assertNull(BeanAccessors.get(Employee.class, "salary"));
+
+        BinaryExpression expression = new BinaryExpression(new ExpressionField("age"), Operator.GT,
+                new ExpressionValue<>(30.5d));
+        Predicate<Employee> predicate = new PredicateExpressionVisitor<>(Employee.class, null, null).expression(expression);
+
+        Assert.assertEquals(Arrays.asList("Saurabh", "Amit"), Employee.EMPLOYEES.stream()
+                .filter(predicate).map(Employee::getFirstName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void privateClassFallsBackToReflection() {
+        BinaryExpression expression = new BinaryExpression(new ExpressionField("code"), Operator.IN,
+                new ExpressionValue<>(Arrays.asList(1, 3)));
+        Predicate<Code> predicate = new PredicateExpressionVisitor<>(Code.class, null, null).expression(expression);
+
+        Assert.assertTrue(predicate.test(new Code(3L)));
+        Assert.assertFalse(predicate.test(new Code(2L)));
+    }
+
+    @Test
+    public void negatedOperatorsAreEvaluated() {
+        BinaryExpression notIn = new BinaryExpression(new ExpressionField("age"), Operator.NOT_IN,
+                new ExpressionValue<>(Arrays.asList(32, 35, 22)));
+        BinaryExpression notEquals = new BinaryExpression(new ExpressionField("lastName"), Operator.NOT_EQUALS,
+                new ExpressionValue<>("Jaiswal"));
+        Predicate<Employee> predicate = new PredicateExpressionVisitor<>(Employee.class, null, null)
+                .expression(new CompoundExpression(notIn, Operator.OR, notEquals));
+
+        Assert.assertEquals(Arrays.asList("Vinod", "Amit", "Saurabhi", "Priya"), Employee.EMPLOYEES.stream()
+                .filter(predicate).map(Employee::getFirstName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void nullFieldsMatchNoNegatedOperator() {
+        Map<String, Object> missing = new HashMap<>();
+        Map<String, Object> nullName = new HashMap<>();
+        nullName.put("lastName", null);
+        Map<String, Object> gupta = new HashMap<>();
+        gupta.put("lastName", "Gupta");
+        PredicateExpressionVisitor<Map<String, Object>> visitor = new PredicateExpressionVisitor<>(null, null);
+
+        for (BinaryExpression expression : Arrays.asList(
+                new BinaryExpression(new ExpressionField("lastName"), Operator.NOT_EQUALS, new ExpressionValue<>("Jaiswal")),
+                new BinaryExpression(new ExpressionField("lastName"), Operator.NE, new ExpressionValue<>("Jaiswal")),
+                new BinaryExpression(new ExpressionField("lastName"), Operator.NOT_IN,
+                        new ExpressionValue<>(Arrays.asList("Jaiswal", "Kumar"))))) {
+            Predicate<Map<String, Object>> predicate = visitor.expression(expression);
+
+            Assert.assertFalse(predicate.test(missing));
+            Assert.assertFalse(predicate.test(nullName));
+            Assert.assertTrue(predicate.test(gupta));
+        }
+    }
+
+    @Test
+    public void valuesOfDifferentTypesDoNotMatch() {
+        Map<String, Object> row = Collections.singletonMap("age", "10");
+        PredicateExpressionVisitor<Map<String, Object>> visitor = new PredicateExpressionVisitor<>(null, null);
+
+        Assert.assertFalse(visitor.expression(new BinaryExpression(new ExpressionField("age"), Operator.GT,
+                new ExpressionValue<>(9))).test(row));
+        Assert.assertFalse(visitor.expression(new BinaryExpression(new ExpressionField("age"), Operator.LT,
+                new ExpressionValue<>(11))).test(row));
+        Assert.assertFalse(visitor.expression(new BinaryExpression(new ExpressionField("age"), Operator.EQ,
+                new ExpressionValue<>(10))).test(row));
+    }
+
+    @Test(expected = InvalidFilterException.class)
+    public void unknownFieldIsRejected() {
+        BinaryExpression expression = new BinaryExpression(new ExpressionField("salary"), Operator.GT,
+                new ExpressionValue<>(10));
+
+        new PredicateExpressionVisitor<>(Employee.class, null, null).expression(expression);
+    }
+
+    private void assertFiltered(String... firstNames) {
+        Assert.assertEquals(Arrays.asList(firstNames), getEmployeeDataFetcher().getFilteredEmployees());
+        Assert.assertEquals(Arrays.asList(firstNames), getEmployeeDataFetcher().getFilteredEmployeeRows());
+        Assert.assertEquals(Arrays.asList(firstNames), getEmployeeDataFetcher().getFilteredTypedEmployees());
+    }
+
+    private static class Code {
+
+        private final long code;
+
+        Code(long code) {
+            this.code = code;
+        }
+
+        public long getCode() {
+            return code;
+        }
+    }
+}
@@ -86,7 +86,7 @@ public class SQLExpressionTest extends BaseFilterExpressionTest {
     public void filterExpressionANDWithMultipleOR() {
         ExecutionResult result = getGraphQL().execute(TestConstants.COMPOUND_FILER_WITH_OR_OR_AND);
 
-        String expectedExpression = "WHERE (((empFirstName LIKE '%Saurabh%') OR (lastName = 'Jaiswal')) OR ((empFirstName = 'Vinod') AND (age >= '30')))";
+        String expectedExpression = "WHERE ((empFirstName LIKE '%Saurabh%') OR (lastName = 'Jaiswal') OR ((empFirstName = 'Vinod') AND (age >= '30')))";
 
         Assert.assertEquals(expectedExpression,getEmployeeDataFetcher().getSqlExpression());
     }
@@ -95,7 +95,7 @@ public class SQLExpressionTest extends BaseFilterExpressionTest {
     public void filterExpressionORWithMultipleAND() {
         ExecutionResult result = getGraphQL().execute(TestConstants.COMPOUND_FILER_WITH_AND_AND_OR);
 
-        String expectedExpression = "WHERE (((empFirstName LIKE '%Saurabh%') AND (lastName = 'Jaiswal')) AND ((empFirstName = 'Vinod') OR (age >= '30')))";
+        String expectedExpression = "WHERE ((empFirstName LIKE '%Saurabh%') AND (lastName = 'Jaiswal') AND ((empFirstName = 'Vinod') OR (age >= '30')))";
 
         Assert.assertEquals(expectedExpression,getEmployeeDataFetcher().getSqlExpression());
     }
@@ -0,0 +1,262 @@
+/*
+  Copyright 2020 Intuit Inc.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+ */
+package com.intuit.graphql.filter.visitors;
+
+import com.intuit.graphql.filter.ast.BinaryExpression;
+import com.intuit.graphql.filter.ast.CompoundExpression;
+import com.intuit.graphql.filter.ast.Expression;
+import com.intuit.graphql.filter.ast.ExpressionField;
+import com.intuit.graphql.filter.ast.ExpressionValue;
+import com.intuit.graphql.filter.ast.Operator;
+import com.intuit.graphql.filter.ast.UnaryExpression;
+import com.intuit.graphql.filter.client.ExpressionFormat;
+import com.intuit.graphql.filter.client.FieldValuePair;
+import com.intuit.graphql.filter.client.FieldValueTransformer;
+import com.intuit.graphql.filter.client.FilterExpression;
+import com.intuit.graphql.filter.client.InvalidFilterException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class StringExpressionVisitorTest {
+
+    @Test
+    public void expressionIsAppendedToCallerBuffer() {
+        StringWriter writer = new StringWriter();
+        writer.append("SELECT * FROM employee ");
+
+        new SQLExpressionVisitor(null, null).expression(createCompoundExpression(), writer);
+
+        Assert.assertEquals("SELECT * FROM employee WHERE ((firstName LIKE '%Saurabh%') OR (age >= '25'))",
+                writer.toString());
+    }
+
+    @Test
+    public void visitorIsReusableAfterAppending() {
+        InfixExpressionVisitor visitor = new InfixExpressionVisitor(null, null);
+        StringBuilder buffer = new StringBuilder("filter: ");
+
+        visitor.expression(createCompoundExpression(), buffer);
+        String expression = visitor.expression(createCompoundExpression());
+
+        Assert.assertEquals("filter: ((firstName contains Saurabh) or (age gte 25))", buffer.toString());
+        Assert.assertEquals("((firstName contains Saurabh) or (age gte 25))", expression);
+    }
+
+    @Test
+    public void filterExpressionWritesToAppendable() {
+        Map<String, Object> args = new HashMap<>();
+        args.put("filter", Collections.singletonMap("firstName", Collections.singletonMap("equals", "Saurabh")));
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder().args(args).build();
+        StringBuilder buffer = new StringBuilder();
+
+        filterExpression.writeExpression(ExpressionFormat.DYNAMODB, buffer);
+
+        Assert.assertEquals("(firstName = :firstName)", buffer.toString());
+    }
+
+    @Test(expected = InvalidFilterException.class)
+    public void filterExpressionRejectsNonStringFormat() {
+        Map<String, Object> args = new HashMap<>();
+        args.put("filter", Collections.singletonMap("firstName", Collections.singletonMap("equals", "Saurabh")));
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder().args(args).build();
+
+        filterExpression.writeExpression(ExpressionFormat.MONGO, new StringBuilder());
+    }
+
+    @Test
+    public void largeInListIsRendered() {
+        List<Comparable> values = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            values.add(i);
+        }
+        Expression expression = new BinaryExpression(new ExpressionField("age"), Operator.IN, new ExpressionValue<>(values));
+
+        String sql = new SQLExpressionVisitor(null, null).expression(expression);
+
+        Assert.assertTrue(sql.startsWith("WHERE (age IN ('0', '1', '2'"));
+        Assert.assertTrue(sql.endsWith("'9998', '9999'))"));
+    }
+
+    @Test
+    public void wideOrIsRendered() {
+        Expression expression = null;
+        for (int i = 0; i < 1000; i++) {
+            Expression term = new BinaryExpression(new ExpressionField("age"), Operator.EQ, new ExpressionValue<>(i));
+            expression = expression == null ? term : new CompoundExpression(expression, Operator.OR, term);
+        }
+
+        String infix = new InfixExpressionVisitor(null, null).expression(expression);
+
+        Assert.assertTrue(infix.endsWith("(age eq 998)) or (age eq 999))"));
+    }
+
+    @Test
+    public void sharedVisitorRendersConcurrently() throws Exception {
+        SQLExpressionVisitor visitor = new SQLExpressionVisitor(null, null);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                Expression expression = new BinaryExpression(new ExpressionField("age"), Operator.EQ, new ExpressionValue<>(i));
+                results.add(executor.submit(() -> visitor.expression(expression)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals("WHERE (age = '" + i + "')", results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void parametersAreCollectedPerCall() {
+        ParameterizedSQLExpressionVisitor visitor = new ParameterizedSQLExpressionVisitor(null, null,
+                SQLExpressionVisitor.ParameterStyle.POSITIONAL);
+
+        ParameterizedSQL first = visitor.expression(createCompoundExpression());
+        ParameterizedSQL second = visitor.expression(createCompoundExpression());
+
+        Assert.assertEquals("WHERE ((firstName LIKE ?) OR (age >= ?))", second.getExpression());
+        Assert.assertArrayEquals(new Object[]{"%Saurabh%", 25}, first.getValues());
+        Assert.assertArrayEquals(new Object[]{"%Saurabh%", 25}, second.getValues());
+    }
+
+    @Test
+    public void expressionValuesAreReturnedWithTheExpression() {
+        DynamoDBExpressionVisitor visitor = new DynamoDBExpressionVisitor(null, null);
+
+        DynamoDBExpression dynamoDBExpression = visitor.dynamoDBExpression(createCompoundExpression());
+
+        Assert.assertEquals("((contains(firstName, :firstName)) OR (age >= :min_age))", dynamoDBExpression.getExpression());
+        Assert.assertEquals("Saurabh", dynamoDBExpression.getExpressionValues().get(":firstName"));
+        Assert.assertEquals(25, dynamoDBExpression.getExpressionValues().get(":min_age"));
+    }
+
+    @Test
+    public void expressionValuesOfTheLastExpressionAreReturned() {
+        DynamoDBExpressionVisitor visitor = new DynamoDBExpressionVisitor(null, null);
+
+        visitor.expression(createCompoundExpression());
+
+        Assert.assertEquals("Saurabh", visitor.getExpressionValues().get(":firstName"));
+        Assert.assertEquals(25, visitor.getExpressionValues().get(":min_age"));
+    }
+
+    @Test
+    public void sharedRenderingKeepsNoValues() {
+        DynamoDBExpressionVisitor visitor = new DynamoDBExpressionVisitor(null, null);
+        Expression expression = createCompoundExpression();
+
+        visitor.expression(expression, FieldResolution.of(expression, null, null));
+        visitor.dynamoDBExpression(expression);
+
+        Assert.assertTrue(visitor.getExpressionValues().isEmpty());
+    }
+
+    @Test
+    public void attributeNamesAreWrittenAsTheyAre() {
+        Expression expression = new BinaryExpression(new ExpressionField("status"), Operator.EQUALS,
+                new ExpressionValue<>("active"));
+        DynamoDBExpressionVisitor visitor = new DynamoDBExpressionVisitor(null, null);
+
+        Assert.assertEquals("(status = :status)", visitor.expression(expression));
+        Assert.assertTrue(visitor.getExpressionNames().isEmpty());
+    }
+
+    @Test
+    public void expressionValuesAreTransformed() {
+        FieldValueTransformer transformer = new FieldValueTransformer() {
+            @Override
+            public String transformField(String fieldName) {
+                return "lastName".equals(fieldName) ? "last_name" : null;
+            }
+
+            @Override
+            public FieldValuePair<? extends Object> transformValue(String fieldName, Object value) {
+                return new FieldValuePair<>(fieldName, value.toString().toUpperCase());
+            }
+        };
+        Expression expression = new BinaryExpression(new ExpressionField("lastName"), Operator.EQUALS,
+                new ExpressionValue<>("Jaiswal"));
+
+        DynamoDBExpression dynamoDBExpression = new DynamoDBExpressionVisitor(null, transformer).dynamoDBExpression(expression);
+
+        Assert.assertEquals("(last_name = :last_name)", dynamoDBExpression.getExpression());
+        Assert.assertEquals("JAISWAL", dynamoDBExpression.getExpressionValues().get(":last_name"));
+    }
+
+    @Test
+    public void valuesAreRenderedOnTheirOwn() {
+        ExpressionValue<String> value = new ExpressionValue<>("Saurabh");
+        ExpressionValue values = new ExpressionValue<>(Arrays.asList("Jaiswal", "Gupta"));
+
+        Assert.assertEquals("'Saurabh'", new SQLExpressionVisitor(null, null).visitExpressionValue(value, ""));
+        Assert.assertEquals("('Jaiswal', 'Gupta')", new SQLExpressionVisitor(null, null).visitExpressionValue(values, ""));
+        Assert.assertEquals(":value", new DynamoDBExpressionVisitor(null, null).visitExpressionValue(value, ""));
+        Assert.assertEquals("(:value_0, :value_1)", new DynamoDBExpressionVisitor(null, null).visitExpressionValue(values, ""));
+    }
+
+    @Test
+    public void formatsAreRenderedInOneWalk() {
+        Expression expression = new CompoundExpression(createCompoundExpression(), Operator.AND,
+                new UnaryExpression(new BinaryExpression(new ExpressionField("lastName"), Operator.IN,
+                        new ExpressionValue<>(Arrays.asList("Jaiswal", "Gupta"))), Operator.NOT, null));
+        List<AbstractStringExpressionVisitor> visitors = Arrays.asList(new InfixExpressionVisitor(null, null),
+                new SQLExpressionVisitor(null, null), new DynamoDBExpressionVisitor(null, null));
+
+        List<String> expressions = AbstractStringExpressionVisitor.expressions(expression,
+                FieldResolution.of(expression, null, null), visitors);
+
+        for (int i = 0; i < visitors.size(); i++) {
+            Assert.assertEquals(visitors.get(i).expression(expression), expressions.get(i));
+        }
+        Assert.assertEquals("WHERE (((firstName LIKE '%Saurabh%') OR (age >= '25')) AND ( NOT (lastName IN ('Jaiswal', 'Gupta'))))",
+                expressions.get(1));
+    }
+
+    @Test
+    public void filterExpressionMemoizesImmutableFormats() {
+        Map<String, Object> args = new HashMap<>();
+        args.put("filter", Collections.singletonMap("firstName", Collections.singletonMap("equals", "Saurabh")));
+        FilterExpression filterExpression = FilterExpression.newFilterExpressionBuilder().args(args).build();
+
+        Map<ExpressionFormat, Object> expressions = filterExpression.getExpressions(ExpressionFormat.SQL,
+                ExpressionFormat.INFIX, ExpressionFormat.MONGO);
+
+        Assert.assertEquals("WHERE (firstName = 'Saurabh')", expressions.get(ExpressionFormat.SQL));
+        Assert.assertEquals("(firstName equals Saurabh)", expressions.get(ExpressionFormat.INFIX));
+        Assert.assertSame(expressions.get(ExpressionFormat.SQL), filterExpression.getExpression(ExpressionFormat.SQL));
+        Assert.assertSame(expressions.get(ExpressionFormat.INFIX), filterExpression.getExpression(null));
+        Assert.assertNotSame(expressions.get(ExpressionFormat.MONGO), filterExpression.getExpression(ExpressionFormat.MONGO));
+    }
+
+    private Expression createCompoundExpression() {
+        Expression left = new BinaryExpression(new ExpressionField("firstName"), Operator.CONTAINS, new ExpressionValue<>("Saurabh"));
+        Expression right = new BinaryExpression(new ExpressionField("age"), Operator.GTE, new ExpressionValue<>(25));
+        return new CompoundExpression(left, Operator.OR, right);
+    }
+}